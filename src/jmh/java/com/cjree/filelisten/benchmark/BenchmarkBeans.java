@@ -0,0 +1,54 @@
+package com.cjree.filelisten.benchmark;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+
+/**
+ * 脱离Spring容器组装服务：按字段名注入依赖，数据库相关的服务用空实现代替
+ */
+final class BenchmarkBeans {
+
+    private BenchmarkBeans() {
+    }
+
+    /**
+     * 给目标对象（含父类）的字段赋值
+     */
+    static void inject(Object target, String fieldName, Object value) {
+        for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                // 继续查找父类
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        throw new IllegalArgumentException("No field " + fieldName + " in " + target.getClass());
+    }
+
+    /**
+     * 所有方法都直接返回默认值（null、0、false）的接口实现
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T noop(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "noop " + type.getSimpleName();
+                default:
+                    Class<?> returnType = method.getReturnType();
+                    return returnType.isPrimitive() && returnType != void.class
+                            ? Array.get(Array.newInstance(returnType, 1), 0) : null;
+            }
+        });
+    }
+}
@@ -0,0 +1,38 @@
+package com.cjree.filelisten.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * 基准测试用的临时文件
+ */
+final class BenchmarkFiles {
+
+    private static final byte[] LINE = "2024-01-01 12:00:00.000  INFO 1 --- [event-lane-1] c.c.f.s.FileMonitorServiceImpl : 文件修改 /data/logs/app.log\n"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private BenchmarkFiles() {
+    }
+
+    /**
+     * 创建指定大小、内容为日志行的文本文件
+     */
+    static Path createTextFile(String prefix, int size) throws IOException {
+        Path file = Files.createTempFile(prefix, ".log");
+        Random random = new Random(size);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            int written = 0;
+            while (written < size) {
+                int length = Math.min(LINE.length, size - written);
+                LINE[0] = (byte) ('0' + random.nextInt(10));
+                out.write(LINE, 0, length);
+                written += length;
+            }
+        }
+        return file;
+    }
+}
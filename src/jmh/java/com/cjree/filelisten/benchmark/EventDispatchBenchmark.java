@@ -0,0 +1,172 @@
+package com.cjree.filelisten.benchmark;
+
+import com.cjree.filelisten.config.FileMonitorProperties;
+import com.cjree.filelisten.entity.FileMonitorConfigPo;
+import com.cjree.filelisten.enums.PathTypeEnum;
+import com.cjree.filelisten.event.FileEvent;
+import com.cjree.filelisten.metrics.FileMonitorMetrics;
+import com.cjree.filelisten.rule.FileRuleRegistry;
+import com.cjree.filelisten.service.FileMonitorConfigService;
+import com.cjree.filelisten.service.FileMonitorServiceImpl;
+import com.cjree.filelisten.service.FileOperationLogService;
+import com.cjree.filelisten.subscribe.OperationEventBus;
+import com.cjree.filelisten.tail.CheckpointStore;
+import com.cjree.filelisten.tail.TailReader;
+import com.cjree.filelisten.writer.OperationLogWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 单个事件在处理通道内的分发路径（handleEvent），数据库写入替换为空实现
+ * 文件轮流追加，保证同一文件两次修改之间的修改时间不同，不被去重跳过
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventDispatchBenchmark {
+
+    private static final int FILE_COUNT = 1024;
+
+    private static final byte[] LINE = "2024-01-01 12:00:00.000  INFO 1 --- [main] c.c.f.Application : started\n"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private Path dir;
+
+    private Path[] logFiles;
+
+    private Path[] excludedFiles;
+
+    private int next;
+
+    private ExecutorService dbWriterExecutor;
+
+    private OperationLogWriter operationLogWriter;
+
+    private FileMonitorServiceImpl service;
+
+    private MethodHandle handleEvent;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("event-dispatch");
+        logFiles = new Path[FILE_COUNT];
+        excludedFiles = new Path[FILE_COUNT];
+        for (int i = 0; i < FILE_COUNT; i++) {
+            logFiles[i] = Files.createFile(dir.resolve("app-" + i + ".log"));
+            excludedFiles[i] = Files.createFile(dir.resolve("upload-" + i + ".tmp"));
+        }
+
+        FileMonitorProperties properties = new FileMonitorProperties();
+        properties.getJournal().setDir(dir.resolve("journal").toString());
+        FileMonitorMetrics metrics = new FileMonitorMetrics();
+        BenchmarkBeans.inject(metrics, "meterRegistry", new SimpleMeterRegistry());
+        BenchmarkBeans.inject(metrics, "fileMonitorProperties", properties);
+        metrics.init();
+
+        FileMonitorConfigPo config = new FileMonitorConfigPo();
+        config.setMonitorPath(dir.toString());
+        config.setPathType(PathTypeEnum.DIRECTORY.getCode());
+        config.setRecursives(Boolean.TRUE);
+        config.setEnabled(Boolean.TRUE);
+        config.setIncludePatterns("*.log");
+        config.setExcludePatterns("*.tmp");
+        FileRuleRegistry ruleRegistry = new FileRuleRegistry();
+        ruleRegistry.rebuild(Collections.singletonList(config));
+
+        FileOperationLogService fileOperationLogService = BenchmarkBeans.noop(FileOperationLogService.class);
+        dbWriterExecutor = Executors.newSingleThreadExecutor();
+        operationLogWriter = new OperationLogWriter();
+        BenchmarkBeans.inject(operationLogWriter, "fileOperationLogService", fileOperationLogService);
+        BenchmarkBeans.inject(operationLogWriter, "fileMonitorProperties", properties);
+        BenchmarkBeans.inject(operationLogWriter, "dbWriterExecutor", dbWriterExecutor);
+        BenchmarkBeans.inject(operationLogWriter, "fileMonitorMetrics", metrics);
+        operationLogWriter.start();
+
+        service = new FileMonitorServiceImpl();
+        BenchmarkBeans.inject(service, "fileMonitorConfigService", BenchmarkBeans.noop(FileMonitorConfigService.class));
+        BenchmarkBeans.inject(service, "fileOperationLogService", fileOperationLogService);
+        BenchmarkBeans.inject(service, "operationLogWriter", operationLogWriter);
+        BenchmarkBeans.inject(service, "fileRuleRegistry", ruleRegistry);
+        BenchmarkBeans.inject(service, "fileMonitorProperties", properties);
+        BenchmarkBeans.inject(service, "tailReader", new TailReader(1024 * 1024, 16));
+        BenchmarkBeans.inject(service, "checkpointStore", new CheckpointStore(false, dir.resolve("tail.ckpt"), 1000));
+        BenchmarkBeans.inject(service, "fileMonitorMetrics", metrics);
+        // 未启动的事件总线不发布，只测事件处理本身
+        BenchmarkBeans.inject(service, "operationEventBus", new OperationEventBus());
+        handleEvent = MethodHandles.privateLookupIn(FileMonitorServiceImpl.class, MethodHandles.lookup())
+                .findVirtual(FileMonitorServiceImpl.class, "handleEvent", MethodType.methodType(void.class, FileEvent.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        operationLogWriter.stop();
+        dbWriterExecutor.shutdown();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = (next + 1) % FILE_COUNT;
+        return index;
+    }
+
+    /**
+     * 追加一行后处理修改事件：过滤、去重、增量读取、入队写库
+     */
+    @Benchmark
+    public void appendedFileModify() throws Throwable {
+        Path file = logFiles[nextIndex()];
+        Files.write(file, LINE, StandardOpenOption.APPEND);
+        handleEvent.invoke(service, new FileEvent(dir, file, StandardWatchEventKinds.ENTRY_MODIFY));
+    }
+
+    /**
+     * 被排除的文件：规则过滤后直接返回
+     */
+    @Benchmark
+    public void excludedFileModify() throws Throwable {
+        Path file = excludedFiles[nextIndex()];
+        handleEvent.invoke(service, new FileEvent(dir, file, StandardWatchEventKinds.ENTRY_MODIFY));
+    }
+
+    /**
+     * 文件创建：重置读取位置并入队写库
+     */
+    @Benchmark
+    public void fileCreate() throws Throwable {
+        Path file = logFiles[nextIndex()];
+        handleEvent.invoke(service, new FileEvent(dir, file, StandardWatchEventKinds.ENTRY_CREATE));
+    }
+}
@@ -0,0 +1,129 @@
+package com.cjree.filelisten.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 操作日志落库：逐条插入并提交 vs 与批量写入器一致的多行INSERT
+ * 使用内嵌H2（MySQL兼容模式，文件库以计入提交刷盘），结果按单条日志计
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OperationLogPersistBenchmark {
+
+    // 与操作日志写入器的默认批次大小一致
+    private static final int BATCH_SIZE = 500;
+
+    private static final String COLUMNS = "insert into file_operation_log (id, file_path, operation_type, content, operator, operation_time) values ";
+
+    private static final String ROW = "(?, ?, ?, ?, ?, ?)";
+
+    private static final String CONTENT = "2024-01-01 12:00:00.000  INFO 1 --- [event-lane-1] c.c.f.s.FileMonitorServiceImpl : 文件修改";
+
+    private Path dbDir;
+
+    private Connection connection;
+
+    private PreparedStatement singleInsert;
+
+    private PreparedStatement batchInsert;
+
+    private long nextId;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        dbDir = Files.createTempDirectory("oplog-h2");
+        connection = DriverManager.getConnection("jdbc:h2:" + dbDir.resolve("oplog").toAbsolutePath() + ";MODE=MySQL", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table file_operation_log (" +
+                    "id bigint not null primary key, " +
+                    "file_path varchar(255) not null, " +
+                    "operation_type varchar(20) not null, " +
+                    "content text, " +
+                    "operator varchar(50), " +
+                    "operation_time datetime not null, " +
+                    "available varchar(3) default 'YES' not null, " +
+                    "create_date datetime default current_timestamp)");
+            statement.execute("create index idx_file_path on file_operation_log (file_path)");
+            statement.execute("create index idx_operation_time on file_operation_log (operation_time)");
+        }
+        singleInsert = connection.prepareStatement(COLUMNS + ROW);
+        StringBuilder sql = new StringBuilder(COLUMNS);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            sql.append(i == 0 ? "" : ", ").append(ROW);
+        }
+        batchInsert = connection.prepareStatement(sql.toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        connection.close();
+        try (Stream<Path> paths = Files.list(dbDir)) {
+            paths.forEach(path -> path.toFile().delete());
+        }
+        Files.deleteIfExists(dbDir);
+    }
+
+    /**
+     * 原实现：每个事件单独插入并自动提交
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void singleRowInserts() throws SQLException {
+        connection.setAutoCommit(true);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            bind(singleInsert, 0);
+            singleInsert.executeUpdate();
+        }
+    }
+
+    /**
+     * 批量写入器：一条多行INSERT，一次提交
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void multiRowInsert() throws SQLException {
+        connection.setAutoCommit(false);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            bind(batchInsert, i * 6);
+        }
+        batchInsert.executeUpdate();
+        connection.commit();
+    }
+
+    private void bind(PreparedStatement statement, int offset) throws SQLException {
+        long id = nextId++;
+        statement.setLong(offset + 1, id);
+        statement.setString(offset + 2, "/data/apps/app" + (id % 100) + "/logs/app.log");
+        statement.setString(offset + 3, "MODIFY");
+        statement.setString(offset + 4, CONTENT);
+        statement.setString(offset + 5, "root");
+        statement.setTimestamp(offset + 6, new Timestamp(System.currentTimeMillis()));
+    }
+}
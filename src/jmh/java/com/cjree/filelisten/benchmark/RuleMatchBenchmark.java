@@ -0,0 +1,122 @@
+package com.cjree.filelisten.benchmark;
+
+import com.cjree.filelisten.entity.FileMonitorConfigPo;
+import com.cjree.filelisten.enums.PathTypeEnum;
+import com.cjree.filelisten.rule.FileRuleRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 包含/排除规则匹配：原逐次编译正则 vs 预编译规则索引
+ * 配置根目录数可调，文件名按日志目录的常见分布混合命中与未命中
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuleMatchBenchmark {
+
+    private static final String INCLUDE_PATTERNS = "*.log,*.txt,*.out,app-*.json,gc.log.?";
+    private static final String EXCLUDE_PATTERNS = "*.tmp,*.swp,*.gz,.*,*~";
+    private static final String[] FILE_NAMES = {
+            "app.log", "app-2024-01-01.log", "error.txt", "gc.log.1", "app-metrics.json", "nohup.out",
+            "app.log.gz", ".app.log.swp", "upload.tmp", "core.12345", "README.md", "app.log~"
+    };
+
+    // 取样路径数，取2的幂便于循环取下标
+    private static final int SAMPLE_SIZE = 1024;
+
+    @Param({"10", "1000"})
+    private int rootCount;
+
+    private FileRuleRegistry registry;
+
+    private Path[] samples;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<FileMonitorConfigPo> configs = new ArrayList<>(rootCount);
+        for (int i = 0; i < rootCount; i++) {
+            FileMonitorConfigPo config = new FileMonitorConfigPo();
+            config.setMonitorPath("/data/apps/app" + i + "/logs");
+            config.setPathType(PathTypeEnum.DIRECTORY.getCode());
+            config.setRecursives(Boolean.TRUE);
+            config.setEnabled(Boolean.TRUE);
+            config.setIncludePatterns(INCLUDE_PATTERNS);
+            config.setExcludePatterns(EXCLUDE_PATTERNS);
+            configs.add(config);
+        }
+        registry = new FileRuleRegistry();
+        registry.rebuild(configs);
+
+        Random random = new Random(rootCount);
+        samples = new Path[SAMPLE_SIZE];
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            // 一部分文件位于配置目录的多级子目录中
+            String subdirectory = random.nextBoolean() ? "" : "/2024/01/" + random.nextInt(31);
+            samples[i] = Paths.get("/data/apps/app" + random.nextInt(rootCount) + "/logs" + subdirectory,
+                    FILE_NAMES[random.nextInt(FILE_NAMES.length)]);
+        }
+    }
+
+    private Path nextSample() {
+        Path path = samples[next];
+        next = (next + 1) & (SAMPLE_SIZE - 1);
+        return path;
+    }
+
+    @Benchmark
+    public boolean compiledIndex() {
+        return registry.isIncluded(nextSample());
+    }
+
+    @Benchmark
+    public boolean regexPerCall() {
+        return isFileIncluded(nextSample(), INCLUDE_PATTERNS, EXCLUDE_PATTERNS);
+    }
+
+    /**
+     * 原实现（不含查库部分）：每次拆分模式串并把通配符转换为正则匹配
+     */
+    private static boolean isFileIncluded(Path path, String includePatterns, String excludePatterns) {
+        String fileName = path.getFileName().toString();
+        for (String pattern : excludePatterns.split(",")) {
+            if (matchesPattern(fileName, pattern.trim())) {
+                return false;
+            }
+        }
+        for (String pattern : includePatterns.split(",")) {
+            if (matchesPattern(fileName, pattern.trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesPattern(String fileName, String pattern) {
+        String regex = pattern.replace(".", "\\.").replace("*", ".*").replace("?", ".");
+        return Pattern.matches(regex, fileName);
+    }
+}
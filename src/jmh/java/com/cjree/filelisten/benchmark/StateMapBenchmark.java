@@ -0,0 +1,89 @@
+package com.cjree.filelisten.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读取位置、修改时间等按路径缓存的状态表在大量文件下的读写开销
+ * 与事件处理线程一致按多线程并发访问，路径取自预先生成的键避免计入路径构造
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StateMapBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int pathCount;
+
+    private Path[] paths;
+
+    private Map<Path, Long> filePositions;
+
+    private Map<Path, Long> fileLastModified;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        paths = new Path[pathCount];
+        filePositions = new ConcurrentHashMap<>();
+        fileLastModified = new ConcurrentHashMap<>();
+        for (int i = 0; i < pathCount; i++) {
+            paths[i] = Paths.get("/data/apps/app" + (i % 100), "logs", (i / 100 % 1000) + "", "app-" + i + ".log");
+            filePositions.put(paths[i], (long) i);
+            fileLastModified.put(paths[i], System.currentTimeMillis());
+        }
+    }
+
+    private Path randomPath() {
+        return paths[ThreadLocalRandom.current().nextInt(pathCount)];
+    }
+
+    /**
+     * 修改事件的去重判断：查修改时间
+     */
+    @Benchmark
+    public Long lookupLastModified() {
+        return fileLastModified.get(randomPath());
+    }
+
+    /**
+     * 修改事件读取增量：取读取位置并推进
+     */
+    @Benchmark
+    public Long advancePosition() {
+        Path path = randomPath();
+        long position = filePositions.getOrDefault(path, 0L);
+        return filePositions.put(path, position + 128);
+    }
+
+    /**
+     * 文件删除后重建：移除读取位置再从头记录，表大小保持不变
+     */
+    @Benchmark
+    public Long deleteThenCreate() {
+        Path path = randomPath();
+        filePositions.remove(path);
+        return filePositions.put(path, 0L);
+    }
+}
@@ -0,0 +1,78 @@
+package com.cjree.filelisten.benchmark;
+
+import com.cjree.filelisten.tail.TailReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 增量读取：原内存映射整段读取 vs 池化缓冲区分块流式读取
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TailReadBenchmark {
+
+    @Param({"4096", "1048576", "67108864"})
+    private int deltaBytes;
+
+    private Path file;
+
+    private TailReader tailReader;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = BenchmarkFiles.createTextFile("tail-read", deltaBytes);
+        tailReader = new TailReader(1024 * 1024, 4);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void mmapWholeRegion(Blackhole blackhole) throws IOException {
+        blackhole.consume(readFileFromPosition(file, 0, deltaBytes));
+    }
+
+    @Benchmark
+    public void streamingChunks(Blackhole blackhole) throws IOException {
+        blackhole.consume(tailReader.read(file, 0, deltaBytes, (content, endPosition) -> blackhole.consume(content)));
+    }
+
+    /**
+     * 原实现：映射整个区间，复制为byte[]后再构造String
+     */
+    private static String readFileFromPosition(Path path, long start, long end) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.cjree.filelisten.benchmark;
+
+import com.cjree.filelisten.watch.InotifyWatchBackend;
+import com.cjree.filelisten.watch.NativeWatchBackend;
+import com.cjree.filelisten.watch.WatchBackend;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 监听后端：JDK WatchService vs inotify直连
+ * 每次调用在一个目录内突发创建burst个文件，最后创建一个结束标记文件，收到标记的事件即停止计时，对比耗时、收到的事件数和溢出次数。
+ * 溢出时内核已丢弃后续事件（包括标记），收完已排队的事件即停止计时；剩余事件在计时外按静默时间收完并计入事件数。
+ * inotify本地库先用 mvn -Pinotify compile 生成，或通过 -Dinotify.library 指定
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class WatchBackendBenchmark {
+
+    // 最后一个事件之后的静默时间，超过即认为事件已收完（只用于计时外的收尾）
+    private static final long QUIET_MILLIS = 200;
+
+    // 计时内等待事件的超时，正常在收到结束标记前不会触发
+    private static final long RECEIVE_TIMEOUT_MILLIS = 10000;
+
+    // 结束标记文件名，按目录内事件顺序最后到达
+    private static final Path SENTINEL = Paths.get("done");
+
+    @Param({"NATIVE", "INOTIFY"})
+    private String backendType;
+
+    @Param({"1000", "20000"})
+    private int burst;
+
+    private WatchBackend backend;
+
+    private Path dir;
+
+    // 本次调用是否已收到结束标记
+    private boolean sentinelSeen;
+
+    /**
+     * 收到的事件与溢出次数，随结果一起输出
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long events;
+        public long overflows;
+    }
+
+    @Setup(Level.Invocation)
+    public void setup() throws IOException {
+        if ("INOTIFY".equals(backendType)) {
+            String library = Paths.get(System.getProperty("inotify.library", "target/native/libfilelisten-inotify.so"))
+                    .toAbsolutePath().toString();
+            if (!InotifyWatchBackend.isAvailable(library)) {
+                throw new IllegalStateException("inotify本地库不可用: " + library);
+            }
+            backend = new InotifyWatchBackend(256 * 1024, "CREATE,DELETE,MODIFY", "inotify-reader");
+        } else {
+            backend = new NativeWatchBackend(FileSystems.getDefault(), NativeWatchBackend.resolveFollowsMoves(null));
+        }
+        dir = Files.createTempDirectory("watch-backend");
+        backend.register(dir);
+        sentinelSeen = false;
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown(Counters counters) throws Exception {
+        // 计时外收完剩余事件
+        WatchKey key;
+        while ((key = backend.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+            counters.events += count(key, counters);
+        }
+        backend.close();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void burstCreate(Counters counters) throws Exception {
+        for (int i = 0; i < burst; i++) {
+            Files.createFile(dir.resolve("f" + i));
+        }
+        Files.createFile(dir.resolve(SENTINEL));
+        long overflows = counters.overflows;
+        while (!sentinelSeen) {
+            // 溢出后标记已丢失，不再等待
+            long timeout = counters.overflows > overflows ? 0 : RECEIVE_TIMEOUT_MILLIS;
+            WatchKey key = backend.poll(timeout, TimeUnit.MILLISECONDS);
+            if (key == null) {
+                break;
+            }
+            counters.events += count(key, counters);
+        }
+    }
+
+    /**
+     * 取出WatchKey上的事件，返回文件事件数（不含结束标记）
+     */
+    private long count(WatchKey key, Counters counters) {
+        long received = 0;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                counters.overflows++;
+            } else if (SENTINEL.equals(event.context())) {
+                sentinelSeen = true;
+            } else {
+                received++;
+            }
+        }
+        key.reset();
+        return received;
+    }
+}
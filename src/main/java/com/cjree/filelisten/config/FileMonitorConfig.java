@@ -0,0 +1,35 @@
+package com.cjree.filelisten.config;
+
+import com.cjree.filelisten.tail.CheckpointStore;
+import com.cjree.filelisten.tail.TailReader;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+@Configuration
+public class FileMonitorConfig {
+
+    /**
+     * 文件增量读取器
+     */
+    @Bean
+    public TailReader tailReader(FileMonitorProperties fileMonitorProperties) {
+        FileMonitorProperties.Tail tail = fileMonitorProperties.getTail();
+        return new TailReader(tail.getMaxBytesPerEvent(), tail.getBufferPoolSize());
+    }
+
+    /**
+     * 读取位置检查点
+     * 读取位置在操作日志入队时推进，只有入队即追加到预写日志时才不会越过未落地的日志，因此要求启用预写日志
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public CheckpointStore checkpointStore(FileMonitorProperties fileMonitorProperties) {
+        FileMonitorProperties.Checkpoint checkpoint = fileMonitorProperties.getCheckpoint();
+        if (checkpoint.isEnabled() && !fileMonitorProperties.getJournal().isEnabled()) {
+            throw new IllegalStateException("启用读取位置检查点(file-monitor.checkpoint.enabled)时须启用预写日志(file-monitor.journal.enabled), "
+                    + "否则内存队列中未写库的日志在重启后丢失且不会重新读取");
+        }
+        return new CheckpointStore(checkpoint.isEnabled(), Paths.get(checkpoint.getFile()), checkpoint.getFlushIntervalMs());
+    }
+}
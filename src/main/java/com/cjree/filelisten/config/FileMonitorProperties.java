@@ -0,0 +1,501 @@
+package com.cjree.filelisten.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 文件监听相关配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "file-monitor")
+public class FileMonitorProperties {
+
+    /**
+     * 操作日志写入配置
+     */
+    private Writer writer = new Writer();
+
+    /**
+     * 事件合并配置
+     */
+    private Coalesce coalesce = new Coalesce();
+
+    /**
+     * 事件处理线程配置
+     */
+    private Executor executor = new Executor();
+
+    /**
+     * 文件增量读取配置
+     */
+    private Tail tail = new Tail();
+
+    /**
+     * 读取位置检查点配置
+     */
+    private Checkpoint checkpoint = new Checkpoint();
+
+    /**
+     * 事件队列溢出后的目录重扫配置
+     */
+    private Rescan rescan = new Rescan();
+
+    /**
+     * 启动注册配置
+     */
+    private Startup startup = new Startup();
+
+    /**
+     * 目录监听方式配置
+     */
+    private Watch watch = new Watch();
+
+    /**
+     * 监控指标配置
+     */
+    private Metrics metrics = new Metrics();
+
+    /**
+     * 操作日志预写日志配置
+     */
+    private Journal journal = new Journal();
+
+    /**
+     * 操作内容压缩去重配置
+     */
+    private Content content = new Content();
+
+    /**
+     * 移动事件配对配置
+     */
+    private Move move = new Move();
+
+    /**
+     * 操作日志分区保留与汇总配置
+     */
+    private Retention retention = new Retention();
+
+    /**
+     * 操作日志查询导出配置
+     */
+    private Query query = new Query();
+
+    /**
+     * 文件操作事件订阅配置
+     */
+    private Subscribe subscribe = new Subscribe();
+
+    @Data
+    public static class Writer {
+        /**
+         * 内存队列容量，队列满后入队线程阻塞
+         */
+        private int queueCapacity = 10000;
+
+        /**
+         * 单批最大写入条数
+         */
+        private int batchSize = 500;
+
+        /**
+         * 批次最长等待时间（毫秒），未攒满也会写入
+         */
+        private long lingerMs = 50;
+    }
+
+    @Data
+    public static class Coalesce {
+        /**
+         * 是否启用事件合并
+         */
+        private boolean enabled = true;
+
+        /**
+         * 静默窗口（毫秒），路径在窗口内无新事件才下发
+         */
+        private long quietWindowMs = 100;
+
+        /**
+         * 最长暂存时间（毫秒），持续写入的文件至少按此间隔下发一次
+         */
+        private long maxDelayMs = 1000;
+
+        /**
+         * 最多暂存的路径数，达到后新路径的事件阻塞等待下发
+         */
+        private int maxPending = 100000;
+    }
+
+    @Data
+    public static class Executor {
+        /**
+         * 事件处理通道数，同一路径固定落在一个通道上，0表示CPU核心数*2
+         */
+        private int lanes = 0;
+
+        /**
+         * 每个处理通道的队列容量，满后按过载策略处理
+         */
+        private int queueCapacity = 10000;
+
+        /**
+         * 默认过载策略：BLOCK(阻塞监听线程)、COALESCE(退回合并)、DROP_MODIFY(丢弃修改事件)、SPILL(溢出到磁盘)，配置表未指定时使用
+         */
+        private String overloadPolicy = "BLOCK";
+
+        /**
+         * SPILL策略的溢出文件
+         */
+        private String spillFile = "data/spill/events.spill";
+
+        /**
+         * 溢出文件最大字节数，超出后事件丢弃并触发目录重扫
+         */
+        private long spillMaxBytes = 256L * 1024 * 1024;
+    }
+
+    @Data
+    public static class Tail {
+        /**
+         * 单个修改事件最大字节数，超出的增量拆分为多条记录
+         */
+        private int maxBytesPerEvent = 1024 * 1024;
+
+        /**
+         * 读取缓冲区池容量
+         */
+        private int bufferPoolSize = 16;
+
+        /**
+         * 按行模式下的最大行长度（字节），超出部分强制切分为多行
+         */
+        private int maxLineLength = 64 * 1024;
+
+        /**
+         * 块差异模式的块大小（字节），签名每块常驻12字节，比对期间旧签名的索引每块另占约80字节
+         */
+        private int diffBlockSize = 1024;
+
+        /**
+         * 块差异模式的文件大小上限（字节），超出的文件退回追加读取
+         */
+        private long diffMaxFileBytes = 16L * 1024 * 1024;
+    }
+
+    @Data
+    public static class Checkpoint {
+        /**
+         * 是否持久化读取位置，重启后从上次位置继续读取，需同时启用预写日志
+         */
+        private boolean enabled = true;
+
+        /**
+         * 检查点文件
+         */
+        private String file = "data/checkpoint/tail.ckpt";
+
+        /**
+         * 刷盘间隔（毫秒）
+         */
+        private long flushIntervalMs = 1000;
+    }
+
+    @Data
+    public static class Rescan {
+        /**
+         * 并行重扫的线程数
+         */
+        private int parallelism = 2;
+
+        /**
+         * 同一目录两次重扫的最小间隔（毫秒），期间的溢出合并为一次重扫
+         */
+        private long minIntervalMs = 1000;
+    }
+
+    @Data
+    public static class Startup {
+        /**
+         * 是否并行遍历注册监听目录，配置延后批量写入
+         */
+        private boolean parallelRegistration = true;
+
+        /**
+         * 并行遍历线程数，0表示CPU核心数
+         */
+        private int parallelism = 0;
+
+        /**
+         * 配置批量写入的单批条数
+         */
+        private int configBatchSize = 1000;
+    }
+
+    @Data
+    public static class Watch {
+        /**
+         * 默认监听方式：NATIVE(系统原生通知)、POLLING(定时轮询)、INOTIFY(直接调用inotify)，配置表未指定时使用
+         */
+        private String defaultBackend = "NATIVE";
+
+        /**
+         * 原生通知（NATIVE/INOTIFY）的分片数，每个分片一个监听实例和一个分发线程，0表示CPU核心数
+         */
+        private int shards = 1;
+
+        /**
+         * 目录分配到分片的方式：HASH(按目录路径哈希)、ROOT(同一配置根目录下的目录落在同一分片)
+         */
+        private String shardStrategy = "HASH";
+
+        /**
+         * 轮询方式的最小间隔（毫秒），目录有变化时回到该间隔
+         */
+        private long pollMinIntervalMs = 1000;
+
+        /**
+         * 轮询方式的最大间隔（毫秒），目录持续无变化时逐步退避到该间隔
+         */
+        private long pollMaxIntervalMs = 30000;
+
+        /**
+         * 轮询方式每秒stat次数上限，0表示不限
+         */
+        private int pollMaxStatsPerSecond = 2000;
+
+        /**
+         * inotify本地库文件路径，为空时按java.library.path查找libfilelisten-inotify.so，加载失败时退回NATIVE
+         */
+        private String inotifyLibrary = "";
+
+        /**
+         * inotify事件读取缓冲区大小（字节），一次系统调用批量读入
+         */
+        private int inotifyBufferSize = 256 * 1024;
+
+        /**
+         * inotify订阅的事件：CREATE、DELETE、MODIFY、CLOSE_WRITE、MOVED_FROM、MOVED_TO
+         */
+        private String inotifyEvents = "CREATE,DELETE,MODIFY,MOVED_FROM,MOVED_TO";
+
+        /**
+         * 原生通知（JDK WatchService）的监听是否跟随目录移动（按inode监听），目录移动后据此决定迁移还是重新注册；
+         * 为空时按操作系统判断，Linux下JDK基于inotify实现为是，其他平台为否
+         */
+        private Boolean nativeFollowsMoves;
+    }
+
+    @Data
+    public static class Metrics {
+        /**
+         * 逐事件日志的采样间隔，debug级别下每N个事件输出一条，1表示全部输出
+         */
+        private int eventLogSampleInterval = 100;
+    }
+
+    @Data
+    public static class Journal {
+        /**
+         * 是否启用预写日志，操作日志先写本地日志再回放入库，关闭时使用内存队列
+         */
+        private boolean enabled = true;
+
+        /**
+         * 日志目录
+         */
+        private String dir = "data/journal";
+
+        /**
+         * 单个段文件大小（字节）
+         */
+        private int segmentBytes = 64 * 1024 * 1024;
+
+        /**
+         * 所有段文件总大小上限（字节），达到后入队阻塞等待回放
+         */
+        private long maxBytes = 2L * 1024 * 1024 * 1024;
+
+        /**
+         * 刷盘间隔（毫秒）
+         */
+        private long fsyncIntervalMs = 200;
+
+        /**
+         * 整批回放连续失败的次数，超过后逐条写入，数据本身有误的记录转入死信文件
+         */
+        private int maxBatchAttempts = 5;
+    }
+
+    @Data
+    public static class Content {
+        /**
+         * 是否启用内容去重，超过阈值的内容按SHA-256摘要去重存入内容表，较大的内容再deflate压缩
+         */
+        private boolean enabled = true;
+
+        /**
+         * 按摘要去重的最小内容字节数，较短的内容直接存在日志行（摘要本身占64字节）
+         */
+        private int minBytes = 64;
+
+        /**
+         * deflate压缩的最小内容字节数，较短的内容只去重不压缩
+         */
+        private int deflateMinBytes = 256;
+
+        /**
+         * deflate压缩级别，1最快，9压缩率最高
+         */
+        private int level = 1;
+
+        /**
+         * 已入库摘要的缓存条数
+         */
+        private int hashCacheSize = 10000;
+    }
+
+    @Data
+    public static class Move {
+        /**
+         * 是否把同一fileKey的删除和创建事件配对为一次移动
+         */
+        private boolean enabled = true;
+
+        /**
+         * 删除事件等待配对的窗口（毫秒），超时按删除处理
+         */
+        private long windowMs = 100;
+    }
+
+    @Data
+    public static class Retention {
+        /**
+         * 是否维护操作日志按天分区，需file_operation_log已按operation_time分区
+         */
+        private boolean enabled = true;
+
+        /**
+         * 首次执行延迟（毫秒）
+         */
+        private long initialDelayMs = 60000;
+
+        /**
+         * 执行间隔（毫秒）
+         */
+        private long intervalMs = 3600000;
+
+        /**
+         * 操作日志保留天数，更早的分区整个删除
+         */
+        private int retentionDays = 30;
+
+        /**
+         * 预建未来分区的天数
+         */
+        private int precreateDays = 3;
+
+        /**
+         * 是否把较早的MODIFY日志按文件和小时汇总后删除明细
+         */
+        private boolean compactEnabled = false;
+
+        /**
+         * MODIFY日志保留明细的小时数，更早的参与汇总
+         */
+        private int compactAfterHours = 72;
+
+        /**
+         * 单次执行最多汇总的小时数
+         */
+        private int compactMaxHours = 24;
+
+        /**
+         * 汇总单批（单个事务）的日志条数
+         */
+        private int compactBatchSize = 5000;
+
+        /**
+         * 是否回收内容表中不再被任何操作日志引用的内容
+         */
+        private boolean contentGcEnabled = true;
+
+        /**
+         * 内容回收单批条数
+         */
+        private int contentGcBatchSize = 1000;
+    }
+
+    @Data
+    public static class Query {
+        /**
+         * 未指定时的每页条数
+         */
+        private int defaultPageSize = 100;
+
+        /**
+         * 每页条数上限
+         */
+        private int maxPageSize = 1000;
+
+        /**
+         * 导出时按批还原内容并写出的条数，决定导出占用的内存
+         */
+        private int exportBatchSize = 500;
+
+        /**
+         * 同时进行的导出数上限，超出的请求直接失败；每个导出占用流式查询和还原内容两个连接，
+         * 上限乘2须明显小于连接池大小，避免导出占满连接池
+         */
+        private int maxConcurrentExports = 2;
+    }
+
+    @Data
+    public static class Subscribe {
+        /**
+         * 是否启用文件操作事件订阅
+         */
+        private boolean enabled = true;
+
+        /**
+         * 环形缓冲区容量，向上取2的幂
+         */
+        private int ringSize = 4096;
+
+        /**
+         * 订阅者上限，每个订阅者占用一个推送线程
+         */
+        private int maxSubscribers = 64;
+
+        /**
+         * 订阅者积压事件数上限，不超过环形缓冲区容量
+         */
+        private long maxLag = 2048;
+
+        /**
+         * 积压超限策略：DROP跳过积压事件，DISCONNECT断开订阅
+         */
+        private String lagPolicy = "DROP";
+
+        /**
+         * 空闲心跳间隔（毫秒）
+         */
+        private long heartbeatMs = 15000;
+
+        /**
+         * 检查阻塞订阅者积压的间隔（毫秒）
+         */
+        private long lagCheckMs = 1000;
+
+        /**
+         * 推送的操作内容最大字符数，超出截断
+         */
+        private int maxContentChars = 4096;
+
+        /**
+         * SSE连接超时（毫秒），0为不超时
+         */
+        private long sseTimeoutMs = 0;
+    }
+}
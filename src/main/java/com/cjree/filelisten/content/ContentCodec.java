@@ -0,0 +1,98 @@
+package com.cjree.filelisten.content;
+
+import java.io.ByteArrayOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 操作内容编解码：SHA-256摘要用于去重，deflate压缩，压缩后不变小则原样存储
+ */
+public final class ContentCodec {
+
+    /**
+     * 原样存储
+     */
+    public static final String RAW = "RAW";
+
+    /**
+     * deflate压缩
+     */
+    public static final String DEFLATE = "DEFLATE";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private ContentCodec() {
+    }
+
+    /**
+     * 内容的SHA-256摘要（64位小写十六进制）
+     */
+    public static String hash(byte[] content) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] bytes = digest.digest(content);
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * deflate压缩
+     */
+    public static byte[] deflate(byte[] content, int level) {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, content.length / 2));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 按编码方式还原内容
+     * @param rawLength 原始长度
+     */
+    public static byte[] decode(String codec, byte[] data, int rawLength) {
+        if (!DEFLATE.equals(codec)) {
+            return data;
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            byte[] content = new byte[rawLength];
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(content, length, rawLength - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += n;
+            }
+            if (length != rawLength) {
+                throw new IllegalStateException("Content length mismatch: expected " + rawLength + ", got " + length);
+            }
+            return content;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted content", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
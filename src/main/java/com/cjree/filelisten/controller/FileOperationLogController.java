@@ -0,0 +1,192 @@
+package com.cjree.filelisten.controller;
+
+import com.cjree.filelisten.dto.FileOperationLogPage;
+import com.cjree.filelisten.dto.FileOperationLogQuery;
+import com.cjree.filelisten.entity.FileOperationLogPo;
+import com.cjree.filelisten.enums.ExportFormatEnum;
+import com.cjree.filelisten.service.FileOperationLogService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 操作日志查询与导出
+ */
+@Slf4j
+@RestController
+@RequestMapping("/operation-logs")
+@Tag(name = "操作日志", description = "按路径前缀、操作类型和时间范围查询导出操作日志")
+public class FileOperationLogController {
+    private static final String TIME_PATTERN = "yyyy-MM-dd HH:mm:ss";
+
+    // 导出中途失败时追加的末行，提示客户端结果不完整
+    private static final String EXPORT_ERROR = "操作日志导出失败，结果不完整";
+
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern(TIME_PATTERN).withZone(ZoneId.systemDefault());
+
+    @Resource
+    private FileOperationLogService fileOperationLogService;
+    @Resource
+    private ObjectMapper objectMapper;
+
+    @GetMapping
+    @Operation(summary = "分页查询操作日志", description = "按(operation_time, id)键集分页，下一页传入上一页返回的nextCursor")
+    public FileOperationLogPage query(@RequestParam(required = false) String pathPrefix,
+                                      @RequestParam(required = false) List<String> operationTypes,
+                                      @RequestParam(required = false) @DateTimeFormat(pattern = TIME_PATTERN) Date startTime,
+                                      @RequestParam(required = false) @DateTimeFormat(pattern = TIME_PATTERN) Date endTime,
+                                      @RequestParam(required = false) String cursor,
+                                      @RequestParam(defaultValue = "false") boolean descending,
+                                      @RequestParam(defaultValue = "0") int limit) {
+        FileOperationLogQuery query = buildQuery(pathPrefix, operationTypes, startTime, endTime, descending);
+        FileOperationLogPage.decodeCursor(cursor, query);
+        query.setLimit(limit);
+        return fileOperationLogService.queryPage(query);
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "导出操作日志", description = "流式导出全部符合条件的操作日志，格式为NDJSON或CSV")
+    public void export(@RequestParam(required = false) String pathPrefix,
+                       @RequestParam(required = false) List<String> operationTypes,
+                       @RequestParam(required = false) @DateTimeFormat(pattern = TIME_PATTERN) Date startTime,
+                       @RequestParam(required = false) @DateTimeFormat(pattern = TIME_PATTERN) Date endTime,
+                       @RequestParam(defaultValue = "false") boolean descending,
+                       @RequestParam(required = false) String format,
+                       HttpServletResponse response) throws IOException {
+        ExportFormatEnum exportFormat = ExportFormatEnum.of(format);
+        FileOperationLogQuery query = buildQuery(pathPrefix, operationTypes, startTime, endTime, descending);
+        response.setContentType(exportFormat.getContentType() + ";charset=UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=operation-logs." + exportFormat.getExtension());
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        if (exportFormat == ExportFormatEnum.CSV) {
+            writer.write("id,file_path,operation_type,source_path,operator,operation_time,content\n");
+        }
+        long count;
+        // 写响应失败（客户端断开）时记录原始异常：在MyBatis结果处理器内抛出的异常会被包装为MyBatisSystemException
+        IOException[] clientError = new IOException[1];
+        try {
+            // 每批写完即刷出
+            count = fileOperationLogService.export(query, batch -> {
+                try {
+                    for (FileOperationLogPo operationLog : batch) {
+                        if (exportFormat == ExportFormatEnum.CSV) {
+                            writeCsv(writer, operationLog);
+                        } else {
+                            writer.write(toJson(operationLog));
+                            writer.write('\n');
+                        }
+                    }
+                    writer.flush();
+                } catch (IOException e) {
+                    clientError[0] = e;
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            if (clientError[0] != null) {
+                log.warn("客户端断开, 操作日志导出中断: {}", clientError[0].getMessage());
+                return;
+            }
+            log.error("操作日志导出失败, 格式: {}", exportFormat, e);
+            if (!response.isCommitted()) {
+                // 尚未输出任何内容，交给全局异常处理返回错误状态
+                throw e;
+            }
+            // 已输出部分结果，状态码无法再修改，追加错误行标记结果不完整
+            try {
+                if (exportFormat == ExportFormatEnum.CSV) {
+                    writer.write("#error,");
+                    writeCsvField(writer, EXPORT_ERROR);
+                } else {
+                    writer.write(toJson(Collections.singletonMap("error", EXPORT_ERROR)));
+                }
+                writer.write('\n');
+                writer.flush();
+            } catch (IOException ioException) {
+                log.warn("客户端断开, 未能写出导出失败标记: {}", ioException.getMessage());
+            }
+            return;
+        }
+        writer.flush();
+        log.info("操作日志导出完成, 格式: {}, 条数: {}", exportFormat, count);
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("操作日志序列化失败", e);
+        }
+    }
+
+    private static FileOperationLogQuery buildQuery(String pathPrefix, List<String> operationTypes, Date startTime,
+                                                    Date endTime, boolean descending) {
+        FileOperationLogQuery query = new FileOperationLogQuery();
+        query.setPathPrefix(pathPrefix);
+        query.setOperationTypes(operationTypes);
+        query.setStartTime(startTime);
+        query.setEndTime(endTime);
+        query.setDescending(descending);
+        return query;
+    }
+
+    private static void writeCsv(Writer writer, FileOperationLogPo operationLog) throws IOException {
+        writer.write(String.valueOf(operationLog.getId()));
+        writer.write(',');
+        writeCsvField(writer, operationLog.getFilePath());
+        writer.write(',');
+        writeCsvField(writer, operationLog.getOperationType());
+        writer.write(',');
+        writeCsvField(writer, operationLog.getSourcePath());
+        writer.write(',');
+        writeCsvField(writer, operationLog.getOperator());
+        writer.write(',');
+        writeCsvField(writer, operationLog.getOperationTime() == null ? null
+                : TIME_FORMATTER.format(operationLog.getOperationTime().toInstant()));
+        writer.write(',');
+        writeCsvField(writer, operationLog.getContent());
+        writer.write('\n');
+    }
+
+    /**
+     * 含逗号、引号或换行的字段加引号，引号双写
+     */
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,106 @@
+package com.cjree.filelisten.controller;
+
+import com.cjree.filelisten.config.FileMonitorProperties;
+import com.cjree.filelisten.enums.LagPolicyEnum;
+import com.cjree.filelisten.subscribe.EventSink;
+import com.cjree.filelisten.subscribe.EventSubscription;
+import com.cjree.filelisten.subscribe.OperationEvent;
+import com.cjree.filelisten.subscribe.OperationEventBus;
+import com.cjree.filelisten.subscribe.SubscriptionFilter;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 文件操作事件实时订阅（SSE）
+ */
+@Slf4j
+@RestController
+@RequestMapping("/operation-events")
+@Tag(name = "操作事件订阅", description = "按路径前缀、文件名通配符和操作类型实时订阅文件操作事件")
+public class OperationEventController {
+    @Resource
+    private OperationEventBus operationEventBus;
+    @Resource
+    private FileMonitorProperties fileMonitorProperties;
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "订阅文件操作事件", description = "事件名operation为操作事件，dropped为积压超限跳过的事件数；断线重连时带Last-Event-ID从断点继续")
+    public SseEmitter subscribe(@RequestParam(required = false) String pathPrefix,
+                                @RequestParam(required = false) String namePatterns,
+                                @RequestParam(required = false) List<String> operationTypes,
+                                @RequestParam(required = false) Long maxLag,
+                                @RequestParam(required = false) String lagPolicy,
+                                @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(fileMonitorProperties.getSubscribe().getSseTimeoutMs());
+        SubscriptionFilter filter = new SubscriptionFilter(pathPrefix, namePatterns, operationTypes);
+        EventSubscription subscription = operationEventBus.subscribe(filter, lastEventId, maxLag,
+                LagPolicyEnum.of(lagPolicy), new SseEventSink(emitter));
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        return emitter;
+    }
+
+    /**
+     * 通过SseEmitter推送，写入在订阅线程上进行
+     */
+    private static final class SseEventSink implements EventSink {
+        private final SseEmitter emitter;
+
+        SseEventSink(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void send(OperationEvent event) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(event.getSequence()))
+                    .name("operation")
+                    .data(event, MediaType.APPLICATION_JSON));
+        }
+
+        @Override
+        public void dropped(long count) throws IOException {
+            emitter.send(SseEmitter.event().name("dropped").data(count));
+        }
+
+        @Override
+        public void heartbeat() throws IOException {
+            emitter.send(SseEmitter.event().comment("heartbeat"));
+        }
+
+        @Override
+        public void close() {
+            try {
+                emitter.complete();
+            } catch (Exception e) {
+                log.debug("Error completing event stream", e);
+            }
+        }
+
+        /**
+         * completeWithError与卡住的send争用同一把锁，写入按连接超时失败后才会执行，
+         * 之后订阅线程的send抛出异常退出
+         */
+        @Override
+        public void abort() {
+            try {
+                emitter.completeWithError(new IOException("订阅者积压超过上限, 断开连接"));
+            } catch (Exception e) {
+                log.debug("Error aborting event stream", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.cjree.filelisten.dto;
+
+import com.cjree.filelisten.entity.FileOperationLogPo;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 操作日志键集分页结果
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(name = "FileOperationLogPage", description = "操作日志分页结果")
+public class FileOperationLogPage {
+
+    @Schema(description = "本页操作日志")
+    private List<FileOperationLogPo> records;
+
+    @Schema(description = "下一页游标，没有下一页时为空")
+    private String nextCursor;
+
+    /**
+     * 游标：最后一条的操作时间毫秒数和ID
+     */
+    public static String encodeCursor(Date operationTime, Long id) {
+        return operationTime.getTime() + "_" + id;
+    }
+
+    /**
+     * 解析游标写入查询条件
+     */
+    public static void decodeCursor(String cursor, FileOperationLogQuery query) {
+        if (cursor == null || cursor.isEmpty()) {
+            return;
+        }
+        int separator = cursor.indexOf('_');
+        try {
+            query.setAfterTime(new Date(Long.parseLong(cursor.substring(0, separator))));
+            query.setAfterId(Long.parseLong(cursor.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("无效的分页游标: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.cjree.filelisten.dto;
+
+import com.cjree.filelisten.mapper.SqlLike;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 操作日志查询条件
+ * 按(operation_time, id)键集分页：下一页从上一页最后一条之后开始，不使用OFFSET，翻到多深都只扫描一页的行
+ */
+@Data
+@Schema(name = "FileOperationLogQuery", description = "操作日志查询条件")
+public class FileOperationLogQuery {
+
+    @Schema(description = "路径前缀，按file_path前缀匹配")
+    private String pathPrefix;
+
+    @Schema(description = "操作类型，为空时不限")
+    private List<String> operationTypes;
+
+    @Schema(description = "操作时间起（含）")
+    private Date startTime;
+
+    @Schema(description = "操作时间止（不含）")
+    private Date endTime;
+
+    @Schema(description = "上一页最后一条的操作时间，与afterId一起定位下一页")
+    private Date afterTime;
+
+    @Schema(description = "上一页最后一条的ID")
+    private Long afterId;
+
+    @Schema(description = "是否按时间倒序")
+    private boolean descending;
+
+    @Schema(description = "每页条数")
+    private int limit;
+
+    /**
+     * LIKE匹配用的路径前缀，转义通配符
+     */
+    public String getPathPattern() {
+        return SqlLike.prefix(pathPrefix);
+    }
+}
@@ -38,4 +38,16 @@ public class FileMonitorConfigPo extends AbstractCacheableModel {
     @Schema(description = "排除的文件模式（多个用逗号分隔）")
     @TableField("exclude_patterns")
     private String excludePatterns;
+
+    @Schema(description = "读取模式：RAW(原始增量)、LINE(按行)、DIFF(块差异)，为空时继承上级目录配置")
+    @TableField("tail_mode")
+    private String tailMode;
+
+    @Schema(description = "监听方式：NATIVE(系统原生通知)、POLLING(定时轮询)、INOTIFY(直接调用inotify)，为空时继承上级目录配置")
+    @TableField("watch_backend")
+    private String watchBackend;
+
+    @Schema(description = "过载策略：BLOCK(阻塞等待)、COALESCE(退回合并)、DROP_MODIFY(丢弃修改事件)、SPILL(溢出到磁盘)，为空时继承上级目录配置")
+    @TableField("overload_policy")
+    private String overloadPolicy;
 }
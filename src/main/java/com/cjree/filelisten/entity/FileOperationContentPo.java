@@ -0,0 +1,33 @@
+package com.cjree.filelisten.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.cjree.core.basic.base.AbstractCacheableModel;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+@EqualsAndHashCode(callSuper = true)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Schema(name = "FileOperationContent", description = "文件操作内容表")
+@TableName(value = "file_operation_content", autoResultMap = true)
+public class FileOperationContentPo extends AbstractCacheableModel {
+
+    @Schema(description = "内容SHA-256摘要")
+    @TableField("content_hash")
+    private String contentHash;
+
+    @Schema(description = "编码方式：RAW(原样)、DEFLATE(deflate压缩)")
+    @TableField("codec")
+    private String codec;
+
+    @Schema(description = "原始内容字节数")
+    @TableField("raw_length")
+    private Integer rawLength;
+
+    @Schema(description = "编码后的内容")
+    @TableField("data")
+    private byte[] data;
+}
@@ -21,14 +21,22 @@ public class FileOperationLogPo extends AbstractCacheableModel {
     @TableField("file_path")
     private String filePath;
 
-    @Schema(description = "操作类型：CREATE(文件创建)、DELETE(文件删除)、MODIFY(文件修改)、DIRECTORY_CREATE(目录创建)、DIRECTORY_DELETE(目录删除)")
+    @Schema(description = "操作类型：CREATE(文件创建)、DELETE(文件删除)、MODIFY(文件修改)、DIRECTORY_CREATE(目录创建)、DIRECTORY_DELETE(目录删除)、MOVE(文件移动)、DIRECTORY_MOVE(目录移动)")
     @TableField("operation_type")
     private String operationType;
 
-    @Schema(description = "操作内容（文件新增的行或修改内容）")
+    @Schema(description = "移动前的绝对路径，仅MOVE/DIRECTORY_MOVE有值，file_path为移动后的路径")
+    @TableField("source_path")
+    private String sourcePath;
+
+    @Schema(description = "操作内容（文件新增的行或修改内容），内容存入内容表时为空")
     @TableField("content")
     private String content;
 
+    @Schema(description = "内容SHA-256摘要，超过阈值的内容压缩去重后存入文件操作内容表")
+    @TableField("content_hash")
+    private String contentHash;
+
     @Schema(description = "操作人（文件所属用户或系统用户）")
     @TableField("operator")
     private String operator;
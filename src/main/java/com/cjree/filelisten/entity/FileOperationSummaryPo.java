@@ -0,0 +1,43 @@
+package com.cjree.filelisten.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.cjree.core.basic.base.AbstractCacheableModel;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+import java.util.Date;
+
+@EqualsAndHashCode(callSuper = true)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Schema(name = "FileOperationSummary", description = "文件修改小时汇总表")
+@TableName(value = "file_operation_summary", autoResultMap = true)
+public class FileOperationSummaryPo extends AbstractCacheableModel {
+
+    @Schema(description = "文件绝对路径")
+    @TableField("file_path")
+    private String filePath;
+
+    @Schema(description = "汇总的小时（整点）")
+    @TableField("summary_hour")
+    private Date summaryHour;
+
+    @Schema(description = "该小时内的修改次数")
+    @TableField("modify_count")
+    private Long modifyCount;
+
+    @Schema(description = "该小时内修改内容的总字节数")
+    @TableField("content_bytes")
+    private Long contentBytes;
+
+    @Schema(description = "该小时内第一次修改的时间")
+    @TableField("first_time")
+    private Date firstTime;
+
+    @Schema(description = "该小时内最后一次修改的时间")
+    @TableField("last_time")
+    private Date lastTime;
+}
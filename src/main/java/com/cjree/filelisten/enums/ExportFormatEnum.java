@@ -0,0 +1,58 @@
+package com.cjree.filelisten.enums;
+
+/**
+ * 操作日志导出格式枚举
+ */
+public enum ExportFormatEnum {
+    NDJSON("NDJSON", "每行一个JSON", "application/x-ndjson", "ndjson"),
+
+    CSV("CSV", "逗号分隔", "text/csv", "csv");
+
+    private final String code;
+    private final String description;
+    private final String contentType;
+    private final String extension;
+
+    ExportFormatEnum(String code, String description, String contentType, String extension) {
+        this.code = code;
+        this.description = description;
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * 按编码查找，未指定时为NDJSON
+     */
+    public static ExportFormatEnum of(String code) {
+        if (code == null || code.isEmpty()) {
+            return NDJSON;
+        }
+        for (ExportFormatEnum value : values()) {
+            if (value.code.equalsIgnoreCase(code)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("未知的导出格式: " + code);
+    }
+
+    @Override
+    public String toString() {
+        return code;
+    }
+}
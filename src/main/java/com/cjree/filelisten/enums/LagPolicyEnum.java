@@ -0,0 +1,46 @@
+package com.cjree.filelisten.enums;
+
+/**
+ * 事件订阅者积压超限时的处理策略枚举
+ */
+public enum LagPolicyEnum {
+    DROP("DROP", "跳过积压事件"),
+
+    DISCONNECT("DISCONNECT", "断开订阅");
+
+    private final String code;
+    private final String description;
+
+    LagPolicyEnum(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * 按编码查找，未指定返回null
+     */
+    public static LagPolicyEnum of(String code) {
+        if (code == null || code.isEmpty()) {
+            return null;
+        }
+        for (LagPolicyEnum value : values()) {
+            if (value.code.equalsIgnoreCase(code)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("未知的积压策略: " + code);
+    }
+
+    @Override
+    public String toString() {
+        return code;
+    }
+}
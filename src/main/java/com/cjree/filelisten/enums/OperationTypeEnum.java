@@ -9,7 +9,9 @@ public enum OperationTypeEnum {
     DELETE("DELETE", "文件删除"),
     DIRECTORY_CREATE("DIRECTORY_CREATE", "目录创建"),
     DIRECTORY_DELETE("DIRECTORY_DELETE", "目录删除"),
-    DIRECTORY_MODIFY("DIRECTORY_MODIFY", "目录修改");
+    DIRECTORY_MODIFY("DIRECTORY_MODIFY", "目录修改"),
+    MOVE("MOVE", "文件移动"),
+    DIRECTORY_MOVE("DIRECTORY_MOVE", "目录移动");
     private final String code;
     private final String description;
 
@@ -0,0 +1,50 @@
+package com.cjree.filelisten.enums;
+
+/**
+ * 事件处理队列满时的过载策略枚举
+ */
+public enum OverloadPolicyEnum {
+    BLOCK("BLOCK", "阻塞等待"),
+
+    COALESCE("COALESCE", "退回合并"),
+
+    DROP_MODIFY("DROP_MODIFY", "丢弃修改事件"),
+
+    SPILL("SPILL", "溢出到磁盘");
+
+    private final String code;
+    private final String description;
+
+    OverloadPolicyEnum(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * 按编码查找，未配置返回null
+     */
+    public static OverloadPolicyEnum of(String code) {
+        if (code == null || code.isEmpty()) {
+            return null;
+        }
+        for (OverloadPolicyEnum value : values()) {
+            if (value.code.equalsIgnoreCase(code)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("未知的过载策略: " + code);
+    }
+
+    @Override
+    public String toString() {
+        return code;
+    }
+}
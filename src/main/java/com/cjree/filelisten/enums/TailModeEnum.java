@@ -0,0 +1,48 @@
+package com.cjree.filelisten.enums;
+
+/**
+ * 文件增量读取模式枚举
+ */
+public enum TailModeEnum {
+    RAW("RAW", "原始增量"),
+
+    LINE("LINE", "按行"),
+
+    DIFF("DIFF", "块差异");
+
+    private final String code;
+    private final String description;
+
+    TailModeEnum(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * 按编码查找，未配置返回null
+     */
+    public static TailModeEnum of(String code) {
+        if (code == null || code.isEmpty()) {
+            return null;
+        }
+        for (TailModeEnum value : values()) {
+            if (value.code.equalsIgnoreCase(code)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("未知的读取模式: " + code);
+    }
+
+    @Override
+    public String toString() {
+        return code;
+    }
+}
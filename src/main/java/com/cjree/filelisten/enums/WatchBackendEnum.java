@@ -0,0 +1,48 @@
+package com.cjree.filelisten.enums;
+
+/**
+ * 目录监听方式枚举
+ */
+public enum WatchBackendEnum {
+    NATIVE("NATIVE", "系统原生通知"),
+
+    POLLING("POLLING", "定时轮询"),
+
+    INOTIFY("INOTIFY", "直接调用inotify");
+
+    private final String code;
+    private final String description;
+
+    WatchBackendEnum(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * 按编码查找，未配置返回null
+     */
+    public static WatchBackendEnum of(String code) {
+        if (code == null || code.isEmpty()) {
+            return null;
+        }
+        for (WatchBackendEnum value : values()) {
+            if (value.code.equalsIgnoreCase(code)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("未知的监听方式: " + code);
+    }
+
+    @Override
+    public String toString() {
+        return code;
+    }
+}
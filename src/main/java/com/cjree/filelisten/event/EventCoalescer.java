@@ -0,0 +1,380 @@
+package com.cjree.filelisten.event;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 事件合并（去抖）
+ * 按路径暂存事件，路径静默quietWindow后或自首个事件起超过maxDelay后才下发：
+ * 连续的MODIFY合并为一个，CREATE+MODIFY合并为CREATE，CREATE+DELETE相互抵消；移动事件不参与合并。
+ * 暂存的路径数有上限，达到上限后新路径的事件阻塞提交线程（监听线程），由监听后端的溢出重扫兜底。
+ * 同一路径上取出暂存事件和下发在同一把分段锁内完成，到期下发与提交线程之间保持同一路径的事件顺序
+ */
+@Slf4j
+public class EventCoalescer {
+
+    // 暂存已满时的等待间隔
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // 路径分段锁数
+    private static final int LOCK_STRIPES = 64;
+
+    private final long quietWindowNanos;
+    private final long maxDelayNanos;
+    private final int maxPending;
+    private final Consumer<FileEvent> sink;
+
+    private final Map<Path, Pending> pending = new ConcurrentHashMap<>();
+
+    // 按路径分段的锁，保护同一路径上“取出暂存事件并下发”的顺序；下游在锁内调用defer不会再取锁
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private ScheduledExecutorService scheduler;
+
+    // 收到的原始事件数
+    private final LongAdder rawCount = new LongAdder();
+
+    // 下发的事件数
+    private final LongAdder emittedCount = new LongAdder();
+
+    // 被合并掉的事件数
+    private final LongAdder foldedCount = new LongAdder();
+
+    // CREATE+DELETE抵消的事件对数
+    private final LongAdder cancelledCount = new LongAdder();
+
+    // 下游已满退回暂存的事件数
+    private final LongAdder deferredCount = new LongAdder();
+
+    // 暂存路径数达到上限而阻塞的次数
+    private final LongAdder blockedCount = new LongAdder();
+
+    /**
+     * @param quietWindowMs 静默窗口（毫秒），为0时不合并直接下发
+     * @param maxDelayMs    单个路径最长暂存时间（毫秒）
+     * @param maxPending    最多暂存的路径数
+     * @param sink          合并后事件的下游
+     */
+    public EventCoalescer(long quietWindowMs, long maxDelayMs, int maxPending, Consumer<FileEvent> sink) {
+        this.quietWindowNanos = TimeUnit.MILLISECONDS.toNanos(quietWindowMs);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(quietWindowMs, maxDelayMs));
+        this.maxPending = maxPending;
+        this.sink = sink;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public void start() {
+        if (quietWindowNanos <= 0) {
+            return;
+        }
+        long tickNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(1), quietWindowNanos / 4);
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "EventCoalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushDue, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 接收一个原始事件
+     */
+    public void offer(FileEvent event) {
+        rawCount.increment();
+        if (quietWindowNanos <= 0) {
+            emit(event);
+            return;
+        }
+        // 移动事件先下发两个路径上暂存的事件，再直接下发
+        if (event.isMove()) {
+            // 按序号从小到大取两把锁，避免与另一方向的移动死锁
+            int source = stripe(event.getSourcePath());
+            int target = stripe(event.getPath());
+            synchronized (locks[Math.min(source, target)]) {
+                synchronized (locks[Math.max(source, target)]) {
+                    flushPending(event.getSourcePath());
+                    flushPending(event.getPath());
+                    emit(event);
+                }
+            }
+            return;
+        }
+        // 目录创建需要尽快注册监听，不参与延迟
+        if (event.getKind() == StandardWatchEventKinds.ENTRY_CREATE
+                && Files.isDirectory(event.getPath(), LinkOption.NOFOLLOW_LINKS)) {
+            synchronized (lockFor(event.getPath())) {
+                flushPending(event.getPath());
+                emit(event);
+            }
+            return;
+        }
+        awaitCapacity(event.getPath());
+        synchronized (lockFor(event.getPath())) {
+            stage(event);
+        }
+    }
+
+    /**
+     * 与暂存事件合并，无法合并时先下发暂存的事件，调用方持有路径的锁
+     */
+    private void stage(FileEvent event) {
+        long now = System.nanoTime();
+        FileEvent[] flushed = new FileEvent[1];
+        pending.compute(event.getPath(), (path, current) -> {
+            if (current == null) {
+                return new Pending(event.getDir(), event.getKind(), false, now);
+            }
+            if (!current.canMerge(event.getKind())) {
+                // 无法合并，先下发暂存的事件再暂存新事件
+                flushed[0] = current.toEvent(path);
+                return new Pending(event.getDir(), event.getKind(), false, now);
+            }
+            Pending merged = current.merge(event.getKind(), now);
+            if (merged == null) {
+                // CREATE+DELETE抵消
+                cancelledCount.increment();
+                foldedCount.add(2);
+                return null;
+            }
+            foldedCount.increment();
+            return merged;
+        });
+        if (flushed[0] != null) {
+            emit(flushed[0]);
+        }
+    }
+
+    /**
+     * 退回一个下游暂时无法接收的事件，静默窗口后与同一路径的后续事件合并重新下发
+     * @return false表示未启用合并、移动事件，或与暂存中的后续事件无法合并，调用方需自行处理
+     */
+    public boolean defer(FileEvent event) {
+        if (quietWindowNanos <= 0 || event.isMove()) {
+            return false;
+        }
+        long now = System.nanoTime();
+        boolean[] deferred = new boolean[1];
+        pending.compute(event.getPath(), (path, current) -> {
+            Pending returned = new Pending(event.getDir(), event.getKind(), event.isContentChanged(), now);
+            if (current == null) {
+                deferred[0] = true;
+                return returned;
+            }
+            // 暂存中的事件晚于退回的事件，按先后顺序合并
+            if (!returned.canMerge(current.kind)) {
+                return current;
+            }
+            deferred[0] = true;
+            Pending merged = returned.merge(current.kind, now);
+            if (merged == null) {
+                cancelledCount.increment();
+                return null;
+            }
+            return current.contentChanged && !merged.contentChanged ? new Pending(merged, merged.kind, true, now) : merged;
+        });
+        if (deferred[0]) {
+            deferredCount.increment();
+        }
+        return deferred[0];
+    }
+
+    /**
+     * 暂存路径数达到上限时，等待到期事件下发腾出空间；已暂存的路径可直接合并
+     */
+    private void awaitCapacity(Path path) {
+        if (pending.size() < maxPending || pending.containsKey(path)) {
+            return;
+        }
+        blockedCount.increment();
+        while (pending.size() >= maxPending && !pending.containsKey(path) && scheduler != null && !scheduler.isShutdown()) {
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+    }
+
+    /**
+     * 下发所有已到期的暂存事件
+     */
+    private void flushDue() {
+        try {
+            long now = System.nanoTime();
+            for (Map.Entry<Path, Pending> entry : pending.entrySet()) {
+                Pending candidate = entry.getValue();
+                if (!candidate.isDue(now, quietWindowNanos, maxDelayNanos)) {
+                    continue;
+                }
+                synchronized (lockFor(entry.getKey())) {
+                    FileEvent[] due = new FileEvent[1];
+                    pending.computeIfPresent(entry.getKey(), (path, current) -> {
+                        if (!current.isDue(now, quietWindowNanos, maxDelayNanos)) {
+                            return current;
+                        }
+                        due[0] = current.toEvent(path);
+                        return null;
+                    });
+                    if (due[0] != null) {
+                        emit(due[0]);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error flushing coalesced events", e);
+        }
+    }
+
+    private FileEvent removePending(Path path) {
+        Pending removed = pending.remove(path);
+        return removed == null ? null : removed.toEvent(path);
+    }
+
+    /**
+     * 下发路径上暂存的事件，调用方持有路径的锁
+     */
+    private void flushPending(Path path) {
+        FileEvent flushed = removePending(path);
+        if (flushed != null) {
+            emit(flushed);
+        }
+    }
+
+    private int stripe(Path path) {
+        return (path.hashCode() & Integer.MAX_VALUE) % locks.length;
+    }
+
+    private Object lockFor(Path path) {
+        return locks[stripe(path)];
+    }
+
+    private void emit(FileEvent event) {
+        emittedCount.increment();
+        sink.accept(event);
+    }
+
+    /**
+     * 停止合并并下发全部暂存事件
+     */
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        for (Path path : pending.keySet()) {
+            synchronized (lockFor(path)) {
+                flushPending(path);
+            }
+        }
+        log.info("事件合并统计 原始: {}, 下发: {}, 合并: {}, 抵消: {}, 退回: {}, 阻塞: {}",
+                getRawCount(), getEmittedCount(), getFoldedCount(), getCancelledCount(), getDeferredCount(), getBlockedCount());
+    }
+
+    public long getRawCount() {
+        return rawCount.sum();
+    }
+
+    public long getEmittedCount() {
+        return emittedCount.sum();
+    }
+
+    public long getFoldedCount() {
+        return foldedCount.sum();
+    }
+
+    public long getCancelledCount() {
+        return cancelledCount.sum();
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getDeferredCount() {
+        return deferredCount.sum();
+    }
+
+    public long getBlockedCount() {
+        return blockedCount.sum();
+    }
+
+    /**
+     * 单个路径的暂存状态
+     */
+    private static final class Pending {
+        private final Path dir;
+        private final WatchEvent.Kind<?> kind;
+        private final boolean contentChanged;
+        private final long firstNanos;
+        private volatile long lastNanos;
+
+        Pending(Path dir, WatchEvent.Kind<?> kind, boolean contentChanged, long now) {
+            this.dir = dir;
+            this.kind = kind;
+            this.contentChanged = contentChanged;
+            this.firstNanos = now;
+            this.lastNanos = now;
+        }
+
+        private Pending(Pending source, WatchEvent.Kind<?> kind, boolean contentChanged, long now) {
+            this.dir = source.dir;
+            this.kind = kind;
+            this.contentChanged = contentChanged;
+            this.firstNanos = source.firstNanos;
+            this.lastNanos = now;
+        }
+
+        boolean canMerge(WatchEvent.Kind<?> incoming) {
+            if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
+                return true;
+            }
+            if (kind == StandardWatchEventKinds.ENTRY_MODIFY) {
+                return incoming != StandardWatchEventKinds.ENTRY_CREATE;
+            }
+            return incoming == StandardWatchEventKinds.ENTRY_DELETE;
+        }
+
+        /**
+         * 合并新事件，调用前需确认canMerge
+         * @return 合并后的状态，null表示CREATE+DELETE相互抵消
+         */
+        Pending merge(WatchEvent.Kind<?> incoming, long now) {
+            if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
+                if (incoming == StandardWatchEventKinds.ENTRY_DELETE) {
+                    return null;
+                }
+                if (incoming == StandardWatchEventKinds.ENTRY_MODIFY && !contentChanged) {
+                    return new Pending(this, kind, true, now);
+                }
+                return touch(now);
+            }
+            if (kind == StandardWatchEventKinds.ENTRY_MODIFY && incoming == StandardWatchEventKinds.ENTRY_DELETE) {
+                return new Pending(this, incoming, false, now);
+            }
+            return touch(now);
+        }
+
+        private Pending touch(long now) {
+            lastNanos = now;
+            return this;
+        }
+
+        boolean isDue(long now, long quietWindowNanos, long maxDelayNanos) {
+            return now - lastNanos >= quietWindowNanos || now - firstNanos >= maxDelayNanos;
+        }
+
+        FileEvent toEvent(Path path) {
+            return new FileEvent(dir, path, kind, contentChanged);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.cjree.filelisten.event;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * 事件溢出队列
+ * 处理通道满时把事件顺序追加到本地文件，后台线程按写入顺序读回并重新提交，提交失败则稍后重试同一条；
+ * 全部读回后截断文件。记录格式：[长度][类型][标志][目录][路径]，移动事件在末尾附加[原路径]
+ * 进程重启时溢出文件中的事件直接丢弃，由检查点恢复和目录快照兜底
+ */
+@Slf4j
+public class EventSpillQueue {
+
+    private static final byte KIND_CREATE = 0;
+    private static final byte KIND_DELETE = 1;
+    private static final byte KIND_MODIFY = 2;
+
+    private static final byte FLAG_CONTENT_CHANGED = 1;
+    private static final byte FLAG_MOVE = 2;
+
+    // 重新提交失败或队列为空时的等待间隔
+    private static final long RETRY_MILLIS = 10;
+
+    private final Path file;
+    private final long maxBytes;
+    private final Predicate<FileEvent> resubmit;
+
+    private FileChannel channel;
+    private long readPosition;
+    private long writePosition;
+    private Thread drainer;
+    private volatile boolean running;
+
+    // 溢出写入的事件数
+    private final LongAdder spilledCount = new LongAdder();
+
+    // 读回并重新提交的事件数
+    private final LongAdder replayedCount = new LongAdder();
+
+    // 文件已满被拒绝的事件数
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * @param file     溢出文件
+     * @param maxBytes 溢出文件最大字节数，超出后拒绝写入
+     * @param resubmit 重新提交事件，返回false表示下游仍满
+     */
+    public EventSpillQueue(Path file, long maxBytes, Predicate<FileEvent> resubmit) {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.resubmit = resubmit;
+    }
+
+    public void start() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        if (Files.exists(file) && Files.size(file) > 0) {
+            log.warn("丢弃上次运行残留的溢出事件文件: {} ({} 字节)", file, Files.size(file));
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        running = true;
+        drainer = new Thread(this::drainLoop, "EventSpillDrainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /**
+     * 是否还有未读回的事件，有则后续事件也需进入溢出队列以保持顺序
+     */
+    public synchronized boolean hasPending() {
+        return readPosition < writePosition;
+    }
+
+    /**
+     * 追加一个事件
+     * @return false表示溢出文件已满或写入失败
+     */
+    public synchronized boolean offer(FileEvent event) {
+        if (channel == null) {
+            return false;
+        }
+        byte[] dir = event.getDir().toString().getBytes(StandardCharsets.UTF_8);
+        byte[] path = event.getPath().toString().getBytes(StandardCharsets.UTF_8);
+        byte[] source = event.isMove() ? event.getSourcePath().toString().getBytes(StandardCharsets.UTF_8) : null;
+        int length = 1 + 1 + 4 + dir.length + 4 + path.length + (source == null ? 0 : 4 + source.length);
+        if (writePosition - readPosition + 4 + length > maxBytes) {
+            rejectedCount.increment();
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(4 + length);
+        buffer.putInt(length);
+        buffer.put(encodeKind(event.getKind()));
+        buffer.put((byte) ((event.isContentChanged() ? FLAG_CONTENT_CHANGED : 0) | (source == null ? 0 : FLAG_MOVE)));
+        buffer.putInt(dir.length).put(dir);
+        buffer.putInt(path.length).put(path);
+        if (source != null) {
+            buffer.putInt(source.length).put(source);
+        }
+        buffer.flip();
+        try {
+            long position = writePosition;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            writePosition = position;
+        } catch (IOException e) {
+            log.error("Failed to spill event: {}", event, e);
+            rejectedCount.increment();
+            return false;
+        }
+        spilledCount.increment();
+        return true;
+    }
+
+    private void drainLoop() {
+        FileEvent next = null;
+        while (running) {
+            try {
+                if (next == null) {
+                    next = peek();
+                }
+                if (next == null || !resubmit.test(next)) {
+                    TimeUnit.MILLISECONDS.sleep(RETRY_MILLIS);
+                    continue;
+                }
+                advance();
+                replayedCount.increment();
+                next = null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Error draining spilled events: {}", file, e);
+                next = null;
+                skipCorrupted();
+            }
+        }
+    }
+
+    /**
+     * 读取下一条事件但不移动读取位置
+     */
+    private synchronized FileEvent peek() throws IOException {
+        if (readPosition >= writePosition) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(4);
+        read(header, readPosition);
+        ByteBuffer body = ByteBuffer.allocate(header.getInt(0));
+        read(body, readPosition + 4);
+        body.flip();
+        WatchEvent.Kind<Path> kind = decodeKind(body.get());
+        byte flags = body.get();
+        Path dir = Paths.get(readString(body));
+        Path path = Paths.get(readString(body));
+        Path source = (flags & FLAG_MOVE) != 0 ? Paths.get(readString(body)) : null;
+        return new FileEvent(dir, path, kind, (flags & FLAG_CONTENT_CHANGED) != 0, source);
+    }
+
+    /**
+     * 越过已重新提交的事件，全部读回后截断文件
+     */
+    private synchronized void advance() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        read(header, readPosition);
+        readPosition += 4 + header.getInt(0);
+        if (readPosition >= writePosition) {
+            channel.truncate(0);
+            readPosition = 0;
+            writePosition = 0;
+        }
+    }
+
+    private synchronized void skipCorrupted() {
+        log.warn("溢出事件文件损坏, 丢弃剩余 {} 字节", writePosition - readPosition);
+        readPosition = writePosition;
+    }
+
+    private void read(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + buffer.position());
+            if (n < 0) {
+                throw new IOException("Unexpected end of spill file");
+            }
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static byte encodeKind(WatchEvent.Kind<?> kind) {
+        if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
+            return KIND_CREATE;
+        }
+        if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+            return KIND_DELETE;
+        }
+        return KIND_MODIFY;
+    }
+
+    private static WatchEvent.Kind<Path> decodeKind(byte kind) {
+        switch (kind) {
+            case KIND_CREATE:
+                return StandardWatchEventKinds.ENTRY_CREATE;
+            case KIND_DELETE:
+                return StandardWatchEventKinds.ENTRY_DELETE;
+            default:
+                return StandardWatchEventKinds.ENTRY_MODIFY;
+        }
+    }
+
+    /**
+     * 未读回的字节数
+     */
+    public synchronized long getPendingBytes() {
+        return writePosition - readPosition;
+    }
+
+    public long getSpilledCount() {
+        return spilledCount.sum();
+    }
+
+    public long getReplayedCount() {
+        return replayedCount.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public void stop() {
+        running = false;
+        if (drainer != null) {
+            drainer.interrupt();
+            try {
+                drainer.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            if (readPosition < writePosition) {
+                log.warn("停止时仍有 {} 字节溢出事件未处理", writePosition - readPosition);
+            }
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException e) {
+                log.error("Failed to close spill file: {}", file, e);
+            }
+            channel = null;
+        }
+        log.info("溢出队列统计 写入: {}, 读回: {}, 拒绝: {}", getSpilledCount(), getReplayedCount(), getRejectedCount());
+    }
+}
@@ -0,0 +1,70 @@
+package com.cjree.filelisten.event;
+
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+
+/**
+ * 监听事件
+ */
+public class FileEvent {
+
+    // 事件所属的监听目录
+    private final Path dir;
+
+    // 事件关联的文件/目录
+    private final Path path;
+
+    // 事件类型
+    private final WatchEvent.Kind<?> kind;
+
+    // 合并过修改事件的创建事件，处理时需读取内容
+    private final boolean contentChanged;
+
+    // 移动事件的原路径，由删除和创建事件按fileKey配对得到，kind为ENTRY_CREATE
+    private final Path sourcePath;
+
+    public FileEvent(Path dir, Path path, WatchEvent.Kind<?> kind) {
+        this(dir, path, kind, false);
+    }
+
+    public FileEvent(Path dir, Path path, WatchEvent.Kind<?> kind, boolean contentChanged) {
+        this(dir, path, kind, contentChanged, null);
+    }
+
+    public FileEvent(Path dir, Path path, WatchEvent.Kind<?> kind, boolean contentChanged, Path sourcePath) {
+        this.dir = dir;
+        this.path = path;
+        this.kind = kind;
+        this.contentChanged = contentChanged;
+        this.sourcePath = sourcePath;
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public WatchEvent.Kind<?> getKind() {
+        return kind;
+    }
+
+    public boolean isContentChanged() {
+        return contentChanged;
+    }
+
+    public Path getSourcePath() {
+        return sourcePath;
+    }
+
+    public boolean isMove() {
+        return sourcePath != null;
+    }
+
+    @Override
+    public String toString() {
+        return isMove() ? "MOVE " + sourcePath + " -> " + path : kind.name() + " " + path;
+    }
+}
@@ -0,0 +1,300 @@
+package com.cjree.filelisten.event;
+
+import com.cjree.filelisten.watch.DirectorySnapshot;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 移动（重命名）事件配对
+ * 监听后端把mv上报为原路径的DELETE和新路径的CREATE。可能是移动的删除事件暂扣一个窗口，
+ * 窗口内出现匹配的创建事件时合成一个移动事件下发，超时未配对则按原样下发删除事件：
+ * inotify按内核给出的移动cookie配对，普通删除不暂扣；其他后端按fileKey配对，并要求大小和修改时间与删除前一致，
+ * 避免删除后立即创建的文件复用了同一inode被误判为移动。
+ * 同一路径的后续事件会先下发暂扣的删除事件，保持同一路径的事件顺序；没有暂扣的删除时创建事件不读取属性
+ */
+@Slf4j
+public class MovePairer {
+
+    /**
+     * 监听后端不提供移动cookie
+     */
+    public static final long NO_COOKIE = -1;
+
+    private final long windowNanos;
+    private final Function<Path, DirectorySnapshot.EntryState> deletedEntry;
+    private final Consumer<FileEvent> sink;
+
+    // fileKey或移动cookie -> 暂扣的删除事件，按暂扣顺序排列
+    private final Map<Object, Held> held = new LinkedHashMap<>();
+
+    // 路径 -> 暂扣删除事件的键
+    private final Map<Path, Object> heldPaths = new HashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    // 配对成功的移动事件数
+    private final LongAdder pairedCount = new LongAdder();
+
+    // 超时未配对按原样下发的删除事件数
+    private final LongAdder expiredCount = new LongAdder();
+
+    /**
+     * @param windowMs     配对窗口（毫秒），为0时不配对直接下发
+     * @param deletedEntry 查询已删除路径删除前的属性（fileKey、大小、修改时间），未知返回null
+     * @param sink         下游
+     */
+    public MovePairer(long windowMs, Function<Path, DirectorySnapshot.EntryState> deletedEntry, Consumer<FileEvent> sink) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.deletedEntry = deletedEntry;
+        this.sink = sink;
+    }
+
+    public void start() {
+        if (windowNanos <= 0) {
+            return;
+        }
+        long tickNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(1), windowNanos / 2);
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "MovePairer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushExpired, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 接收一个不带移动cookie的原始事件
+     */
+    public void offer(FileEvent event) {
+        offer(event, NO_COOKIE);
+    }
+
+    /**
+     * 接收一个原始事件
+     * @param cookie 移动cookie：NO_COOKIE表示后端不提供，0表示不是移动产生的事件
+     */
+    public void offer(FileEvent event, long cookie) {
+        if (windowNanos <= 0) {
+            sink.accept(event);
+            return;
+        }
+        if (event.getKind() == StandardWatchEventKinds.ENTRY_DELETE) {
+            Object key = null;
+            DirectorySnapshot.EntryState previous = null;
+            if (cookie != NO_COOKIE) {
+                key = cookie != 0 ? new MoveCookie(cookie) : null;
+            } else {
+                previous = deletedEntry.apply(event.getPath());
+                key = previous != null ? previous.getFileKey() : null;
+            }
+            if (key != null) {
+                FileEvent[] flushed = new FileEvent[2];
+                synchronized (this) {
+                    flushed[0] = releasePath(event.getPath());
+                    // 同一键的前一个删除未配对，说明不是移动
+                    Held earlier = held.remove(key);
+                    if (earlier != null) {
+                        heldPaths.remove(earlier.event.getPath());
+                        flushed[1] = earlier.event;
+                    }
+                    held.put(key, new Held(event, previous, System.nanoTime()));
+                    heldPaths.put(event.getPath(), key);
+                }
+                emit(flushed);
+                return;
+            }
+        } else if (event.getKind() == StandardWatchEventKinds.ENTRY_CREATE && hasHeld()) {
+            Held matched = cookie != NO_COOKIE ? matchCookie(cookie) : matchAttributes(event.getPath());
+            if (matched != null) {
+                pairedCount.increment();
+                sink.accept(new FileEvent(event.getDir(), event.getPath(), event.getKind(), event.isContentChanged(),
+                        matched.event.getPath()));
+                return;
+            }
+        }
+        FileEvent flushed = null;
+        if (hasHeld()) {
+            synchronized (this) {
+                flushed = releasePath(event.getPath());
+            }
+        }
+        if (flushed != null) {
+            sink.accept(flushed);
+        }
+        sink.accept(event);
+    }
+
+    private Held matchCookie(long cookie) {
+        if (cookie == 0) {
+            return null;
+        }
+        synchronized (this) {
+            return removeHeld(new MoveCookie(cookie));
+        }
+    }
+
+    /**
+     * 按fileKey查找暂扣的删除事件，大小和修改时间都与删除前一致才视为移动（重命名不改变这两项）
+     */
+    private Held matchAttributes(Path path) {
+        BasicFileAttributes attributes = readAttributes(path);
+        if (attributes == null || attributes.fileKey() == null) {
+            return null;
+        }
+        synchronized (this) {
+            Held candidate = held.get(attributes.fileKey());
+            if (candidate == null || candidate.previous == null
+                    || candidate.previous.getSize() != attributes.size()
+                    || candidate.previous.getLastModified() != attributes.lastModifiedTime().toMillis()) {
+                return null;
+            }
+            return removeHeld(attributes.fileKey());
+        }
+    }
+
+    private Held removeHeld(Object key) {
+        Held matched = held.remove(key);
+        if (matched != null) {
+            heldPaths.remove(matched.event.getPath());
+        }
+        return matched;
+    }
+
+    private synchronized boolean hasHeld() {
+        return !held.isEmpty();
+    }
+
+    /**
+     * 取出路径上暂扣的删除事件
+     */
+    private FileEvent releasePath(Path path) {
+        Object key = heldPaths.remove(path);
+        if (key == null) {
+            return null;
+        }
+        Held released = held.remove(key);
+        return released == null ? null : released.event;
+    }
+
+    /**
+     * 下发超过配对窗口的删除事件
+     * 取出和下发在同一把锁内完成：同一路径的创建事件在offer中先检查暂扣的删除事件，
+     * 若锁外下发，创建事件可能先于已取出的删除事件到达下游
+     */
+    private void flushExpired() {
+        try {
+            long now = System.nanoTime();
+            synchronized (this) {
+                Iterator<Held> iterator = held.values().iterator();
+                while (iterator.hasNext()) {
+                    Held candidate = iterator.next();
+                    if (now - candidate.heldNanos < windowNanos) {
+                        break;
+                    }
+                    iterator.remove();
+                    heldPaths.remove(candidate.event.getPath());
+                    expiredCount.increment();
+                    sink.accept(candidate.event);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error flushing unpaired delete events", e);
+        }
+    }
+
+    private void emit(FileEvent[] events) {
+        for (FileEvent event : events) {
+            if (event != null) {
+                sink.accept(event);
+            }
+        }
+    }
+
+    private static BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 停止配对并下发全部暂扣的删除事件
+     */
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        int remaining;
+        synchronized (this) {
+            remaining = held.size();
+            held.values().forEach(candidate -> sink.accept(candidate.event));
+            held.clear();
+            heldPaths.clear();
+        }
+        log.info("移动事件配对统计 配对: {}, 未配对删除: {}", getPairedCount(), getExpiredCount() + remaining);
+    }
+
+    public synchronized int getHeldCount() {
+        return held.size();
+    }
+
+    public long getPairedCount() {
+        return pairedCount.sum();
+    }
+
+    public long getExpiredCount() {
+        return expiredCount.sum();
+    }
+
+    private static final class Held {
+        private final FileEvent event;
+        // 删除前的属性，按cookie暂扣时为null
+        private final DirectorySnapshot.EntryState previous;
+        private final long heldNanos;
+
+        Held(FileEvent event, DirectorySnapshot.EntryState previous, long heldNanos) {
+            this.event = event;
+            this.previous = previous;
+            this.heldNanos = heldNanos;
+        }
+    }
+
+    /**
+     * 移动cookie作为暂扣的键，与fileKey区分
+     */
+    private static final class MoveCookie {
+        private final long value;
+
+        MoveCookie(long value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof MoveCookie && ((MoveCookie) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(value);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.cjree.filelisten.event;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 按键分道的执行器
+ * 同一个键（路径）总是落到同一条单线程通道上按提交顺序执行，不同键在多条通道上并行。
+ * 通道队列为无锁的多生产者单消费者队列，消费线程空闲时先自旋再挂起，生产者仅在消费者挂起时唤醒。
+ * 每条通道有容量上限：execute在通道满时阻塞等待，tryExecute直接返回失败，由调用方按过载策略处理
+ */
+@Slf4j
+public class StripedExecutor {
+
+    // 消费线程挂起前的自旋次数
+    private static final int SPIN_TRIES = 128;
+
+    // 挂起的最长时间，防止极端情况下错过唤醒
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Lane[] lanes;
+
+    private final int queueCapacity;
+
+    private volatile boolean shutdown;
+
+    /**
+     * @param laneCount     通道数
+     * @param queueCapacity 每条通道的排队任务上限
+     * @param namePrefix    通道线程名前缀
+     */
+    public StripedExecutor(int laneCount, int queueCapacity, String namePrefix) {
+        if (laneCount <= 0) {
+            throw new IllegalArgumentException("laneCount must be positive");
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("queueCapacity must be positive");
+        }
+        this.queueCapacity = queueCapacity;
+        lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(namePrefix + i);
+        }
+    }
+
+    public void start() {
+        for (Lane lane : lanes) {
+            lane.thread.start();
+        }
+    }
+
+    /**
+     * 提交任务，相同键的任务按提交顺序串行执行，通道满时阻塞等待
+     */
+    public void execute(Object key, Runnable task) throws InterruptedException {
+        checkShutdown();
+        lanes[laneOf(key)].put(task);
+    }
+
+    /**
+     * 尝试提交任务，通道满时不等待
+     * @return false表示通道已满，任务未提交
+     */
+    public boolean tryExecute(Object key, Runnable task) {
+        checkShutdown();
+        Lane lane = lanes[laneOf(key)];
+        if (lane.tryOffer(task)) {
+            return true;
+        }
+        lane.rejected.increment();
+        return false;
+    }
+
+    private void checkShutdown() {
+        if (shutdown) {
+            throw new RejectedExecutionException("StripedExecutor has been shut down");
+        }
+    }
+
+    public int laneOf(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return (h & 0x7fffffff) % lanes.length;
+    }
+
+    /**
+     * 不再接收新任务，已提交的任务执行完毕后通道线程退出
+     */
+    public void shutdown() {
+        shutdown = true;
+        for (Lane lane : lanes) {
+            LockSupport.unpark(lane.thread);
+            synchronized (lane.notFull) {
+                lane.notFull.notifyAll();
+            }
+        }
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Lane lane : lanes) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return false;
+            }
+            lane.thread.join(remaining);
+            if (lane.thread.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * 指定通道的排队任务数
+     */
+    public int getQueueDepth(int lane) {
+        return lanes[lane].depth.get();
+    }
+
+    /**
+     * 所有通道的排队任务数
+     */
+    public int getTotalQueueDepth() {
+        int total = 0;
+        for (Lane lane : lanes) {
+            total += lane.depth.get();
+        }
+        return total;
+    }
+
+    /**
+     * 最繁忙通道的排队任务数
+     */
+    public int getMaxQueueDepth() {
+        int max = 0;
+        for (Lane lane : lanes) {
+            max = Math.max(max, lane.depth.get());
+        }
+        return max;
+    }
+
+    /**
+     * 指定通道已完成的任务数
+     */
+    public long getCompletedCount(int lane) {
+        return lanes[lane].completed.sum();
+    }
+
+    /**
+     * 通道满导致tryExecute失败的次数
+     */
+    public long getRejectedCount() {
+        long total = 0;
+        for (Lane lane : lanes) {
+            total += lane.rejected.sum();
+        }
+        return total;
+    }
+
+    /**
+     * 通道满导致execute阻塞等待的次数
+     */
+    public long getBlockedCount() {
+        long total = 0;
+        for (Lane lane : lanes) {
+            total += lane.blocked.sum();
+        }
+        return total;
+    }
+
+    private final class Lane implements Runnable {
+        private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder blocked = new LongAdder();
+        private final Thread thread;
+        private volatile boolean waiting;
+
+        // 通道满时生产者在此等待，消费者仅在有生产者等待时通知
+        private final Object notFull = new Object();
+        private volatile int waitingProducers;
+
+        Lane(String name) {
+            thread = new Thread(this, name);
+            thread.setDaemon(true);
+        }
+
+        boolean tryOffer(Runnable task) {
+            if (depth.incrementAndGet() > queueCapacity) {
+                depth.decrementAndGet();
+                return false;
+            }
+            queue.offer(task);
+            if (waiting) {
+                LockSupport.unpark(thread);
+            }
+            return true;
+        }
+
+        void put(Runnable task) throws InterruptedException {
+            if (tryOffer(task)) {
+                return;
+            }
+            blocked.increment();
+            synchronized (notFull) {
+                // 先登记等待再复查容量，避免与消费者的通知错过
+                waitingProducers++;
+                try {
+                    while (!tryOffer(task)) {
+                        checkShutdown();
+                        TimeUnit.NANOSECONDS.timedWait(notFull, PARK_NANOS);
+                    }
+                } finally {
+                    waitingProducers--;
+                }
+            }
+        }
+
+        private void signalNotFull() {
+            if (waitingProducers > 0) {
+                synchronized (notFull) {
+                    notFull.notifyAll();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int idle = 0;
+            while (true) {
+                Runnable task = queue.poll();
+                if (task != null) {
+                    idle = 0;
+                    depth.decrementAndGet();
+                    signalNotFull();
+                    try {
+                        task.run();
+                    } catch (Throwable e) {
+                        log.error("Error running task in {}", thread.getName(), e);
+                    }
+                    completed.increment();
+                    continue;
+                }
+                if (shutdown) {
+                    return;
+                }
+                if (idle++ < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                // 先声明挂起再复查队列，避免与生产者的唤醒错过
+                waiting = true;
+                if (queue.isEmpty() && !shutdown) {
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+                waiting = false;
+                idle = 0;
+            }
+        }
+    }
+}
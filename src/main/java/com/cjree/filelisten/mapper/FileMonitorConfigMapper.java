@@ -3,6 +3,31 @@ package com.cjree.filelisten.mapper;
 import com.cjree.core.basic.base.BaseMapper;
 import com.cjree.filelisten.entity.FileMonitorConfigPo;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 public interface FileMonitorConfigMapper extends BaseMapper<FileMonitorConfigPo> {
+
+    /**
+     * 按监听路径批量插入或更新，包含/排除模式与读取模式保持原值
+     */
+    int upsertBatch(@Param("list") List<FileMonitorConfigPo> list);
+
+    /**
+     * 逻辑删除路径及其子路径的配置
+     * @param path          路径
+     * @param prefixPattern "路径+分隔符"的LIKE模式（已转义），匹配子路径
+     */
+    int logicDeleteSubtree(@Param("path") String path, @Param("prefixPattern") String prefixPattern);
+
+    /**
+     * 移动后路径上已有（逻辑删除的）配置时，由原路径的配置覆盖并恢复，原路径的配置逻辑删除
+     */
+    int mergeSubtree(@Param("source") String source, @Param("prefixPattern") String prefixPattern, @Param("target") String target);
+
+    /**
+     * 路径及其子路径的可用配置改为新路径前缀
+     */
+    int relocateSubtree(@Param("source") String source, @Param("prefixPattern") String prefixPattern, @Param("target") String target);
 }
@@ -0,0 +1,37 @@
+package com.cjree.filelisten.mapper;
+
+import com.cjree.core.basic.base.BaseMapper;
+import com.cjree.filelisten.entity.FileOperationContentPo;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface FileOperationContentMapper extends BaseMapper<FileOperationContentPo> {
+
+    /**
+     * 多行批量插入
+     */
+    int insertBatch(@Param("list") List<FileOperationContentPo> list);
+
+    /**
+     * 查询已存在的摘要
+     */
+    List<String> selectExistingHashes(@Param("hashes") Collection<String> hashes);
+
+    /**
+     * 按摘要查询内容
+     */
+    List<FileOperationContentPo> selectByHashes(@Param("hashes") Collection<String> hashes);
+
+    /**
+     * 按id顺序查询不被任何操作日志引用的内容（只查id和摘要）
+     * @param afterId 上一批最后的id
+     */
+    List<FileOperationContentPo> selectUnreferenced(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 删除仍不被任何操作日志引用的内容
+     */
+    int deleteUnreferenced(@Param("ids") Collection<Long> ids);
+}
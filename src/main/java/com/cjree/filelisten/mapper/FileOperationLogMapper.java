@@ -1,8 +1,65 @@
 package com.cjree.filelisten.mapper;
 
 import com.cjree.core.basic.base.BaseMapper;
+import com.cjree.filelisten.dto.FileOperationLogQuery;
 import com.cjree.filelisten.entity.FileOperationLogPo;
+import com.cjree.filelisten.retention.OperationLogPartition;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.util.Date;
+import java.util.List;
 
 public interface FileOperationLogMapper extends BaseMapper<FileOperationLogPo> {
+
+    /**
+     * 多行批量插入
+     */
+    int insertBatch(@Param("list") List<FileOperationLogPo> list);
+
+    /**
+     * 查询已存在的ID
+     */
+    List<Long> selectExistingIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 当前的分区名，按分区顺序
+     */
+    List<String> selectPartitionNames();
+
+    /**
+     * 从兜底分区p_max拆出新的按天分区
+     */
+    int addPartitions(@Param("partitions") List<OperationLogPartition> partitions);
+
+    /**
+     * 删除整个分区
+     */
+    int dropPartitions(@Param("names") List<String> names);
+
+    /**
+     * 指定时间之前最早的修改日志时间，没有返回null
+     */
+    Date selectOldestModifyTime(@Param("before") Date before);
+
+    /**
+     * 时间范围内的一批修改日志ID
+     */
+    List<Long> selectModifyIds(@Param("from") Date from, @Param("to") Date to, @Param("limit") int limit);
+
+    /**
+     * 按ID删除时间范围内的日志，时间条件用于分区裁剪
+     */
+    int deleteByIdsInRange(@Param("ids") List<Long> ids, @Param("from") Date from, @Param("to") Date to);
+
+    /**
+     * 按条件键集分页查询
+     */
+    List<FileOperationLogPo> selectByQuery(@Param("query") FileOperationLogQuery query, @Param("limit") int limit);
+
+    /**
+     * 按条件流式读取全部日志，逐条回调
+     */
+    void exportByQuery(@Param("query") FileOperationLogQuery query, ResultHandler<FileOperationLogPo> handler);
 }
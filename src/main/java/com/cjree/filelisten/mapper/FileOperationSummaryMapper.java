@@ -0,0 +1,23 @@
+package com.cjree.filelisten.mapper;
+
+import com.cjree.core.basic.base.BaseMapper;
+import com.cjree.filelisten.entity.FileOperationSummaryPo;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Date;
+import java.util.List;
+
+public interface FileOperationSummaryMapper extends BaseMapper<FileOperationSummaryPo> {
+
+    /**
+     * 按文件汇总指定ID的修改日志，汇总小时由调用方设置
+     * @param start 日志所在小时的起点，与end一起限定时间范围以便按分区裁剪
+     * @param end   日志所在小时的终点（不含）
+     */
+    List<FileOperationSummaryPo> summarizeLogs(@Param("ids") List<Long> ids, @Param("start") Date start, @Param("end") Date end);
+
+    /**
+     * 按文件和小时批量插入汇总，已存在时累加
+     */
+    int upsertBatch(@Param("list") List<FileOperationSummaryPo> list);
+}
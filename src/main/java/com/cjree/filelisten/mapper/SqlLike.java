@@ -0,0 +1,28 @@
+package com.cjree.filelisten.mapper;
+
+/**
+ * LIKE条件的参数构造，转义值中的通配符（MySQL默认转义字符为反斜杠）
+ */
+public final class SqlLike {
+
+    private SqlLike() {
+    }
+
+    /**
+     * 按前缀匹配的模式，prefix为空时返回null
+     */
+    public static String prefix(String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            return null;
+        }
+        StringBuilder pattern = new StringBuilder(prefix.length() + 1);
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = prefix.charAt(i);
+            if (c == '\\' || c == '%' || c == '_') {
+                pattern.append('\\');
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+}
@@ -0,0 +1,314 @@
+package com.cjree.filelisten.metrics;
+
+import com.cjree.filelisten.config.FileMonitorProperties;
+import com.cjree.filelisten.enums.OverloadPolicyEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 事件处理链路的监控指标，通过actuator的prometheus端点暴露
+ * 热路径上的计数器和计时器在启动时创建好，记录时不再查找注册表
+ */
+@Component
+public class FileMonitorMetrics {
+
+    private static final String PREFIX = "file.monitor.";
+
+    @Resource
+    private MeterRegistry meterRegistry;
+    @Resource
+    private FileMonitorProperties fileMonitorProperties;
+
+    // 规则匹配命中/未命中
+    private Counter includeHit;
+    private Counter includeMiss;
+
+    // 事件在处理通道中的排队时间与处理耗时
+    private Timer eventQueueWait;
+    private Timer eventHandle;
+
+    // 增量读取的字节数与耗时
+    private Counter tailBytes;
+    private Timer tailRead;
+
+    // 日志轮转读完原文件的次数与原地截断从头读取的次数
+    private Counter tailRotated;
+    private Counter tailTruncated;
+
+    // 操作日志入队到提交的延迟、批次大小与失败条数
+    private Timer writerLatency;
+    private DistributionSummary writerBatchSize;
+    private Counter writerFailed;
+
+    // 转入死信文件的操作日志条数
+    private Counter writerDeadLetter;
+
+    // 操作内容原始字节数、实际写入字节数与去重命中次数
+    private Counter contentRawBytes;
+    private Counter contentStoredBytes;
+    private Counter contentHashed;
+    private Counter contentDedup;
+    private Timer contentStore;
+    private Timer writerInsert;
+
+    // 过载丢弃的事件总数
+    private final LongAdder droppedCount = new LongAdder();
+
+    // 逐事件日志的采样计数
+    private final AtomicLong eventLogSequence = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        includeHit = Counter.builder(PREFIX + "include")
+                .description("文件规则匹配次数")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        includeMiss = Counter.builder(PREFIX + "include")
+                .description("文件规则匹配次数")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        eventQueueWait = Timer.builder(PREFIX + "event.queue.wait")
+                .description("事件提交到处理通道后的排队时间")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        eventHandle = Timer.builder(PREFIX + "event.handle")
+                .description("单个事件的处理耗时")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        tailBytes = Counter.builder(PREFIX + "tail.bytes")
+                .description("增量读取的字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        tailRead = Timer.builder(PREFIX + "tail.read")
+                .description("单次增量读取耗时")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        tailRotated = Counter.builder(PREFIX + "tail.rotated")
+                .description("日志轮转后读完原文件的次数")
+                .register(meterRegistry);
+        tailTruncated = Counter.builder(PREFIX + "tail.truncated")
+                .description("文件被原地截断后从头读取的次数")
+                .register(meterRegistry);
+        writerLatency = Timer.builder(PREFIX + "writer.latency")
+                .description("操作日志入队到提交的延迟")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        writerBatchSize = DistributionSummary.builder(PREFIX + "writer.batch.size")
+                .description("操作日志批量写入的条数")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        writerFailed = Counter.builder(PREFIX + "writer.failed")
+                .description("操作日志写入失败条数")
+                .register(meterRegistry);
+        writerDeadLetter = Counter.builder(PREFIX + "writer.dead.letter")
+                .description("无法写入数据库而转入死信文件的操作日志条数")
+                .register(meterRegistry);
+        contentRawBytes = Counter.builder(PREFIX + "content.raw.bytes")
+                .description("操作内容原始字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        contentStoredBytes = Counter.builder(PREFIX + "content.stored.bytes")
+                .description("操作内容压缩去重后实际写入的字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        contentHashed = Counter.builder(PREFIX + "content.hashed")
+                .description("按摘要存入内容表的操作内容条数")
+                .register(meterRegistry);
+        contentDedup = Counter.builder(PREFIX + "content.dedup")
+                .description("重复内容只记录摘要的次数")
+                .register(meterRegistry);
+        contentStore = Timer.builder(PREFIX + "content.store")
+                .description("内容去重压缩入库的耗时（摘要、压缩、查询已存在摘要、写内容表）")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        writerInsert = Timer.builder(PREFIX + "writer.insert")
+                .description("一批操作日志写库的总耗时（含内容去重压缩）")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        // 写入吞吐：每秒写库时间处理的原始内容字节数，与关闭内容去重(file-monitor.content.enabled=false)时对比即为实际收益
+        gauge("writer.throughput.bytes", "每秒写库耗时处理的操作内容原始字节数", this, metrics -> {
+            double seconds = metrics.writerInsert.totalTime(TimeUnit.SECONDS);
+            return seconds == 0 ? 0 : metrics.contentRawBytes.count() / seconds;
+        });
+        gauge("content.compression.ratio", "操作内容原始字节数/实际写入字节数", this, metrics -> {
+            double stored = metrics.contentStoredBytes.count();
+            return stored == 0 ? 1 : metrics.contentRawBytes.count() / stored;
+        });
+        // 去重率：按摘要存储的内容中已存在、只记录摘要的比例
+        gauge("content.dedup.ratio", "重复内容占按摘要存储内容的比例", this, metrics -> {
+            double hashed = metrics.contentHashed.count();
+            return hashed == 0 ? 0 : metrics.contentDedup.count() / hashed;
+        });
+    }
+
+    /**
+     * 创建一个监听分片的原始事件计数器，分发线程持有后直接累加
+     */
+    public EventCounters eventCounters(String backend, String shard) {
+        return new EventCounters(meterRegistry, backend, shard);
+    }
+
+    /**
+     * 注册一个按需取值的仪表（队列深度、缓存条目数等）
+     */
+    public <T> void gauge(String name, String description, T target, ToDoubleFunction<T> value) {
+        Gauge.builder(PREFIX + name, target, value)
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    public void recordInclude(boolean included) {
+        (included ? includeHit : includeMiss).increment();
+    }
+
+    public void recordEventQueueWait(long nanos) {
+        eventQueueWait.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordEventHandle(long nanos) {
+        eventHandle.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordTailRead(long bytes, long nanos) {
+        tailBytes.increment(bytes);
+        tailRead.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordTailRotated() {
+        tailRotated.increment();
+    }
+
+    public void recordTailTruncated() {
+        tailTruncated.increment();
+    }
+
+    public void recordWriterLatency(long nanos) {
+        writerLatency.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordWriterBatch(int size) {
+        writerBatchSize.record(size);
+    }
+
+    public void recordWriterFailed(int size) {
+        writerFailed.increment(size);
+    }
+
+    public void recordWriterDeadLetter(int size) {
+        writerDeadLetter.increment(size);
+    }
+
+    public void recordContent(long rawBytes, long storedBytes) {
+        contentRawBytes.increment(rawBytes);
+        contentStoredBytes.increment(storedBytes);
+    }
+
+    public void recordContentStore(long nanos) {
+        contentStore.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordWriterInsert(long nanos) {
+        writerInsert.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordContentHashed() {
+        contentHashed.increment();
+    }
+
+    public void recordContentDedup() {
+        contentDedup.increment();
+    }
+
+    /**
+     * 处理通道满时按过载策略丢弃的事件，仅在过载时记录，计数器按策略和事件类型现查
+     */
+    public void recordEventDropped(OverloadPolicyEnum policy, WatchEvent.Kind<?> kind) {
+        droppedCount.increment();
+        Counter.builder(PREFIX + "events.dropped")
+                .description("处理通道已满被丢弃的事件数")
+                .tag("policy", policy.name())
+                .tag("kind", kindTag(kind))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    private static String kindTag(WatchEvent.Kind<?> kind) {
+        if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
+            return "create";
+        }
+        if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+            return "delete";
+        }
+        return "modify";
+    }
+
+    /**
+     * 逐事件日志是否输出：仅在debug级别下按采样间隔输出，间隔为1时每条都输出
+     */
+    public boolean sampleEventLog(boolean debugEnabled) {
+        if (!debugEnabled) {
+            return false;
+        }
+        int interval = fileMonitorProperties.getMetrics().getEventLogSampleInterval();
+        return interval <= 1 || eventLogSequence.getAndIncrement() % interval == 0;
+    }
+
+    /**
+     * 单个监听分片的原始事件计数，按事件类型区分
+     */
+    public static final class EventCounters {
+        private final Counter created;
+        private final Counter deleted;
+        private final Counter modified;
+        private final Counter overflow;
+
+        EventCounters(MeterRegistry registry, String backend, String shard) {
+            created = counter(registry, backend, shard, "create");
+            deleted = counter(registry, backend, shard, "delete");
+            modified = counter(registry, backend, shard, "modify");
+            overflow = Counter.builder(PREFIX + "watch.overflow")
+                    .description("事件队列溢出次数")
+                    .tag("backend", backend)
+                    .tag("shard", shard)
+                    .register(registry);
+        }
+
+        private static Counter counter(MeterRegistry registry, String backend, String shard, String kind) {
+            return Counter.builder(PREFIX + "watch.events")
+                    .description("监听后端上报的原始事件数")
+                    .tag("backend", backend)
+                    .tag("shard", shard)
+                    .tag("kind", kind)
+                    .register(registry);
+        }
+
+        public void record(WatchEvent.Kind<?> kind) {
+            if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
+                created.increment();
+            } else if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+                deleted.increment();
+            } else if (kind == StandardWatchEventKinds.ENTRY_MODIFY) {
+                modified.increment();
+            } else if (kind == StandardWatchEventKinds.OVERFLOW) {
+                overflow.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.cjree.filelisten.retention;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 操作日志的按天分区，分区名为p+日期（如p20240101），上界为次日零点（不含）
+ */
+public class OperationLogPartition {
+
+    // 兜底分区，容纳尚未建立按天分区的日志
+    public static final String MAX_PARTITION = "p_max";
+
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+
+    private final LocalDate day;
+
+    public OperationLogPartition(LocalDate day) {
+        this.day = day;
+    }
+
+    /**
+     * 按分区名解析，不是按天分区（如p_max）时返回null
+     */
+    public static OperationLogPartition parse(String name) {
+        if (name == null || name.length() != 9 || name.charAt(0) != 'p') {
+            return null;
+        }
+        try {
+            return new OperationLogPartition(LocalDate.parse(name, NAME_FORMAT));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public String getName() {
+        return day.format(NAME_FORMAT);
+    }
+
+    /**
+     * 分区上界（不含），yyyy-MM-dd
+     */
+    public String getUpperBound() {
+        return day.plusDays(1).toString();
+    }
+}
@@ -0,0 +1,141 @@
+package com.cjree.filelisten.retention;
+
+import com.cjree.filelisten.config.FileMonitorProperties;
+import com.cjree.filelisten.mapper.FileOperationLogMapper;
+import com.cjree.filelisten.service.FileOperationContentService;
+import com.cjree.filelisten.service.FileOperationSummaryService;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 操作日志分区维护
+ * file_operation_log按operation_time的天做RANGE分区：定时预建未来几天的分区，
+ * 超过保留天数的分区整个删除（DROP PARTITION只删元数据和文件，不逐行删除、不锁表）；
+ * 可选把超过一定时间的MODIFY日志按文件和小时汇总到file_operation_summary后删除明细；
+ * 之后回收file_operation_content中不再被任何日志引用的内容
+ */
+@Slf4j
+@Component
+public class OperationLogRetention {
+    @Resource
+    private FileOperationLogMapper fileOperationLogMapper;
+    @Resource
+    private FileOperationSummaryService fileOperationSummaryService;
+    @Resource
+    private FileOperationContentService fileOperationContentService;
+    @Resource
+    private FileMonitorProperties fileMonitorProperties;
+
+    @Scheduled(initialDelayString = "${file-monitor.retention.initial-delay-ms:60000}",
+            fixedDelayString = "${file-monitor.retention.interval-ms:3600000}")
+    public void run() {
+        FileMonitorProperties.Retention retention = fileMonitorProperties.getRetention();
+        if (!retention.isEnabled()) {
+            return;
+        }
+        try {
+            maintainPartitions(retention, LocalDate.now());
+        } catch (Exception e) {
+            log.error("操作日志分区维护失败", e);
+        }
+        if (retention.isCompactEnabled()) {
+            try {
+                compact(retention);
+            } catch (Exception e) {
+                log.error("操作日志汇总失败", e);
+            }
+        }
+        if (retention.isContentGcEnabled()) {
+            try {
+                long deleted = fileOperationContentService.sweepUnreferenced(retention.getContentGcBatchSize());
+                if (deleted > 0) {
+                    log.info("已回收无引用的操作内容, 条数: {}", deleted);
+                }
+            } catch (Exception e) {
+                log.error("操作内容回收失败", e);
+            }
+        }
+    }
+
+    /**
+     * 预建到 today+precreateDays 的按天分区，删除早于 today-retentionDays 的分区
+     */
+    void maintainPartitions(FileMonitorProperties.Retention retention, LocalDate today) {
+        List<String> names = fileOperationLogMapper.selectPartitionNames();
+        if (names.isEmpty()) {
+            log.warn("file_operation_log 未分区, 跳过分区维护, 建表语句见 db/struct.sql");
+            return;
+        }
+        LocalDate latest = null;
+        List<OperationLogPartition> existing = new ArrayList<>();
+        for (String name : names) {
+            OperationLogPartition partition = OperationLogPartition.parse(name);
+            if (partition != null) {
+                existing.add(partition);
+                latest = partition.getDay();
+            }
+        }
+
+        // 新分区只能从兜底分区p_max的前面按日期递增拆出
+        List<OperationLogPartition> created = new ArrayList<>();
+        LocalDate day = latest == null ? today : latest.plusDays(1);
+        for (LocalDate last = today.plusDays(retention.getPrecreateDays()); !day.isAfter(last); day = day.plusDays(1)) {
+            created.add(new OperationLogPartition(day));
+        }
+        if (!created.isEmpty()) {
+            fileOperationLogMapper.addPartitions(created);
+            log.info("新建操作日志分区: {} ~ {}", created.get(0).getName(), created.get(created.size() - 1).getName());
+        }
+
+        LocalDate cutoff = today.minusDays(retention.getRetentionDays());
+        List<String> expired = new ArrayList<>();
+        for (OperationLogPartition partition : existing) {
+            if (partition.getDay().isBefore(cutoff)) {
+                expired.add(partition.getName());
+            }
+        }
+        if (!expired.isEmpty()) {
+            fileOperationLogMapper.dropPartitions(expired);
+            log.info("删除过期操作日志分区: {}", expired);
+        }
+    }
+
+    /**
+     * 从最早的未汇总小时开始，逐小时分批汇总超过compactAfterHours的修改日志，单次最多处理compactMaxHours个小时
+     */
+    void compact(FileMonitorProperties.Retention retention) {
+        Date before = truncateToHour(Date.from(Instant.now().minus(retention.getCompactAfterHours(), ChronoUnit.HOURS)));
+        int hours = 0;
+        long compacted = 0;
+        while (hours < retention.getCompactMaxHours()) {
+            Date oldest = fileOperationLogMapper.selectOldestModifyTime(before);
+            if (oldest == null) {
+                break;
+            }
+            Date hour = truncateToHour(oldest);
+            int rows;
+            do {
+                rows = fileOperationSummaryService.compactModifyBatch(hour, retention.getCompactBatchSize());
+                compacted += rows;
+            } while (rows > 0);
+            hours++;
+        }
+        if (compacted > 0) {
+            log.info("修改日志已汇总, 小时数: {}, 日志条数: {}", hours, compacted);
+        }
+    }
+
+    private static Date truncateToHour(Date time) {
+        return Date.from(time.toInstant().atZone(ZoneId.systemDefault()).truncatedTo(ChronoUnit.HOURS).toInstant());
+    }
+}
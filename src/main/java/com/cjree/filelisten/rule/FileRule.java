@@ -0,0 +1,138 @@
+package com.cjree.filelisten.rule;
+
+import com.cjree.filelisten.entity.FileMonitorConfigPo;
+import com.cjree.filelisten.enums.OverloadPolicyEnum;
+import com.cjree.filelisten.enums.PathTypeEnum;
+import com.cjree.filelisten.enums.TailModeEnum;
+import com.cjree.filelisten.enums.WatchBackendEnum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 由监听配置编译出的包含/排除规则
+ */
+@Slf4j
+public final class FileRule {
+
+    private final Path path;
+    private final boolean directory;
+    private final boolean recursives;
+    private final NamePatternSet includes;
+    private final NamePatternSet excludes;
+    // 为空表示继承上级配置
+    private final TailModeEnum tailMode;
+    // 为空表示继承上级配置
+    private final WatchBackendEnum watchBackend;
+    // 为空表示继承上级配置
+    private final OverloadPolicyEnum overloadPolicy;
+
+    private FileRule(Path path, boolean directory, boolean recursives, NamePatternSet includes, NamePatternSet excludes,
+                     TailModeEnum tailMode, WatchBackendEnum watchBackend, OverloadPolicyEnum overloadPolicy) {
+        this.path = path;
+        this.directory = directory;
+        this.recursives = recursives;
+        this.includes = includes;
+        this.excludes = excludes;
+        this.tailMode = tailMode;
+        this.watchBackend = watchBackend;
+        this.overloadPolicy = overloadPolicy;
+    }
+
+    public static FileRule compile(FileMonitorConfigPo config) {
+        return new FileRule(normalize(config.getMonitorPath()),
+                Objects.equals(config.getPathType(), PathTypeEnum.DIRECTORY.getCode()),
+                !Boolean.FALSE.equals(config.getRecursives()),
+                NamePatternSet.compile(config.getIncludePatterns()),
+                NamePatternSet.compile(config.getExcludePatterns()),
+                parseOrInherit(TailModeEnum::of, config.getTailMode(), "读取模式", config),
+                parseOrInherit(WatchBackendEnum::of, config.getWatchBackend(), "监听方式", config),
+                parseOrInherit(OverloadPolicyEnum::of, config.getOverloadPolicy(), "过载策略", config));
+    }
+
+    /**
+     * 解析配置的编码，库中的无效值只影响该行的该字段：记录警告后按未配置处理（继承上级或默认）
+     */
+    private static <E> E parseOrInherit(Function<String, E> parser, String code, String name, FileMonitorConfigPo config) {
+        try {
+            return parser.apply(code);
+        } catch (IllegalArgumentException e) {
+            log.warn("监听配置的{}无效, 按未配置处理: {}, 路径: {}", name, code, config.getMonitorPath());
+            return null;
+        }
+    }
+
+    /**
+     * 未设置的字段沿用已有规则（与按非空字段更新的语义一致）
+     */
+    FileRule mergeFrom(FileRule previous) {
+        if (previous == null) {
+            return this;
+        }
+        boolean keepPatterns = !hasPatterns();
+        return new FileRule(path, directory, recursives,
+                keepPatterns ? previous.includes : includes,
+                keepPatterns ? previous.excludes : excludes,
+                tailMode != null ? tailMode : previous.tailMode,
+                watchBackend != null ? watchBackend : previous.watchBackend,
+                overloadPolicy != null ? overloadPolicy : previous.overloadPolicy);
+    }
+
+    static Path normalize(String path) {
+        return Paths.get(path).toAbsolutePath().normalize();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public boolean isDirectory() {
+        return directory;
+    }
+
+    /**
+     * 目录规则对直接子文件总是生效，对更深层文件仅在递归时生效
+     */
+    boolean appliesAtDepth(boolean directChild) {
+        return directory && (directChild || recursives);
+    }
+
+    /**
+     * 是否携带包含/排除模式
+     */
+    boolean hasPatterns() {
+        return !includes.isEmpty() || !excludes.isEmpty();
+    }
+
+    TailModeEnum getTailMode() {
+        return tailMode;
+    }
+
+    WatchBackendEnum getWatchBackend() {
+        return watchBackend;
+    }
+
+    OverloadPolicyEnum getOverloadPolicy() {
+        return overloadPolicy;
+    }
+
+    /**
+     * 是否需要进入索引，既无模式也无读取模式、监听方式、过载策略的配置完全继承上级
+     */
+    boolean isIndexed() {
+        return hasPatterns() || tailMode != null || watchBackend != null || overloadPolicy != null;
+    }
+
+    /**
+     * 排除优先，未配置包含模式时默认全部包含
+     */
+    boolean matches(String fileName) {
+        if (excludes.matches(fileName)) {
+            return false;
+        }
+        return includes.isEmpty() || includes.matches(fileName);
+    }
+}
@@ -0,0 +1,157 @@
+package com.cjree.filelisten.rule;
+
+import com.cjree.filelisten.enums.OverloadPolicyEnum;
+import com.cjree.filelisten.enums.TailModeEnum;
+import com.cjree.filelisten.enums.WatchBackendEnum;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 不可变的规则索引，按路径查找最近的祖先配置
+ * 更新时整体复制后替换，读路径无锁、无数据库访问
+ */
+public final class FileRuleIndex {
+
+    public static final FileRuleIndex EMPTY = new FileRuleIndex(Collections.emptyMap());
+
+    private final Map<Path, FileRule> rules;
+
+    private FileRuleIndex(Map<Path, FileRule> rules) {
+        this.rules = rules;
+    }
+
+    public static FileRuleIndex build(Collection<FileRule> rules) {
+        Map<Path, FileRule> map = new HashMap<>();
+        for (FileRule rule : rules) {
+            if (rule.isIndexed()) {
+                map.put(rule.getPath(), rule);
+            }
+        }
+        return map.isEmpty() ? EMPTY : new FileRuleIndex(map);
+    }
+
+    /**
+     * 返回加入（或替换）一条规则后的新索引
+     */
+    public FileRuleIndex with(FileRule rule) {
+        FileRule merged = rule.mergeFrom(rules.get(rule.getPath()));
+        if (!merged.isIndexed()) {
+            return this;
+        }
+        Map<Path, FileRule> map = new HashMap<>(rules);
+        map.put(merged.getPath(), merged);
+        return new FileRuleIndex(map);
+    }
+
+    /**
+     * 返回移除指定路径及其所有子路径规则后的新索引
+     */
+    public FileRuleIndex withoutSubtree(Path root) {
+        Map<Path, FileRule> map = new HashMap<>(rules);
+        if (!map.keySet().removeIf(path -> path.startsWith(root))) {
+            return this;
+        }
+        return map.isEmpty() ? EMPTY : new FileRuleIndex(map);
+    }
+
+    public int size() {
+        return rules.size();
+    }
+
+    /**
+     * 检查文件是否符合包含/排除模式
+     * 先匹配文件自身的配置，再由近及远查找带模式的祖先目录配置，均未命中则默认包含
+     * @param path 绝对路径
+     */
+    public boolean isIncluded(Path path) {
+        if (rules.isEmpty()) {
+            return true;
+        }
+        Path fileName = path.getFileName();
+        if (fileName == null) {
+            return true;
+        }
+        FileRule rule = nearest(path, true);
+        return rule == null || rule.matches(fileName.toString());
+    }
+
+    /**
+     * 解析文件的读取模式，由近及远取第一个显式配置，均未配置时为RAW
+     * @param path 绝对路径
+     */
+    public TailModeEnum resolveTailMode(Path path) {
+        if (rules.isEmpty()) {
+            return TailModeEnum.RAW;
+        }
+        FileRule rule = nearest(path, false);
+        return rule == null ? TailModeEnum.RAW : rule.getTailMode();
+    }
+
+    /**
+     * 解析目录的监听方式，取目录自身或最近祖先目录的显式配置
+     * @param dir 目录绝对路径
+     * @return 监听方式，均未配置时返回null
+     */
+    public WatchBackendEnum resolveWatchBackend(Path dir) {
+        if (rules.isEmpty()) {
+            return null;
+        }
+        for (Path current = dir; current != null; current = current.getParent()) {
+            FileRule rule = rules.get(current);
+            if (rule != null && rule.isDirectory() && rule.getWatchBackend() != null) {
+                return rule.getWatchBackend();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 解析路径的过载策略，取路径自身或最近祖先目录的显式配置
+     * @param path 绝对路径
+     * @return 过载策略，均未配置时返回null
+     */
+    public OverloadPolicyEnum resolveOverloadPolicy(Path path) {
+        if (rules.isEmpty()) {
+            return null;
+        }
+        FileRule rule = rules.get(path);
+        if (rule != null && rule.getOverloadPolicy() != null) {
+            return rule.getOverloadPolicy();
+        }
+        for (Path current = path.getParent(); current != null; current = current.getParent()) {
+            rule = rules.get(current);
+            if (rule != null && rule.isDirectory() && rule.getOverloadPolicy() != null) {
+                return rule.getOverloadPolicy();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 查找对路径生效的最近规则
+     * @param patterns true查找带包含/排除模式的规则，false查找带读取模式的规则
+     */
+    private FileRule nearest(Path path, boolean patterns) {
+        FileRule rule = rules.get(path);
+        if (rule != null && !rule.isDirectory() && provides(rule, patterns)) {
+            return rule;
+        }
+        boolean directChild = true;
+        for (Path parent = path.getParent(); parent != null; parent = parent.getParent()) {
+            rule = rules.get(parent);
+            if (rule != null && rule.appliesAtDepth(directChild) && provides(rule, patterns)) {
+                return rule;
+            }
+            directChild = false;
+        }
+        return null;
+    }
+
+    private static boolean provides(FileRule rule, boolean patterns) {
+        return patterns ? rule.hasPatterns() : rule.getTailMode() != null;
+    }
+}
@@ -0,0 +1,89 @@
+package com.cjree.filelisten.rule;
+
+import com.cjree.filelisten.entity.FileMonitorConfigPo;
+import com.cjree.filelisten.enums.OverloadPolicyEnum;
+import com.cjree.filelisten.enums.TailModeEnum;
+import com.cjree.filelisten.enums.WatchBackendEnum;
+import com.cjree.filelisten.service.FileMonitorConfigService;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 包含/排除规则注册中心，持有当前生效的规则索引并在配置变更时原子替换
+ */
+@Slf4j
+@Component
+public class FileRuleRegistry {
+    @Resource
+    private FileMonitorConfigService fileMonitorConfigService;
+
+    private final AtomicReference<FileRuleIndex> index = new AtomicReference<>(FileRuleIndex.EMPTY);
+
+    /**
+     * 从数据库重新加载所有启用的配置
+     */
+    public void reload() {
+        rebuild(fileMonitorConfigService.lambdaQuery().eq(FileMonitorConfigPo::getEnabled, Boolean.TRUE).list());
+    }
+
+    /**
+     * 使用给定的启用配置重建索引
+     */
+    public void rebuild(List<FileMonitorConfigPo> enabledConfigs) {
+        List<FileRule> rules = new ArrayList<>(enabledConfigs.size());
+        for (FileMonitorConfigPo config : enabledConfigs) {
+            rules.add(FileRule.compile(config));
+        }
+        FileRuleIndex rebuilt = FileRuleIndex.build(rules);
+        index.set(rebuilt);
+        log.info("规则索引已重建, 生效的配置数: {}", rebuilt.size());
+    }
+
+    /**
+     * 应用一条已保存的配置
+     * 模式、读取模式为空视为未修改（与按非空字段更新的语义一致）；
+     * 禁用时按库重建，只去掉该路径自身的规则，子路径上仍启用的规则保留
+     */
+    public void apply(FileMonitorConfigPo config) {
+        if (Boolean.FALSE.equals(config.getEnabled())) {
+            reload();
+            return;
+        }
+        FileRule rule = FileRule.compile(config);
+        index.updateAndGet(current -> current.with(rule));
+    }
+
+    /**
+     * 移除路径及其子路径上的规则
+     */
+    public void remove(Path root) {
+        Path normalized = root.toAbsolutePath().normalize();
+        index.updateAndGet(current -> current.withoutSubtree(normalized));
+    }
+
+    public boolean isIncluded(Path path) {
+        return index.get().isIncluded(path);
+    }
+
+    public TailModeEnum resolveTailMode(Path path) {
+        return index.get().resolveTailMode(path);
+    }
+
+    public WatchBackendEnum resolveWatchBackend(Path dir) {
+        return index.get().resolveWatchBackend(dir);
+    }
+
+    public OverloadPolicyEnum resolveOverloadPolicy(Path path) {
+        return index.get().resolveOverloadPolicy(path);
+    }
+
+    public FileRuleIndex current() {
+        return index.get();
+    }
+}
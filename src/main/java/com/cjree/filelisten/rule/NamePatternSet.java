@@ -0,0 +1,94 @@
+package com.cjree.filelisten.rule;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 预编译的文件名通配符集合（* 匹配任意字符，? 匹配单个字符，多个用逗号分隔）
+ * 精确名称走哈希查找，"*.xxx" 形式走后缀比较，其余模式合并为一个正则
+ */
+public final class NamePatternSet {
+
+    static final NamePatternSet EMPTY = new NamePatternSet(new HashSet<>(), new String[0], null);
+
+    private final Set<String> exactNames;
+    private final String[] suffixes;
+    private final Pattern combined;
+
+    private NamePatternSet(Set<String> exactNames, String[] suffixes, Pattern combined) {
+        this.exactNames = exactNames;
+        this.suffixes = suffixes;
+        this.combined = combined;
+    }
+
+    public static NamePatternSet compile(String patterns) {
+        if (patterns == null || patterns.trim().isEmpty()) {
+            return EMPTY;
+        }
+        Set<String> exactNames = new HashSet<>();
+        List<String> suffixes = new ArrayList<>();
+        StringBuilder regex = new StringBuilder();
+        for (String raw : patterns.split(",")) {
+            String pattern = raw.trim();
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            int lastStar = pattern.lastIndexOf('*');
+            if (pattern.indexOf('*') < 0 && pattern.indexOf('?') < 0) {
+                exactNames.add(pattern);
+            } else if (lastStar == 0 && pattern.indexOf('?') < 0) {
+                suffixes.add(pattern.substring(1));
+            } else {
+                if (regex.length() > 0) {
+                    regex.append('|');
+                }
+                regex.append("(?:").append(toRegex(pattern)).append(')');
+            }
+        }
+        if (exactNames.isEmpty() && suffixes.isEmpty() && regex.length() == 0) {
+            return EMPTY;
+        }
+        return new NamePatternSet(exactNames, suffixes.toArray(new String[0]),
+                regex.length() == 0 ? null : Pattern.compile(regex.toString()));
+    }
+
+    private static String toRegex(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?') {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '*' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return regex.toString();
+    }
+
+    public boolean isEmpty() {
+        return this == EMPTY;
+    }
+
+    public boolean matches(String fileName) {
+        if (exactNames.contains(fileName)) {
+            return true;
+        }
+        for (String suffix : suffixes) {
+            if (fileName.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return combined != null && combined.matcher(fileName).matches();
+    }
+}
@@ -3,7 +3,22 @@ package com.cjree.filelisten.service;
 import com.cjree.core.basic.base.BaseService;
 import com.cjree.filelisten.entity.FileMonitorConfigPo;
 
+import java.util.List;
+
 
 public interface FileMonitorConfigService extends BaseService<FileMonitorConfigPo> {
 
+    /**
+     * 按监听路径分批插入或更新配置
+     * @param configs   监听配置
+     * @param batchSize 单批条数
+     * @return 影响行数
+     */
+    int upsertBatch(List<FileMonitorConfigPo> configs, int batchSize);
+
+    /**
+     * 目录被移动：目录及子目录的配置改为新路径，新路径下残留的配置逻辑删除
+     * @return 更新的配置条数
+     */
+    int relocate(String source, String target);
 }
@@ -1,13 +1,50 @@
 package com.cjree.filelisten.service;
 
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
 import com.cjree.core.basic.base.AbstractService;
 import com.cjree.filelisten.entity.FileMonitorConfigPo;
 import com.cjree.filelisten.mapper.FileMonitorConfigMapper;
+import com.cjree.filelisten.mapper.SqlLike;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.File;
+import java.util.List;
 
 @Service
 @Slf4j
 public class FileMonitorConfigServiceImpl extends AbstractService<FileMonitorConfigPo, FileMonitorConfigMapper> implements FileMonitorConfigService {
+    @Resource
+    private FileMonitorConfigMapper fileMonitorConfigMapper;
+
+    @Override
+    public int upsertBatch(List<FileMonitorConfigPo> configs, int batchSize) {
+        if (configs == null || configs.isEmpty()) {
+            return 0;
+        }
+        // 自定义SQL不会走主键生成器，需手动分配ID，已存在的路径保留原ID
+        for (FileMonitorConfigPo config : configs) {
+            if (config.getId() == null) {
+                config.setId(IdWorker.getId());
+            }
+        }
+        int step = Math.max(1, batchSize);
+        int affected = 0;
+        for (int from = 0; from < configs.size(); from += step) {
+            affected += fileMonitorConfigMapper.upsertBatch(configs.subList(from, Math.min(configs.size(), from + step)));
+        }
+        return affected;
+    }
 
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int relocate(String source, String target) {
+        // 目标路径下已删除目录残留的配置逻辑删除；监听路径唯一，与移动后路径相同的行合并，其余行改路径
+        fileMonitorConfigMapper.logicDeleteSubtree(target, SqlLike.prefix(target + File.separator));
+        String sourcePattern = SqlLike.prefix(source + File.separator);
+        int merged = fileMonitorConfigMapper.mergeSubtree(source, sourcePattern, target);
+        return merged + fileMonitorConfigMapper.relocateSubtree(source, sourcePattern, target);
+    }
 }
@@ -1,5 +1,10 @@
 package com.cjree.filelisten.service;
 
+import com.cjree.filelisten.watch.RegistrationTiming;
+import com.cjree.filelisten.watch.WatchShard;
+
+import java.util.List;
+
 public interface FileMonitorService {
     /**
      * 启动文件监听服务
@@ -11,6 +16,21 @@ public interface FileMonitorService {
      */
     void stopMonitoring();
 
+    /**
+     * 启动注册是否已完成（所有配置的目录已注册、检查点已恢复）
+     */
+    boolean isReady();
+
+    /**
+     * 启动时各监听根目录的注册耗时
+     */
+    List<RegistrationTiming> getRegistrationTimings();
+
+    /**
+     * 各监听分片的分发统计
+     */
+    List<WatchShard> getWatchShards();
+
     /**
      * 添加监听目录
      * @param directory 要监听的目录
@@ -1,63 +1,168 @@
 package com.cjree.filelisten.service;
 
+import com.cjree.filelisten.config.FileMonitorProperties;
 import com.cjree.filelisten.entity.FileMonitorConfigPo;
 import com.cjree.filelisten.entity.FileOperationLogPo;
 import com.cjree.filelisten.enums.PathTypeEnum;
+import com.cjree.filelisten.enums.WatchBackendEnum;
+import com.cjree.filelisten.metrics.FileMonitorMetrics;
+import com.cjree.filelisten.rule.FileRuleRegistry;
+import com.cjree.filelisten.subscribe.OperationEventBus;
+import com.cjree.filelisten.tail.CheckpointStore;
+import com.cjree.filelisten.tail.BlockSignature;
+import com.cjree.filelisten.tail.LineAssembler;
+import com.cjree.filelisten.tail.TailStateIndex;
+import com.cjree.filelisten.tail.TailReader;
+import com.cjree.filelisten.watch.DirectorySnapshot;
+import com.cjree.filelisten.watch.DirectorySnapshotIndex;
+import com.cjree.filelisten.watch.ParallelDirectoryWalker;
+import com.cjree.filelisten.watch.RegistrationTiming;
+import com.cjree.filelisten.watch.WatchBackend;
+import com.cjree.filelisten.watch.WatchShard;
+import com.cjree.filelisten.watch.WatchedDirectoryTrie;
+import com.cjree.filelisten.writer.OperationLogWriter;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 public abstract class FileMonitorServiceBase {
+
+    // 按配置根目录分片
+    protected static final String SHARD_BY_ROOT = "ROOT";
+
     @Resource
     protected FileMonitorConfigService fileMonitorConfigService;
     @Resource
     protected FileOperationLogService fileOperationLogService;
+    @Resource
+    protected OperationLogWriter operationLogWriter;
+    @Resource
+    protected FileRuleRegistry fileRuleRegistry;
+    @Resource
+    protected FileMonitorProperties fileMonitorProperties;
+    @Resource
+    protected TailReader tailReader;
+    @Resource
+    protected CheckpointStore checkpointStore;
+    @Resource
+    protected FileMonitorMetrics fileMonitorMetrics;
+    @Resource
+    protected OperationEventBus operationEventBus;
 
-    // 监听服务
-    protected WatchService watchService;
+    // 监听分片，按配置的监听方式选择，同一方式下按路径哈希或配置根目录分配
+    protected final Map<WatchBackendEnum, WatchShard[]> watchShards = new EnumMap<>(WatchBackendEnum.class);
 
     // 存储路径与WatchKey的映射
     protected final Map<Path, WatchKey> watchKeys = new ConcurrentHashMap<>();
 
-    // 文件最后修改时间缓存（用于去重）
-    protected final Map<Path, Long> fileLastModified = new ConcurrentHashMap<>();
+    // 已监听目录的前缀树，与watchKeys同步维护，用于子树移除和查找所属配置根目录
+    protected final WatchedDirectoryTrie watchedDirectories = new WatchedDirectoryTrie();
+
+    // 目录移动后WatchKey对应的当前路径，WatchKey的watchable仍为注册时的路径
+    protected final Map<WatchKey, Path> movedKeyDirs = new ConcurrentHashMap<>();
+
+    // 文件读取位置和最后修改时间（用于去重），按inode记录，日志轮转重命名后随文件迁移
+    protected final TailStateIndex tailStates = new TailStateIndex();
+
+    // 按行模式下各文件未完成的行
+    protected final Map<Path, LineAssembler> lineAssemblers = new ConcurrentHashMap<>();
+
+    // 块差异模式下各文件上次的块签名
+    protected final Map<Path, BlockSignature> blockSignatures = new ConcurrentHashMap<>();
 
-    // 文件内容读取位置缓存
-    protected final Map<Path, Long> filePositions = new ConcurrentHashMap<>();
+    // 已监听目录的子项快照，事件队列溢出后据此补发丢失的事件
+    protected final DirectorySnapshotIndex directorySnapshots = new DirectorySnapshotIndex();
+
+    // 启动注册是否完成
+    protected volatile boolean ready;
+
+    // 启动时各监听根目录的注册耗时
+    protected volatile List<RegistrationTiming> registrationTimings = List.of();
 
 
     /**
      * 从数据库加载并启动所有监听配置
+     * 并行注册模式下按根目录fork/join遍历，子目录配置暂存后统一批量写入
      */
     protected void loadAndStartMonitors() {
+        long loadStart = System.nanoTime();
         List<FileMonitorConfigPo> enabledConfigs = fileMonitorConfigService.lambdaQuery().eq(FileMonitorConfigPo::getEnabled, Boolean.TRUE).list();
         log.info("加载到 {} 个启用的监听配置", enabledConfigs.size());
-        // 启动每个配置的监听
-        for (FileMonitorConfigPo fileMonitorConfigPo : enabledConfigs) {
-            Path path = Paths.get(fileMonitorConfigPo.getMonitorPath());
-            // 新增目录监听
-            if (Objects.equals(fileMonitorConfigPo.getPathType(), PathTypeEnum.DIRECTORY.getCode())) {
-                addMonitorDirectory(path, fileMonitorConfigPo.getRecursives());
-                continue;
+        // 编译包含/排除规则索引
+        fileRuleRegistry.rebuild(enabledConfigs);
+
+        FileMonitorProperties.Startup startup = fileMonitorProperties.getStartup();
+        ParallelDirectoryWalker walker = null;
+        Collection<FileMonitorConfigPo> deferredConfigs = null;
+        if (startup.isParallelRegistration()) {
+            int parallelism = startup.getParallelism() > 0 ? startup.getParallelism() : Runtime.getRuntime().availableProcessors();
+            walker = new ParallelDirectoryWalker(parallelism);
+            deferredConfigs = new ConcurrentLinkedQueue<>();
+        }
+        List<RegistrationTiming> timings = new ArrayList<>();
+        try {
+            // 父目录先于子目录注册，已被父目录递归注册的子目录配置直接跳过
+            List<FileMonitorConfigPo> orderedConfigs = new ArrayList<>(enabledConfigs);
+            orderedConfigs.sort(Comparator.comparingInt(config -> config.getMonitorPath().length()));
+            // 启动每个配置的监听
+            for (FileMonitorConfigPo fileMonitorConfigPo : orderedConfigs) {
+                Path path = Paths.get(fileMonitorConfigPo.getMonitorPath());
+                // 新增目录监听
+                if (Objects.equals(fileMonitorConfigPo.getPathType(), PathTypeEnum.DIRECTORY.getCode())) {
+                    if (watchedDirectories.contains(path)) {
+                        continue;
+                    }
+                    RegistrationTiming timing = addMonitorDirectory(path, fileMonitorConfigPo.getRecursives(), walker, deferredConfigs);
+                    if (timing != null) {
+                        timings.add(timing);
+                    }
+                    continue;
+                }
+                // 新增文件监听
+                if (Objects.equals(fileMonitorConfigPo.getPathType(), PathTypeEnum.FILE.getCode())) {
+                    addMonitorFile(fileMonitorConfigPo.getMonitorPath(), fileMonitorConfigPo.getIncludePatterns(), fileMonitorConfigPo.getExcludePatterns());
+                    continue;
+                }
+                log.error("文件路径类型配置错误 : {} ", fileMonitorConfigPo.getMonitorPath());
+            }
+        } finally {
+            if (walker != null) {
+                walker.shutdown();
             }
-            // 新增文件监听
-            if (Objects.equals(fileMonitorConfigPo.getPathType(), PathTypeEnum.FILE.getCode())) {
-                addMonitorFile(fileMonitorConfigPo.getMonitorPath(), fileMonitorConfigPo.getIncludePatterns(), fileMonitorConfigPo.getExcludePatterns());
-                continue;
+        }
+
+        // 批量写入遍历期间暂存的目录配置
+        long persistMillis = 0;
+        if (deferredConfigs != null && !deferredConfigs.isEmpty()) {
+            long persistStart = System.nanoTime();
+            try {
+                fileMonitorConfigService.upsertBatch(new ArrayList<>(deferredConfigs), startup.getConfigBatchSize());
+            } catch (Exception e) {
+                log.error("批量写入目录监听配置失败, 条数: {}", deferredConfigs.size(), e);
             }
-            log.error("文件路径类型配置错误 : {} ", fileMonitorConfigPo.getMonitorPath());
+            persistMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - persistStart);
         }
+        registrationTimings = List.copyOf(timings);
+        timings.forEach(timing -> log.info("监听根目录注册完成: {}", timing));
+        log.info("监听注册完成, 目录数: {}, 配置写入: {} 条 {}ms, 总耗时: {}ms",
+                watchKeys.size(), deferredConfigs == null ? 0 : deferredConfigs.size(), persistMillis,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStart));
     }
 
 
@@ -65,26 +170,83 @@ public abstract class FileMonitorServiceBase {
      * 添加目录监听
      */
     protected void addMonitorDirectory(Path directory, boolean recursives) {
+        addMonitorDirectory(directory, recursives, null, null);
+    }
+
+    /**
+     * 添加目录监听
+     * @param walker          并行遍历器，为空时在当前线程递归注册
+     * @param deferredConfigs 暂存目录配置的集合，为空时逐个写入数据库
+     * @return 注册耗时，目录不存在或注册失败时返回null
+     */
+    protected RegistrationTiming addMonitorDirectory(Path directory, boolean recursives,
+                                                     ParallelDirectoryWalker walker, Collection<FileMonitorConfigPo> deferredConfigs) {
         try {
             if (!Files.exists(directory)) {
                 log.error("目录不存在: {}", directory);
-                return;
+                return null;
+            }
+            if (watchedDirectories.contains(directory)) {
+                // 已被上级目录的递归监听覆盖
+                return null;
+            }
+            // 先标记配置根目录，按配置根分片时子目录据此落到同一分片
+            watchedDirectories.markConfigRoot(directory);
+            long start = System.nanoTime();
+            long directories;
+            long failed = 0;
+            if (walker != null) {
+                ParallelDirectoryWalker.WalkResult result = walker.walk(directory, dir -> {
+                    DirectorySnapshot snapshot = registerSingleDirectory(dir, recursives, deferredConfigs);
+                    if (snapshot == null) {
+                        return null;
+                    }
+                    return recursives ? snapshot.subdirectories() : List.of();
+                });
+                directories = result.getVisited();
+                failed = result.getFailed();
+            } else {
+                directories = registerDirectory(directory, recursives);
             }
-            registerDirectory(directory, recursives);
 
             log.info("增加监听目录: {} (是否递归子目录: {})", directory, recursives);
+            return new RegistrationTiming(directory.toString(), directories, failed,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
         } catch (Exception e) {
             log.error("失败的添加目录监听: {}", directory, e);
+            return null;
         }
     }
 
     /**
      * 注册目录到WatchService
+     * @return 本次处理的目录数
      */
-    protected void registerDirectory(Path dir, boolean recursives) throws IOException {
+    protected int registerDirectory(Path dir, boolean recursives) throws IOException {
+        DirectorySnapshot snapshot = registerSingleDirectory(dir, recursives, null);
+        if (snapshot == null) {
+            return 0;
+        }
+        int registered = 1;
+        // 如果需要递归，注册所有子目录
+        if (recursives) {
+            for (Path subDir : snapshot.subdirectories()) {
+                registered += registerDirectory(subDir, true);
+            }
+        }
+        return registered;
+    }
+
+    /**
+     * 注册单个目录（不递归），可并发调用
+     * @param deferredConfigs 暂存目录配置的集合，为空时直接写入数据库
+     * @return 目录的子项快照，目录无效或已注册时返回null
+     */
+    protected DirectorySnapshot registerSingleDirectory(Path dir, boolean recursives,
+                                                        Collection<FileMonitorConfigPo> deferredConfigs) throws IOException {
         if (!Files.isDirectory(dir)) {
             log.error("传参路径必须为目录: {}", dir);
-            return;
+            return null;
         }
 
         // 原子操作：如果dir未在map中，则注册并缓存；否则直接返回已存在的key
@@ -92,42 +254,72 @@ public abstract class FileMonitorServiceBase {
         if (existingKey != null) {
             // 已注册，直接返回
             log.warn("目录已经注册: {}", dir);
-            return;
+            return null;
         }
 
         try {
             // 执行实际注册（此时已通过putIfAbsent确保唯一）
-            WatchKey key = dir.register(watchService,
-                    StandardWatchEventKinds.ENTRY_CREATE,
-                    StandardWatchEventKinds.ENTRY_DELETE,
-                    StandardWatchEventKinds.ENTRY_MODIFY);
+            WatchKey key = backendFor(dir).register(dir);
 
             // 替换临时值为真实WatchKey
             watchKeys.replace(dir, key);
-            log.info("注册目录: {}", dir);
-            // 保存配置到数据库（如果不存在）
-            saveOrUpdateConfig(dir.toString(),
-                    PathTypeEnum.DIRECTORY.getCode(),
-                    recursives, Boolean.TRUE,null,null);
+            watchedDirectories.put(dir, key);
+            if (fileMonitorMetrics.sampleEventLog(log.isDebugEnabled())) {
+                log.debug("注册目录: {}", dir);
+            }
+            // 保存配置到数据库（如果不存在），批量模式下暂存
+            if (deferredConfigs != null) {
+                deferredConfigs.add(buildConfig(dir.toString(), PathTypeEnum.DIRECTORY.getCode(),
+                        recursives, Boolean.TRUE, null, null));
+            } else {
+                saveOrUpdateConfig(dir.toString(),
+                        PathTypeEnum.DIRECTORY.getCode(),
+                        recursives, Boolean.TRUE, null, null);
+            }
         } catch (Exception e) {
             // 注册失败，移除临时占位
             watchKeys.remove(dir);
             throw e;
         }
 
-        // 如果需要递归，注册所有子目录
-        if (recursives) {
-            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
-                for (Path subDir : stream) {
-                    if (Files.isDirectory(subDir)) {
-                        registerDirectory(subDir, true);
-                    }
-                }
+        // 建立子项快照，递归时直接复用快照中的子目录
+        DirectorySnapshot snapshot = DirectorySnapshot.scan(dir);
+        directorySnapshots.put(snapshot);
+        return snapshot;
+    }
+
+
+    /**
+     * 选择目录的监听后端：目录或最近祖先配置的监听方式，均未配置时使用默认方式，inotify本地库不可用时退回NATIVE；
+     * 该方式有多个分片时，按目录路径哈希或所属配置根目录选择分片
+     */
+    protected WatchBackend backendFor(Path dir) {
+        WatchBackendEnum type = fileRuleRegistry.resolveWatchBackend(dir.toAbsolutePath());
+        if (type == null) {
+            type = WatchBackendEnum.of(fileMonitorProperties.getWatch().getDefaultBackend());
+        }
+        WatchShard[] shards = watchShards.get(type);
+        if (shards == null && type == WatchBackendEnum.INOTIFY) {
+            shards = watchShards.get(WatchBackendEnum.NATIVE);
+        }
+        if (shards == null) {
+            throw new IllegalStateException("监听方式未启动: " + type);
+        }
+        if (shards.length == 1) {
+            return shards[0].getBackend();
+        }
+        Path shardKey = dir;
+        if (SHARD_BY_ROOT.equalsIgnoreCase(fileMonitorProperties.getWatch().getShardStrategy())) {
+            Path root = watchedDirectories.findConfigRoot(dir);
+            if (root != null) {
+                shardKey = root;
             }
         }
+        int h = shardKey.hashCode();
+        h ^= (h >>> 16);
+        return shards[(h & 0x7fffffff) % shards.length].getBackend();
     }
 
-
     /**
      * 添加文件监听
      * @param path 文件路径
@@ -178,18 +370,17 @@ public abstract class FileMonitorServiceBase {
         // 确保文件所在目录已被监听
         if (!watchKeys.containsKey(parentDir)) {
             // 注册父目录，监听文件变化事件
-            WatchKey key = parentDir.register(watchService,
-                    StandardWatchEventKinds.ENTRY_CREATE,
-                    StandardWatchEventKinds.ENTRY_MODIFY,
-                    StandardWatchEventKinds.ENTRY_DELETE);
+            WatchKey key = backendFor(parentDir).register(parentDir);
             watchKeys.put(parentDir, key);
+            watchedDirectories.put(parentDir, key);
             log.info("注册父目录去监听文件变化: {}", parentDir);
+            directorySnapshots.put(DirectorySnapshot.scan(parentDir));
         }
 
         // 初始化文件位置信息（从文件末尾开始监听新内容）
-        long fileSize = Files.size(filePath);
-        filePositions.put(filePath, fileSize);
-        fileLastModified.put(filePath, getLastModifiedTime(filePath));
+        BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+        tailStates.track(filePath, TailStateIndex.keyOf(filePath, attributes.fileKey()), attributes.size(),
+                attributes.lastModifiedTime().toMillis());
     }
 
     /**
@@ -204,15 +395,22 @@ public abstract class FileMonitorServiceBase {
                 .select(FileMonitorConfigPo::getId)
                 .one();
         // 创建或更新数据库配置
-        FileMonitorConfigPo config = new FileMonitorConfigPo();
+        FileMonitorConfigPo config = buildConfig(path, pathType, recursives, enabled, includePatterns, excludePatterns);
         config.setId(fileMonitorConfigPo != null ? fileMonitorConfigPo.getId() : null);
+        fileMonitorConfigService.insertOrUpdate(config);
+        fileRuleRegistry.apply(config);
+    }
+
+    private FileMonitorConfigPo buildConfig(String path, String pathType,
+                                            boolean recursives, boolean enabled, String includePatterns, String excludePatterns) {
+        FileMonitorConfigPo config = new FileMonitorConfigPo();
         config.setMonitorPath(path);
         config.setPathType(pathType);
         config.setRecursives(recursives);
         config.setEnabled(enabled);
         config.setIncludePatterns(includePatterns);
         config.setExcludePatterns(excludePatterns);
-        fileMonitorConfigService.insertOrUpdate(config);
+        return config;
     }
 
     /**
@@ -223,22 +421,34 @@ public abstract class FileMonitorServiceBase {
                 .eq(FileMonitorConfigPo::getMonitorPath, path)
                 .set(FileMonitorConfigPo::getEnabled, enabled)
                 .update();
+        // 启用需从数据库取回完整模式；禁用不能按子树移除，否则子路径上仍启用的规则一并丢失，均按库重建
+        fileRuleRegistry.reload();
     }
 
 
     /**
-     * 异步保存操作日志到数据库
+     * 保存操作日志，提交到写入队列后由写入线程批量入库，并发布给事件订阅者
      */
-    @Async("dbWriterExecutor")
     protected void saveOperationLog(String filePath, String operationType, String content, String operator) {
+        saveOperationLog(filePath, operationType, null, content, operator);
+    }
+
+    /**
+     * 保存操作日志
+     * @param sourcePath 移动前的路径，非移动操作为null
+     */
+    protected void saveOperationLog(String filePath, String operationType, String sourcePath, String content, String operator) {
         try {
             FileOperationLogPo log = new FileOperationLogPo();
             log.setFilePath(filePath);
             log.setOperationType(operationType);
+            log.setSourcePath(sourcePath);
             log.setContent(content);
             log.setOperator(operator);
             log.setOperationTime(new Date());
-            fileOperationLogService.insert(log);
+            operationLogWriter.enqueue(log);
+            // 同时推送给实时订阅者
+            operationEventBus.publish(log);
         } catch (Exception e) {
             log.error("Failed to save operation log for {}:{}", filePath, operationType, e);
         }
@@ -253,51 +463,12 @@ public abstract class FileMonitorServiceBase {
     }
 
     /**
-     * 检查文件是否符合包含/排除模式
+     * 检查文件是否符合包含/排除模式（查内存规则索引，按最近的祖先配置判定）
      */
     protected boolean isFileIncluded(Path path) {
-        Path filePath = path.toAbsolutePath();
-        FileMonitorConfigPo fileMonitorConfigPo = fileMonitorConfigService.lambdaQuery()
-                .eq(FileMonitorConfigPo::getMonitorPath, filePath.toString())
-                .eq(FileMonitorConfigPo::getEnabled, Boolean.TRUE)
-                .select(FileMonitorConfigPo::getIncludePatterns, FileMonitorConfigPo::getExcludePatterns)
-                .one();
-        if (fileMonitorConfigPo == null) return true;
-        String includePatterns = fileMonitorConfigPo.getIncludePatterns();
-        String excludePatterns = fileMonitorConfigPo.getExcludePatterns();
-        String fileName = filePath.getFileName().toString();
-
-        // 处理排除模式
-        if (excludePatterns != null && !excludePatterns.isEmpty()) {
-            String[] excludePatternsArray = excludePatterns.split(",");
-            for (String pattern : excludePatternsArray) {
-                if (matchesPattern(fileName, pattern.trim())) {
-                    return false;
-                }
-            }
-        }
-
-        // 处理包含模式（默认全部包含）
-        if (includePatterns == null || includePatterns.isEmpty()) {
-            return true;
-        }
-
-        String[] includePatternsArray = includePatterns.split(",");
-        for (String pattern : includePatternsArray) {
-            if (matchesPattern(fileName, pattern.trim())) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * 检查文件名是否匹配模式（简单的通配符匹配）
-     */
-    private boolean matchesPattern(String fileName, String pattern) {
-        // 转换为正则表达式
-        String regex = pattern.replace(".", "\\.").replace("*", ".*").replace("?", ".");
-        return Pattern.matches(regex, fileName);
+        boolean included = fileRuleRegistry.isIncluded(path.toAbsolutePath());
+        fileMonitorMetrics.recordInclude(included);
+        return included;
     }
 
 
@@ -308,6 +479,17 @@ public abstract class FileMonitorServiceBase {
         return subDir.startsWith(root);
     }
 
+    /**
+     * 读取文件属性，文件不存在时返回null
+     */
+    protected BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
     /**
      * 获取上次修改时间
      */
@@ -356,6 +538,20 @@ public abstract class FileMonitorServiceBase {
      */
     abstract void handleFileChange(File file);
 
+    /**
+     * 处理目录移动事件
+     * @param source 移动前的目录
+     * @param target 移动后的目录
+     */
+    abstract void handleDirectoryMove(File source, File target);
+
+    /**
+     * 处理文件移动事件
+     * @param source 移动前的文件
+     * @param target 移动后的文件
+     */
+    abstract void handleFileMove(File source, File target);
+
 
 
 
@@ -3,45 +3,141 @@ package com.cjree.filelisten.service;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.toolkit.SimpleQuery;
 import com.cjree.core.common.utils.CoreObjectUtil;
+import com.cjree.filelisten.config.FileMonitorProperties;
 import com.cjree.filelisten.entity.FileMonitorConfigPo;
 import com.cjree.filelisten.enums.OperationTypeEnum;
+import com.cjree.filelisten.enums.OverloadPolicyEnum;
+import com.cjree.filelisten.enums.TailModeEnum;
+import com.cjree.filelisten.enums.WatchBackendEnum;
+import com.cjree.filelisten.event.EventCoalescer;
+import com.cjree.filelisten.event.EventSpillQueue;
+import com.cjree.filelisten.event.FileEvent;
+import com.cjree.filelisten.event.MovePairer;
+import com.cjree.filelisten.event.StripedExecutor;
+import com.cjree.filelisten.metrics.FileMonitorMetrics;
+import com.cjree.filelisten.tail.BlockDiff;
+import com.cjree.filelisten.tail.BlockSignature;
+import com.cjree.filelisten.tail.CheckpointStore;
+import com.cjree.filelisten.tail.LineAssembler;
+import com.cjree.filelisten.tail.TailStateIndex;
+import com.cjree.filelisten.watch.DirectorySnapshot;
+import com.cjree.filelisten.watch.InotifyWatchBackend;
+import com.cjree.filelisten.watch.NativeWatchBackend;
+import com.cjree.filelisten.watch.PollingWatchBackend;
+import com.cjree.filelisten.watch.WatchBackend;
+import com.cjree.filelisten.watch.WatchShard;
+import com.cjree.filelisten.watch.OverflowRescanner;
+import com.cjree.filelisten.watch.RegistrationTiming;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.MappedByteBuffer;
-import java.nio.channels.FileChannel;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
-import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class FileMonitorServiceImpl extends FileMonitorServiceBase implements FileMonitorService {
 
-    // 事件处理线程池
-    private final ExecutorService eventExecutor = Executors.newFixedThreadPool(
-            Runtime.getRuntime().availableProcessors() * 2);
+    // 事件处理线程池，按路径分道保证同一文件的事件串行有序
+    private StripedExecutor eventExecutor;
 
-    // 数据库写入线程池
-    private final ExecutorService dbWriterExecutor = Executors.newSingleThreadExecutor();
+    // 事件合并，去抖后提交到事件处理线程池
+    private EventCoalescer eventCoalescer;
+
+    // 处理通道满时的事件溢出队列（SPILL策略）
+    private EventSpillQueue spillQueue;
+
+    // 默认过载策略，配置表未指定时使用
+    private OverloadPolicyEnum defaultOverloadPolicy;
+
+    // 事件队列溢出后重扫目录，补发丢失的事件
+    private OverflowRescanner overflowRescanner;
+
+    // 删除和创建事件按fileKey配对为移动事件
+    private MovePairer movePairer;
 
     @Override
     public void startMonitoring() {
         try {
-            // 初始化WatchService
-            watchService = FileSystems.getDefault().newWatchService();
+            // 初始化监听后端：原生通知与定时轮询，目录按配置的监听方式选择
+            FileMonitorProperties.Watch watch = fileMonitorProperties.getWatch();
+            // 原生通知按分片创建多个WatchService，轮询方式自带调度线程只需一个实例
+            int shardCount = watch.getShards() > 0 ? watch.getShards() : Runtime.getRuntime().availableProcessors();
+            boolean nativeFollowsMoves = NativeWatchBackend.resolveFollowsMoves(watch.getNativeFollowsMoves());
+            log.info("原生通知监听{}跟随目录移动({})", nativeFollowsMoves ? "" : "不",
+                    watch.getNativeFollowsMoves() != null ? "配置指定" : "按操作系统 " + System.getProperty("os.name") + " 判断");
+            WatchShard[] nativeShards = new WatchShard[shardCount];
+            for (int i = 0; i < shardCount; i++) {
+                nativeShards[i] = new WatchShard(WatchBackendEnum.NATIVE + "-" + i,
+                        new NativeWatchBackend(FileSystems.getDefault(), nativeFollowsMoves));
+            }
+            watchShards.put(WatchBackendEnum.NATIVE, nativeShards);
+            watchShards.put(WatchBackendEnum.POLLING, new WatchShard[]{new WatchShard(WatchBackendEnum.POLLING + "-0",
+                    new PollingWatchBackend(watch.getPollMinIntervalMs(), watch.getPollMaxIntervalMs(), watch.getPollMaxStatsPerSecond()))});
+            // inotify直连需要本地库，不可用时配置为INOTIFY的目录退回NATIVE
+            if (InotifyWatchBackend.isAvailable(watch.getInotifyLibrary())) {
+                WatchShard[] inotifyShards = new WatchShard[shardCount];
+                for (int i = 0; i < shardCount; i++) {
+                    String name = WatchBackendEnum.INOTIFY + "-" + i;
+                    inotifyShards[i] = new WatchShard(name, new InotifyWatchBackend(watch.getInotifyBufferSize(),
+                            watch.getInotifyEvents(), "inotify-reader-" + i));
+                }
+                watchShards.put(WatchBackendEnum.INOTIFY, inotifyShards);
+            } else {
+                log.warn("inotify本地库不可用(需 mvn -Pinotify 构建或配置 file-monitor.watch.inotify-library), 配置为INOTIFY的目录退回NATIVE");
+            }
+            // 初始化事件处理线程池，通道有界，满后按过载策略处理
+            FileMonitorProperties.Executor executor = fileMonitorProperties.getExecutor();
+            int lanes = executor.getLanes();
+            eventExecutor = new StripedExecutor(lanes > 0 ? lanes : Runtime.getRuntime().availableProcessors() * 2,
+                    executor.getQueueCapacity(), "event-lane-");
+            eventExecutor.start();
+            OverloadPolicyEnum policy = OverloadPolicyEnum.of(executor.getOverloadPolicy());
+            defaultOverloadPolicy = policy != null ? policy : OverloadPolicyEnum.BLOCK;
+            spillQueue = new EventSpillQueue(Paths.get(executor.getSpillFile()), executor.getSpillMaxBytes(),
+                    event -> eventExecutor.tryExecute(event.getPath(), eventTask(event)));
+            spillQueue.start();
+            // 初始化事件合并
+            FileMonitorProperties.Coalesce coalesce = fileMonitorProperties.getCoalesce();
+            eventCoalescer = new EventCoalescer(coalesce.isEnabled() ? coalesce.getQuietWindowMs() : 0,
+                    coalesce.getMaxDelayMs(), coalesce.getMaxPending(), this::submitEvent);
+            eventCoalescer.start();
+            // 初始化移动事件配对，配对后的事件进入合并
+            FileMonitorProperties.Move move = fileMonitorProperties.getMove();
+            // 不提供移动cookie的后端按目录快照中删除前的fileKey、大小和修改时间配对
+            movePairer = new MovePairer(move.isEnabled() ? move.getWindowMs() : 0, directorySnapshots::lookup, eventCoalescer::offer);
+            movePairer.start();
+            // 初始化溢出重扫，补发的事件同样经过合并
+            FileMonitorProperties.Rescan rescan = fileMonitorProperties.getRescan();
+            overflowRescanner = new OverflowRescanner(directorySnapshots, rescan.getParallelism(),
+                    rescan.getMinIntervalMs(), eventCoalescer::offer);
+            overflowRescanner.start();
+            registerGauges();
             // 从数据库加载启用的监听配置
             loadAndStartMonitors();
-            // 启动监听线程
-            startWatchThread();
+            // 从检查点恢复读取位置，补读停机期间写入的内容
+            resumeFromCheckpoints();
+            // 读取位置恢复后再启动监听线程：注册期间产生的事件暂存在各监听后端，
+            // 先处理会按0或当前大小建立读取状态，随后被检查点覆盖，导致重复读取或漏读
+            for (WatchShard[] shards : watchShards.values()) {
+                for (WatchShard shard : shards) {
+                    startWatchThread(shard);
+                }
+            }
+            ready = true;
             log.info("文件监听启动成功");
         } catch (IOException e) {
             log.error("启动监听服务失败", e);
@@ -50,29 +146,204 @@ public class FileMonitorServiceImpl extends FileMonitorServiceBase implements Fi
     }
 
     /**
-     * 启动WatchService监听线程
+     * 注册队列深度和缓存条目数指标，线程池在重启监听时重建，按当前实例取值
+     */
+    private void registerGauges() {
+        fileMonitorMetrics.gauge("executor.queue.depth", "事件处理通道排队任务总数",
+                this, service -> service.eventExecutor == null ? 0 : service.eventExecutor.getTotalQueueDepth());
+        fileMonitorMetrics.gauge("executor.queue.max.depth", "最繁忙事件处理通道的排队任务数",
+                this, service -> service.eventExecutor == null ? 0 : service.eventExecutor.getMaxQueueDepth());
+        fileMonitorMetrics.gauge("executor.rejected", "处理通道已满的提交次数",
+                this, service -> service.eventExecutor == null ? 0 : service.eventExecutor.getRejectedCount());
+        fileMonitorMetrics.gauge("executor.blocked", "处理通道已满而阻塞等待的提交次数",
+                this, service -> service.eventExecutor == null ? 0 : service.eventExecutor.getBlockedCount());
+        fileMonitorMetrics.gauge("coalesce.pending", "事件合并暂存的路径数",
+                this, service -> service.eventCoalescer == null ? 0 : service.eventCoalescer.getPendingCount());
+        fileMonitorMetrics.gauge("spill.pending.bytes", "溢出队列未读回的字节数",
+                this, service -> service.spillQueue == null ? 0 : service.spillQueue.getPendingBytes());
+        fileMonitorMetrics.gauge("move.held", "等待配对的删除事件数",
+                this, service -> service.movePairer == null ? 0 : service.movePairer.getHeldCount());
+        fileMonitorMetrics.gauge("move.paired", "配对为移动的事件数",
+                this, service -> service.movePairer == null ? 0 : service.movePairer.getPairedCount());
+        fileMonitorMetrics.gauge("watch.keys", "已注册监听的目录数", watchKeys, Map::size);
+        fileMonitorMetrics.gauge("tail.positions", "记录读取位置的文件数", tailStates, TailStateIndex::size);
+        fileMonitorMetrics.gauge("tail.diff.signature.bytes", "块差异模式签名占用的字节数", blockSignatures,
+                signatures -> signatures.values().stream().mapToLong(BlockSignature::memoryBytes).sum());
+    }
+
+    /**
+     * 合并后的事件提交到处理通道，通道满时按路径所属配置的过载策略处理：
+     * BLOCK阻塞监听线程；COALESCE退回合并；DROP_MODIFY丢弃修改事件，新增/删除仍阻塞提交；SPILL溢出到磁盘。
+     * 丢弃的事件计数并触发所在目录重扫，由目录快照比对补发
+     */
+    private void submitEvent(FileEvent event) {
+        OverloadPolicyEnum policy = fileRuleRegistry.resolveOverloadPolicy(event.getPath());
+        if (policy == null) {
+            policy = defaultOverloadPolicy;
+        }
+        try {
+            // 已有事件溢出时后续事件也进入溢出队列，保持同一路径的事件顺序
+            if (policy == OverloadPolicyEnum.SPILL && spillQueue.hasPending()) {
+                spill(event);
+                return;
+            }
+            if (eventExecutor.tryExecute(event.getPath(), eventTask(event))) {
+                return;
+            }
+            switch (policy) {
+                case COALESCE:
+                    if (!eventCoalescer.defer(event)) {
+                        eventExecutor.execute(event.getPath(), eventTask(event));
+                    }
+                    break;
+                case DROP_MODIFY:
+                    if (event.getKind() == StandardWatchEventKinds.ENTRY_MODIFY) {
+                        dropEvent(event, policy);
+                    } else {
+                        eventExecutor.execute(event.getPath(), eventTask(event));
+                    }
+                    break;
+                case SPILL:
+                    spill(event);
+                    break;
+                default:
+                    eventExecutor.execute(event.getPath(), eventTask(event));
+                    break;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropEvent(event, policy);
+        } catch (RejectedExecutionException e) {
+            log.debug("事件处理线程池已关闭, 忽略事件: {}", event);
+        }
+    }
+
+    private void spill(FileEvent event) {
+        if (!spillQueue.offer(event)) {
+            dropEvent(event, OverloadPolicyEnum.SPILL);
+        }
+    }
+
+    /**
+     * 丢弃事件：计数并请求重扫所在目录
+     */
+    private void dropEvent(FileEvent event, OverloadPolicyEnum policy) {
+        fileMonitorMetrics.recordEventDropped(policy, event.getKind());
+        if (fileMonitorMetrics.sampleEventLog(log.isWarnEnabled())) {
+            log.warn("处理通道已满, 按 {} 策略丢弃事件: {}", policy, event);
+        }
+        overflowRescanner.requestRescan(event.getDir());
+    }
+
+    /**
+     * 事件处理任务，记录排队时间和处理耗时
+     */
+    private Runnable eventTask(FileEvent event) {
+        long submitted = System.nanoTime();
+        return () -> {
+            long start = System.nanoTime();
+            fileMonitorMetrics.recordEventQueueWait(start - submitted);
+            try {
+                handleEvent(event);
+            } finally {
+                fileMonitorMetrics.recordEventHandle(System.nanoTime() - start);
+            }
+        };
+    }
+
+    /**
+     * 从检查点恢复已监听文件的读取位置
+     * 同一文件从记录的位置继续读取，文件已被替换则从头读取，有新内容的文件补发一次修改事件
+     */
+    private void resumeFromCheckpoints() {
+        int resumed = 0;
+        for (CheckpointStore.Checkpoint checkpoint : checkpointStore.snapshot()) {
+            Path path = Paths.get(checkpoint.getPath());
+            Path dir = path.getParent();
+            if (dir == null || !watchKeys.containsKey(dir) || !isFileIncluded(path)) {
+                continue;
+            }
+            BasicFileAttributes attributes = readAttributes(path);
+            if (attributes == null || !attributes.isRegularFile()) {
+                checkpointStore.remove(path);
+                continue;
+            }
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            Object key = TailStateIndex.keyOf(path, attributes.fileKey());
+            if (checkpoint.isSameFile(attributes.fileKey()) && checkpoint.getOffset() <= attributes.size()) {
+                boolean unchanged = checkpoint.getOffset() == attributes.size() && checkpoint.getLastModified() == lastModified;
+                tailStates.track(path, key, checkpoint.getOffset(),
+                        unchanged ? lastModified : TailStateIndex.TailState.UNKNOWN_MODIFIED);
+                if (unchanged) {
+                    continue;
+                }
+            } else {
+                // 停机期间被轮转：按记录的inode找到重命名后的文件读完，当前文件从头读取
+                if (checkpoint.getFileKey() != null && !checkpoint.isSameFile(attributes.fileKey())) {
+                    drainRotatedCheckpoint(path, checkpoint);
+                }
+                tailStates.track(path, key, 0L, TailStateIndex.TailState.UNKNOWN_MODIFIED);
+            }
+            eventCoalescer.offer(new FileEvent(dir, path, StandardWatchEventKinds.ENTRY_MODIFY));
+            resumed++;
+        }
+        log.info("从检查点恢复读取位置, 需补读的文件数: {}", resumed);
+    }
+
+    /**
+     * 停机期间被轮转的文件：在同一目录中查找检查点记录的inode（按字符串形式比对），从记录的位置读完
+     */
+    private void drainRotatedCheckpoint(Path path, CheckpointStore.Checkpoint checkpoint) {
+        Path dir = path.getParent();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path entry : entries) {
+                BasicFileAttributes attributes = readAttributes(entry);
+                if (attributes == null || !attributes.isRegularFile() || !checkpoint.isSameFile(attributes.fileKey())
+                        || attributes.fileKey() == null || entry.equals(path)) {
+                    continue;
+                }
+                TailStateIndex.TailState state = tailStates.track(entry, attributes.fileKey(), checkpoint.getOffset(),
+                        TailStateIndex.TailState.UNKNOWN_MODIFIED);
+                tailStates.move(state, path);
+                drainRotated(path, state);
+                return;
+            }
+        } catch (IOException e) {
+            log.warn("查找已轮转文件失败: {}", dir, e);
+        }
+    }
+
+    /**
+     * 启动监听分片的事件分发线程
      */
-    private void startWatchThread() {
+    private void startWatchThread(WatchShard shard) {
+        WatchBackend backend = shard.getBackend();
+        boolean moveCookies = backend.reportsMoveCookies();
+        FileMonitorMetrics.EventCounters eventCounters = fileMonitorMetrics.eventCounters(backend.getType().name(), shard.getName());
         Thread watchThread = new Thread(() -> {
             try {
                 while (!Thread.currentThread().isInterrupted()) {
-                    // 获取事件（阻塞操作）,尝试获取一个表示文件系统变化的WatchKey,watchService内部维护了LinkedBlockingDeque
-                    WatchKey key = watchService.poll(1, TimeUnit.SECONDS);
+                    // 获取事件（阻塞操作）,尝试获取一个表示文件系统变化的WatchKey,监听后端内部维护了阻塞队列
+                    WatchKey key = backend.poll(1, TimeUnit.SECONDS);
                     if (key == null) {
                         continue;
                     }
+                    long dispatchStart = System.nanoTime();
 
-                    // 获取关联的路径
-                    Path dir = (Path) key.watchable();
+                    // 获取关联的路径，目录被移动过时取移动后的路径
+                    Path dir = movedKeyDirs.getOrDefault(key, (Path) key.watchable());
                     if (dir == null) {
                         continue;
                     }
 
                     // 处理所有事件
-                    for (WatchEvent<?> event : key.pollEvents()) {
+                    List<WatchEvent<?>> events = key.pollEvents();
+                    for (WatchEvent<?> event : events) {
                         WatchEvent.Kind<?> kind = event.kind();
-                        // 忽略溢出事件
+                        eventCounters.record(kind);
+                        // 事件队列溢出，期间的事件已丢失，重扫目录补发
                         if (kind == StandardWatchEventKinds.OVERFLOW) {
+                            overflowRescanner.requestRescan(dir);
                             continue;
                         }
                         // 获取事件关联的文件/目录
@@ -80,8 +351,9 @@ public class FileMonitorServiceImpl extends FileMonitorServiceBase implements Fi
                         Path fileName = pathEvent.context();
                         Path fullPath = dir.resolve(fileName);
 
-                        // 提交事件到线程池处理
-                        eventExecutor.submit(() -> handleEvent(dir, fullPath, kind));
+                        // 提交事件到移动配对和合并阶段，合并后再交由线程池处理
+                        movePairer.offer(new FileEvent(dir, fullPath, kind),
+                                moveCookies ? WatchBackend.moveCookie(event) : MovePairer.NO_COOKIE);
                     }
 
                     // 重置key，以便继续接收事件
@@ -89,15 +361,20 @@ public class FileMonitorServiceImpl extends FileMonitorServiceBase implements Fi
                     if (!valid) {
                         // key无效，说明目录已被删除，移除监听
                         watchKeys.remove(dir);
+                        watchedDirectories.remove(dir);
+                        movedKeyDirs.remove(key);
+                        directorySnapshots.remove(dir);
+                        overflowRescanner.forget(dir);
                         log.info("目录已被已删除, 移除监听: {}", dir);
                     }
+                    shard.record(events.size(), System.nanoTime() - dispatchStart);
                 }
             } catch (Exception e) {
                 if (!(e instanceof InterruptedException)) {
                     log.error("Error in watch thread", e);
                 }
             }
-        }, "FileWatchThread");
+        }, "FileWatchThread-" + shard.getName());
         // 设置为守护线程，主程序退出时自动终止
         watchThread.setDaemon(true);
         watchThread.start();
@@ -106,10 +383,17 @@ public class FileMonitorServiceImpl extends FileMonitorServiceBase implements Fi
     /**
      * 处理监听到的事件
      */
-    private void handleEvent(Path dir, Path fullPath, WatchEvent.Kind<?> kind) {
+    private void handleEvent(FileEvent event) {
+        Path dir = event.getDir();
+        Path fullPath = event.getPath();
+        WatchEvent.Kind<?> kind = event.getKind();
         try {
+            // 移动事件：目录移动迁移监听和读取状态，不重新遍历
+            if (event.isMove()) {
+                handleMove(event.getSourcePath(), fullPath);
+            }
             // 目录创建事件：如果需要递归监听，注册新目录
-            if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
+            else if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
                 if (Files.isDirectory(fullPath)) {
                     registerDirectory(fullPath, true);
                     handleDirectoryCreate(fullPath.toFile());
@@ -117,34 +401,34 @@ public class FileMonitorServiceImpl extends FileMonitorServiceBase implements Fi
                     // 文件创建事件
                     if (isFileIncluded(fullPath)) {
                         handleFileCreate(fullPath.toFile());
+                        // 合并过修改事件，读取已写入的内容
+                        if (event.isContentChanged()) {
+                            handleFileChange(fullPath.toFile());
+                        }
                     }
                 }
             }
-            // 文件/目录删除事件
+            // 文件/目录删除事件，路径已不存在，按快照和监听记录判断是否为目录
             else if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
-                if (Files.isDirectory(fullPath)) {
+                DirectorySnapshot.EntryState previous = directorySnapshots.lookup(fullPath);
+                if (watchedDirectories.contains(fullPath) || (previous != null && previous.isDirectory())) {
                     handleDirectoryDelete(fullPath.toFile());
-                    // 从监听中移除目录
-                    WatchKey key = watchKeys.remove(fullPath);
-                    if (key != null) {
-                        key.cancel();
-                    }
+                    // 从监听中移除目录及其子目录
+                    unwatchSubtree(fullPath);
                 } else {
                     if (isFileIncluded(fullPath)) {
+                        // 记录删除，被轮转重命名的文件先读完再清理读取状态
                         handleFileDelete(fullPath.toFile());
-                        // 清理缓存
-                        fileLastModified.remove(fullPath);
-                        filePositions.remove(fullPath);
                     }
                 }
             }
             // 文件修改事件
             else if (kind == StandardWatchEventKinds.ENTRY_MODIFY) {
                 if (Files.isDirectory(fullPath)) {
-                    // 移除旧目录的监听
-                    removeMonitorDirectory(dir.toString());
-                    // 新增新目录监听
-                    registerDirectory(fullPath, true);
+                    // 子目录内容变化也会触发目录修改事件，已监听的目录无需重新注册
+                    if (!watchedDirectories.contains(fullPath)) {
+                        registerDirectory(fullPath, true);
+                    }
                     handleDirectoryModify(fullPath.toFile());
                 } else {
                     // 文件创建事件
@@ -155,6 +439,12 @@ public class FileMonitorServiceImpl extends FileMonitorServiceBase implements Fi
             }
         } catch (Exception e) {
             log.error("Error handling event for path: {}", fullPath, e);
+        } finally {
+            // 同步父目录快照
+            directorySnapshots.refresh(fullPath);
+            if (event.isMove()) {
+                directorySnapshots.refresh(event.getSourcePath());
+            }
         }
     }
 
@@ -162,21 +452,44 @@ public class FileMonitorServiceImpl extends FileMonitorServiceBase implements Fi
     @Override
     public void stopMonitoring() {
         try {
-            // 关闭线程池
-            eventExecutor.shutdown();
-            dbWriterExecutor.shutdown();
-            eventExecutor.awaitTermination(5, TimeUnit.SECONDS);
-            dbWriterExecutor.awaitTermination(5, TimeUnit.SECONDS);
+            // 下发暂存事件后关闭线程池
+            if (overflowRescanner != null) {
+                overflowRescanner.stop();
+            }
+            if (movePairer != null) {
+                movePairer.stop();
+            }
+            if (eventCoalescer != null) {
+                eventCoalescer.stop();
+            }
+            if (spillQueue != null) {
+                spillQueue.stop();
+            }
+            if (eventExecutor != null) {
+                log.info("事件处理通道统计 已满拒绝: {}, 阻塞等待: {}, 丢弃: {}", eventExecutor.getRejectedCount(),
+                        eventExecutor.getBlockedCount(), fileMonitorMetrics.getDroppedCount());
+                eventExecutor.shutdown();
+                eventExecutor.awaitTermination(5, TimeUnit.SECONDS);
+            }
 
-            // 关闭WatchService
-            if (watchService != null) {
-                watchService.close();
+            // 关闭监听后端
+            for (WatchShard[] shards : watchShards.values()) {
+                for (WatchShard shard : shards) {
+                    log.info("监听分片统计 {}", shard);
+                    shard.getBackend().close();
+                }
             }
+            watchShards.clear();
 
             // 清理资源
+            ready = false;
             watchKeys.clear();
-            fileLastModified.clear();
-            filePositions.clear();
+            watchedDirectories.clear();
+            movedKeyDirs.clear();
+            tailStates.clear();
+            lineAssemblers.clear();
+            blockSignatures.clear();
+            directorySnapshots.clear();
 
             log.info("NIO file monitor service stopped successfully");
         } catch (Exception e) {
@@ -184,6 +497,25 @@ public class FileMonitorServiceImpl extends FileMonitorServiceBase implements Fi
         }
     }
 
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public List<RegistrationTiming> getRegistrationTimings() {
+        return registrationTimings;
+    }
+
+    @Override
+    public List<WatchShard> getWatchShards() {
+        List<WatchShard> shards = new ArrayList<>();
+        for (WatchShard[] value : watchShards.values()) {
+            shards.addAll(Arrays.asList(value));
+        }
+        return shards;
+    }
+
     @Override
     public void addMonitorDirectory(String directory) {
         addMonitorDirectory(Paths.get(directory), true);
@@ -193,100 +525,463 @@ public class FileMonitorServiceImpl extends FileMonitorServiceBase implements Fi
     public void removeMonitorDirectory(String directory) {
         Path dir = Paths.get(directory);
         // 取消所有子目录的监听
-        Set<Path> toRemove = watchKeys.keySet().stream()
-                .filter(path -> isSubdirectory(dir, path))
-                .collect(Collectors.toSet());
-
-        toRemove.forEach(path -> {
-            WatchKey key = watchKeys.remove(path);
-            if (key != null) {
-                key.cancel();
-            }
-        });
-        // 更新数据库配置
+        unwatchSubtree(dir);
+        // 更新数据库配置，按目录本身及"目录+分隔符"前缀匹配，避免误删同名前缀的兄弟目录
         List<Long> ids = SimpleQuery.list(
                 Wrappers.lambdaQuery(FileMonitorConfigPo.class)
-                        .likeRight(FileMonitorConfigPo::getMonitorPath, directory),
+                        .and(wrapper -> wrapper.eq(FileMonitorConfigPo::getMonitorPath, directory)
+                                .or()
+                                .likeRight(FileMonitorConfigPo::getMonitorPath, dir + File.separator)),
                 FileMonitorConfigPo::getId
         );
         fileMonitorConfigService.logicDeleteBatch(ids);
+        fileRuleRegistry.remove(dir);
         log.info("移除监听目录及子目录: {}", directory);
     }
 
+    /**
+     * 从前缀树摘除目录子树，同步取消WatchKey并清理快照
+     */
+    private void unwatchSubtree(Path dir) {
+        for (Map.Entry<Path, WatchKey> entry : watchedDirectories.removeSubtree(dir)) {
+            Path path = entry.getKey();
+            watchKeys.remove(path);
+            movedKeyDirs.remove(entry.getValue());
+            entry.getValue().cancel();
+            directorySnapshots.remove(path);
+            if (overflowRescanner != null) {
+                overflowRescanner.forget(path);
+            }
+        }
+    }
+
+    /**
+     * 处理配对得到的移动事件
+     */
+    private void handleMove(Path source, Path target) throws IOException {
+        if (Files.isDirectory(target, LinkOption.NOFOLLOW_LINKS)) {
+            relocateDirectory(source, target);
+            handleDirectoryMove(source.toFile(), target.toFile());
+        } else if (isFileIncluded(source) || isFileIncluded(target)) {
+            handleFileMove(source.toFile(), target.toFile());
+        }
+    }
+
+    /**
+     * 目录被移动：监听跟随inode的后端直接把子树的WatchKey、快照、读取状态和配置改到新路径；
+     * 按路径监听的后端（轮询）取消原子树后在新路径重新注册
+     */
+    private void relocateDirectory(Path source, Path target) throws IOException {
+        if (!watchedDirectories.contains(source)) {
+            registerDirectory(target, true);
+            return;
+        }
+        if (!backendFor(source).followsMoves()) {
+            unwatchSubtree(source);
+            registerDirectory(target, true);
+            return;
+        }
+        List<Map.Entry<Path, WatchKey>> moved = watchedDirectories.moveSubtree(source, target);
+        for (Map.Entry<Path, WatchKey> entry : moved) {
+            Path previous = entry.getKey();
+            Path current = target.resolve(source.relativize(previous));
+            WatchKey key = entry.getValue();
+            watchKeys.remove(previous, key);
+            watchKeys.put(current, key);
+            movedKeyDirs.put(key, current);
+            DirectorySnapshot snapshot = directorySnapshots.remove(previous);
+            if (snapshot != null) {
+                directorySnapshots.put(snapshot.relocate(current));
+            }
+            overflowRescanner.forget(previous);
+        }
+        for (TailStateIndex.TailState state : tailStates.under(source)) {
+            synchronized (state) {
+                Path previous = state.getPath();
+                if (previous.startsWith(source)) {
+                    moveTailState(state, target.resolve(source.relativize(previous)));
+                }
+            }
+        }
+        // 子目录配置按前缀整体改写，规则索引随之重建
+        int relocated = fileMonitorConfigService.relocate(source.toString(), target.toString());
+        fileRuleRegistry.reload();
+        log.info("目录已移动: {} -> {}, 迁移监听目录: {}, 配置: {}", source, target, moved.size(), relocated);
+    }
+
     public void handleDirectoryCreate(File directory) {
-        log.info("目录创建: {}", directory.getAbsolutePath());
+        if (fileMonitorMetrics.sampleEventLog(log.isDebugEnabled())) {
+            log.debug("目录创建: {}", directory.getAbsolutePath());
+        }
         saveOperationLog(directory.getAbsolutePath(), OperationTypeEnum.DIRECTORY_CREATE.getCode(), null, getFileOperator());
     }
 
     public void handleDirectoryDelete(File directory) {
-        log.info("目录删除: {}", directory.getAbsolutePath());
+        if (fileMonitorMetrics.sampleEventLog(log.isDebugEnabled())) {
+            log.debug("目录删除: {}", directory.getAbsolutePath());
+        }
         saveOperationLog(directory.getAbsolutePath(),  OperationTypeEnum.DIRECTORY_DELETE.getCode(), null, getFileOperator());
     }
 
+    public void handleDirectoryMove(File source, File target) {
+        if (fileMonitorMetrics.sampleEventLog(log.isDebugEnabled())) {
+            log.debug("目录移动: {} -> {}", source.getAbsolutePath(), target.getAbsolutePath());
+        }
+        saveOperationLog(target.getAbsolutePath(), OperationTypeEnum.DIRECTORY_MOVE.getCode(), source.getAbsolutePath(),
+                null, getFileOperator());
+    }
+
     public void handleDirectoryModify(File directory) {
-        log.info("目录修改: {}", directory.getAbsolutePath());
+        if (fileMonitorMetrics.sampleEventLog(log.isDebugEnabled())) {
+            log.debug("目录修改: {}", directory.getAbsolutePath());
+        }
         saveOperationLog(directory.getAbsolutePath(),  OperationTypeEnum.DIRECTORY_MODIFY.getCode(), null, getFileOperator());
     }
 
     public void handleFileCreate(File file) {
-        log.info("文件创建: {}", file.getAbsolutePath());
+        if (fileMonitorMetrics.sampleEventLog(log.isDebugEnabled())) {
+            log.debug("文件创建: {}", file.getAbsolutePath());
+        }
         Path path = file.toPath();
-        filePositions.put(path, 0L);
-        fileLastModified.put(path, getLastModifiedTime(path));
         // 异步记录到数据库
         saveOperationLog(file.getAbsolutePath(), "CREATE", null, getFileOperator());
+        BasicFileAttributes attributes = readAttributes(path);
+        if (attributes != null && attributes.fileKey() != null) {
+            TailStateIndex.TailState existing = tailStates.get(attributes.fileKey());
+            if (existing != null) {
+                // 已跟踪的inode出现在新路径上：轮转重命名，读取状态随之迁移，读完重命名前写入的内容
+                synchronized (existing) {
+                    if (!existing.getPath().equals(path)) {
+                        moveTailState(existing, path);
+                    }
+                }
+                handleFileChange(file);
+                return;
+            }
+        }
+        // 同一路径上原来的文件尚未处理删除（事件被合并），先读完原文件
+        TailStateIndex.TailState previous = tailStates.getByPath(path);
+        if (previous != null) {
+            drainRotated(path, previous);
+        }
+        // 新文件从头读取，不记录修改时间，保证随后的修改事件能读到创建时写入的内容
+        tailStates.track(path, TailStateIndex.keyOf(path, attributes == null ? null : attributes.fileKey()),
+                0L, TailStateIndex.TailState.UNKNOWN_MODIFIED);
+        lineAssemblers.remove(path);
+        blockSignatures.remove(path);
     }
 
     public void handleFileDelete(File file) {
-        log.info("删除文件: {}", file.getAbsolutePath());
+        if (fileMonitorMetrics.sampleEventLog(log.isDebugEnabled())) {
+            log.debug("删除文件: {}", file.getAbsolutePath());
+        }
         saveOperationLog(file.getAbsolutePath(), "DELETE", null, getFileOperator());
+        Path path = file.toPath();
+        TailStateIndex.TailState state = tailStates.getByPath(path);
+        if (state != null) {
+            drainRotated(path, state);
+        } else {
+            lineAssemblers.remove(path);
+            blockSignatures.remove(path);
+            checkpointStore.remove(path);
+        }
+    }
+
+    /**
+     * 文件被移动：读取状态迁移到新路径并读完移动前写入的内容；新路径不在监听范围内时丢弃状态，
+     * 从未跟踪过的文件从当前末尾开始读取（已有内容不是新增）
+     */
+    public void handleFileMove(File source, File target) {
+        if (fileMonitorMetrics.sampleEventLog(log.isDebugEnabled())) {
+            log.debug("文件移动: {} -> {}", source.getAbsolutePath(), target.getAbsolutePath());
+        }
+        saveOperationLog(target.getAbsolutePath(), OperationTypeEnum.MOVE.getCode(), source.getAbsolutePath(),
+                null, getFileOperator());
+        Path sourcePath = source.toPath();
+        Path targetPath = target.toPath();
+        boolean included = isFileIncluded(targetPath);
+        TailStateIndex.TailState state = tailStates.getByPath(sourcePath);
+        // 覆盖了新路径上原有的文件
+        TailStateIndex.TailState replaced = tailStates.getByPath(targetPath);
+        if (replaced != null && replaced != state) {
+            synchronized (replaced) {
+                if (replaced.getPath().equals(targetPath)) {
+                    dropTailState(targetPath, replaced);
+                }
+            }
+        }
+        if (state != null) {
+            synchronized (state) {
+                if (state.getPath().equals(sourcePath)) {
+                    if (included) {
+                        moveTailState(state, targetPath);
+                    } else {
+                        dropTailState(sourcePath, state);
+                    }
+                }
+            }
+        } else if (included) {
+            BasicFileAttributes attributes = readAttributes(targetPath);
+            if (attributes != null && tailStates.getByPath(targetPath) == null) {
+                tailStates.track(targetPath, TailStateIndex.keyOf(targetPath, attributes.fileKey()), attributes.size(),
+                        attributes.lastModifiedTime().toMillis());
+            }
+        }
+        if (included) {
+            handleFileChange(target);
+        }
     }
 
     public void handleFileChange(File file) {
         Path path = file.toPath();
-        long lastModified = getLastModifiedTime(path);
-
-        // 去重：检查是否真的修改
-        if (fileLastModified.containsKey(path) &&
-                fileLastModified.get(path).equals(lastModified)) {
+        BasicFileAttributes attributes = readAttributes(path);
+        if (attributes == null) {
+            // 文件已被删除
             return;
         }
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        Object fileKey = attributes.fileKey();
+        TailStateIndex.TailState state = resolveTailState(path, fileKey);
+
+        synchronized (state) {
+            // 去重：检查是否真的修改
+            if (state.getLastModified() == lastModified) {
+                return;
+            }
+            state.setLastModified(lastModified);
 
-        fileLastModified.put(path, lastModified);
+            try {
+                long fileLength = attributes.size();
+                long position = state.getPosition();
 
-        try {
-            long fileLength = Files.size(path);
-            long position = filePositions.getOrDefault(path, 0L);
+                TailModeEnum tailMode = fileRuleRegistry.resolveTailMode(path.toAbsolutePath());
+
+                // 块差异模式：比对整个文件的变化区间，超过大小上限的文件退回追加读取
+                if (tailMode == TailModeEnum.DIFF) {
+                    if (fileLength <= fileMonitorProperties.getTail().getDiffMaxFileBytes()) {
+                        handleBlockDiff(file, state, fileLength, fileKey, lastModified);
+                        return;
+                    }
+                    blockSignatures.remove(path);
+                }
+
+                // 同一inode变小：文件被原地截断（copytruncate），从头开始读
+                if (position > fileLength) {
+                    log.info("文件被截断, 从头读取: {} ({} -> {} 字节)", path, position, fileLength);
+                    fileMonitorMetrics.recordTailTruncated();
+                    state.setPosition(0L);
+                    lineAssemblers.remove(path);
+                }
+
+                readAppended(path, path, state, fileLength, fileKey, lastModified, tailMode == TailModeEnum.LINE);
+            } catch (Exception e) {
+                log.error("Error handling file change: {}", file.getAbsolutePath(), e);
+            }
+        }
+    }
+
+    /**
+     * 取路径上当前文件的读取状态
+     * 路径上记录的inode与当前不同时，原文件已被轮转，先读完原文件；未跟踪过的文件从头读取
+     */
+    private TailStateIndex.TailState resolveTailState(Path path, Object fileKey) {
+        Object key = TailStateIndex.keyOf(path, fileKey);
+        Object previousKey = tailStates.keyOfPath(path);
+        if (previousKey != null && !previousKey.equals(key)) {
+            TailStateIndex.TailState previous = tailStates.get(previousKey);
+            if (previous != null) {
+                drainRotated(path, previous);
+            }
+        }
+        TailStateIndex.TailState state = tailStates.get(key);
+        if (state == null) {
+            lineAssemblers.remove(path);
+            blockSignatures.remove(path);
+            return tailStates.track(path, key, 0L, TailStateIndex.TailState.UNKNOWN_MODIFIED);
+        }
+        synchronized (state) {
+            if (!state.getPath().equals(path)) {
+                moveTailState(state, path);
+            }
+        }
+        return state;
+    }
 
-            // 文件被截断，从头开始读
-            if (position > fileLength) {
-                position = 0L;
+    /**
+     * 读取 [state.position, fileLength) 的新增内容，分块落库后推进读取位置
+     * @param readPath 实际读取的文件
+     * @param logPath  记录到操作日志的路径，读完已轮转的文件时为轮转前的路径
+     */
+    private void readAppended(Path readPath, Path logPath, TailStateIndex.TailState state, long fileLength, Object fileKey,
+                              long lastModified, boolean lineMode) throws IOException {
+        long position = state.getPosition();
+        if (position >= fileLength) {
+            return;
+        }
+        long readStart = System.nanoTime();
+        long readEnd;
+        String absolutePath = logPath.toFile().getAbsolutePath();
+        String operator = getFileOperator();
+        if (lineMode) {
+            // 按行模式：每个完整的行一条记录，未完成的行留待下次拼接
+            LineAssembler assembler = lineAssemblers.computeIfAbsent(logPath,
+                    p -> new LineAssembler(fileMonitorProperties.getTail().getMaxLineLength()));
+            readEnd = tailReader.readBytes(readPath, position, fileLength, (bytes, length, endPosition) -> {
+                assembler.feed(bytes, 0, length,
+                        line -> saveOperationLog(absolutePath, "MODIFY", line, operator));
+                state.setPosition(endPosition);
+                // 未完成的行不计入检查点，重启后重新读取
+                checkpointStore.update(logPath, fileKey, endPosition - assembler.pendingBytes(), lastModified);
+            });
+        } else {
+            readEnd = tailReader.read(readPath, position, fileLength, (content, endPosition) -> {
+                if (CoreObjectUtil.isNotEmpty(content)) {
+                    saveOperationLog(absolutePath, "MODIFY", content, operator);
+                }
+                state.setPosition(endPosition);
+                checkpointStore.update(logPath, fileKey, endPosition, lastModified);
+            });
+        }
+        fileMonitorMetrics.recordTailRead(readEnd - position, System.nanoTime() - readStart);
+    }
+
+    /**
+     * 路径上原来的文件已被轮转（重命名或删除）
+     * 在同一目录中按inode查找重命名后的文件，把上次位置之后的内容按原路径读完；
+     * 重命名后的文件仍在监听范围内时状态迁移过去继续跟踪，否则丢弃状态
+     */
+    private void drainRotated(Path path, TailStateIndex.TailState state) {
+        synchronized (state) {
+            if (!state.getPath().equals(path)) {
+                // 已由重命名后文件的创建事件迁移
+                return;
+            }
+            Path renamed = findByFileKey(path.getParent(), state.getKey());
+            boolean lineMode = fileRuleRegistry.resolveTailMode(path.toAbsolutePath()) == TailModeEnum.LINE;
+            if (renamed != null) {
+                BasicFileAttributes attributes = readAttributes(renamed);
+                if (attributes != null) {
+                    try {
+                        readAppended(renamed, path, state, attributes.size(), attributes.fileKey(),
+                                attributes.lastModifiedTime().toMillis(), lineMode);
+                        state.setLastModified(attributes.lastModifiedTime().toMillis());
+                        fileMonitorMetrics.recordTailRotated();
+                        log.info("文件已轮转: {} -> {}, 已读取到 {} 字节", path, renamed, state.getPosition());
+                    } catch (IOException e) {
+                        log.error("读取已轮转文件失败: {}", renamed, e);
+                    }
+                }
+                if (isFileIncluded(renamed)) {
+                    moveTailState(state, renamed);
+                    return;
+                }
             }
+            dropTailState(path, state);
+        }
+    }
+
+    /**
+     * 不再跟踪：未完成的行作为最后一行输出，清理读取状态、块签名和检查点
+     */
+    private void dropTailState(Path path, TailStateIndex.TailState state) {
+        LineAssembler assembler = lineAssemblers.remove(path);
+        if (assembler != null) {
+            String absolutePath = path.toFile().getAbsolutePath();
+            String operator = getFileOperator();
+            assembler.flush(line -> saveOperationLog(absolutePath, "MODIFY", line, operator));
+        }
+        tailStates.remove(state);
+        blockSignatures.remove(path);
+        checkpointStore.remove(path);
+    }
 
-            // 读取新增内容
-            if (position < fileLength) {
-                String newContent = readFileFromPosition(path, position, fileLength);
-                if (CoreObjectUtil.isNotEmpty(newContent)) {
-                    saveOperationLog(file.getAbsolutePath(), "MODIFY", newContent, getFileOperator());
+    /**
+     * 在目录中查找指定inode的文件，不支持fileKey的文件系统返回null
+     */
+    private Path findByFileKey(Path dir, Object fileKey) {
+        if (dir == null || fileKey instanceof Path) {
+            return null;
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path entry : entries) {
+                BasicFileAttributes attributes = readAttributes(entry);
+                if (attributes != null && attributes.isRegularFile() && fileKey.equals(attributes.fileKey())) {
+                    return entry;
                 }
-                filePositions.put(path, fileLength);
             }
-        } catch (Exception e) {
-            log.error("Error handling file change: {}", file.getAbsolutePath(), e);
+        } catch (IOException e) {
+            log.warn("查找已轮转文件失败: {}", dir, e);
         }
+        return null;
     }
 
+    /**
+     * inode重命名到新路径，读取状态、未完成的行、块签名和检查点随之迁移
+     */
+    private void moveTailState(TailStateIndex.TailState state, Path path) {
+        Path previous = state.getPath();
+        tailStates.move(state, path);
+        LineAssembler assembler = lineAssemblers.remove(previous);
+        if (assembler != null) {
+            lineAssemblers.put(path, assembler);
+        }
+        BlockSignature signature = blockSignatures.remove(previous);
+        if (signature != null) {
+            blockSignatures.put(path, signature);
+        }
+        checkpointStore.remove(previous);
+        checkpointStore.update(path, state.getKey(), state.getPosition(), state.getLastModified());
+    }
+
+    /**
+     * 块差异模式：与上次的块签名比对，每个新增/改动区间和删除区间各记录一条修改日志，
+     * 内容首行为区间头：新增为 @@ +新文件偏移,长度 @@，删除为 @@ -旧文件偏移,长度 @@；
+     * 新增内容不是完整的UTF-8文本（二进制内容或区间边界切断了多字节字符）时Base64编码，区间头为 @@ +偏移,长度 base64 @@。
+     * 没有签名时（新文件或重启后），读取位置之后的内容作为新增区间，同时建立签名
+     */
+    private void handleBlockDiff(File file, TailStateIndex.TailState state, long fileLength, Object fileKey, long lastModified) throws IOException {
+        Path path = file.toPath();
+        FileMonitorProperties.Tail tail = fileMonitorProperties.getTail();
+        BlockSignature previous = blockSignatures.get(path);
+        String absolutePath = file.getAbsolutePath();
+        String operator = getFileOperator();
+        // 没有签名时从检查点继续：之前的内容已记录过，之后追加的内容作为新增区间；文件比检查点短说明已被截断，整体作为新增
+        long insertFrom = previous == null && state.getPosition() <= fileLength ? state.getPosition() : 0;
+        BlockDiff.RangeHandler handler = new BlockDiff.RangeHandler() {
+            @Override
+            public void onInsert(long offset, byte[] bytes, int length) {
+                saveOperationLog(absolutePath, "MODIFY", insertRange(offset, bytes, length), operator);
+            }
+
+            @Override
+            public void onRemove(long offset, long length) {
+                saveOperationLog(absolutePath, "MODIFY", "@@ -" + offset + "," + length + " @@", operator);
+            }
+        };
+        long readStart = System.nanoTime();
+        int maxChunkBytes = (int) Math.min(tail.getMaxBytesPerEvent(), Math.max(fileLength, 1));
+        ByteBuffer buffer = tailReader.getBufferPool().acquire();
+        try {
+            blockSignatures.put(path, BlockDiff.diff(path, fileLength, previous, insertFrom, tail.getDiffBlockSize(),
+                    maxChunkBytes, buffer, handler));
+        } finally {
+            tailReader.getBufferPool().release(buffer);
+        }
+        lineAssemblers.remove(path);
+        state.setPosition(fileLength);
+        checkpointStore.update(path, fileKey, fileLength, lastModified);
+        fileMonitorMetrics.recordTailRead(fileLength, System.nanoTime() - readStart);
+    }
 
     /**
-     * 从指定位置读取文件内容（使用NIO提升性能）
+     * 新增区间的日志内容：区间头加内容，不是完整UTF-8文本的内容按Base64记录
      */
-    private String readFileFromPosition(Path path, long start, long end) throws IOException {
-        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
-            // 使用内存映射文件提升大文件读取性能
-            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
-            byte[] bytes = new byte[buffer.remaining()];
-            buffer.get(bytes);
-            return new String(bytes, StandardCharsets.UTF_8);
+    private static String insertRange(long offset, byte[] bytes, int length) {
+        String header = "@@ +" + offset + "," + length;
+        try {
+            return header + " @@\n" + StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(bytes, 0, length));
+        } catch (CharacterCodingException e) {
+            return header + " base64 @@\n" + Base64.getEncoder().encodeToString(Arrays.copyOf(bytes, length));
         }
     }
 
@@ -0,0 +1,34 @@
+package com.cjree.filelisten.service;
+
+import com.cjree.core.basic.base.BaseService;
+import com.cjree.filelisten.entity.FileOperationContentPo;
+import com.cjree.filelisten.entity.FileOperationLogPo;
+
+import java.util.List;
+import java.util.function.IntSupplier;
+
+
+public interface FileOperationContentService extends BaseService<FileOperationContentPo> {
+
+    /**
+     * 超过阈值的操作内容按摘要去重后压缩存入内容表，操作日志只记录摘要
+     * 内容回收与此互斥，确认存在的内容在日志写入前不会被回收
+     * @param logs       待写入的操作日志，写入内容表的日志会设置contentHash
+     * @param insertLogs 写入操作日志
+     * @return insertLogs的返回值
+     */
+    int store(List<FileOperationLogPo> logs, IntSupplier insertLogs);
+
+    /**
+     * 按摘要从内容表还原操作内容
+     * @param logs 从数据库读出的操作日志
+     */
+    void resolve(List<FileOperationLogPo> logs);
+
+    /**
+     * 删除不再被任何操作日志引用的内容（日志分区删除、修改日志汇总后遗留）
+     * @param batchSize 单批条数
+     * @return 删除的条数
+     */
+    long sweepUnreferenced(int batchSize);
+}
@@ -0,0 +1,198 @@
+package com.cjree.filelisten.service;
+
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.cjree.core.basic.base.AbstractService;
+import com.cjree.filelisten.config.FileMonitorProperties;
+import com.cjree.filelisten.content.ContentCodec;
+import com.cjree.filelisten.entity.FileOperationContentPo;
+import com.cjree.filelisten.entity.FileOperationLogPo;
+import com.cjree.filelisten.mapper.FileOperationContentMapper;
+import com.cjree.filelisten.metrics.FileMonitorMetrics;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntSupplier;
+
+@Service
+@Slf4j
+public class FileOperationContentServiceImpl extends AbstractService<FileOperationContentPo, FileOperationContentMapper> implements FileOperationContentService {
+    @Resource
+    private FileOperationContentMapper fileOperationContentMapper;
+    @Resource
+    private FileMonitorProperties fileMonitorProperties;
+    @Resource
+    private FileMonitorMetrics fileMonitorMetrics;
+
+    // 最近确认已入库的摘要，重复内容（心跳行等）不再查库
+    private Set<String> knownHashes;
+
+    // 写入（读锁）与内容回收（写锁）互斥：回收不能删除已确认存在、引用它的日志尚未写入的内容
+    private final ReadWriteLock referenceLock = new ReentrantReadWriteLock();
+
+    private synchronized Set<String> knownHashes() {
+        if (knownHashes == null) {
+            int capacity = fileMonitorProperties.getContent().getHashCacheSize();
+            knownHashes = Collections.synchronizedSet(Collections.newSetFromMap(new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > capacity;
+                }
+            }));
+        }
+        return knownHashes;
+    }
+
+    @Override
+    public int store(List<FileOperationLogPo> logs, IntSupplier insertLogs) {
+        long start = System.nanoTime();
+        referenceLock.readLock().lock();
+        try {
+            storeContent(logs);
+            fileMonitorMetrics.recordContentStore(System.nanoTime() - start);
+            return insertLogs.getAsInt();
+        } finally {
+            referenceLock.readLock().unlock();
+            fileMonitorMetrics.recordWriterInsert(System.nanoTime() - start);
+        }
+    }
+
+    private void storeContent(List<FileOperationLogPo> logs) {
+        FileMonitorProperties.Content properties = fileMonitorProperties.getContent();
+        long rawBytes = 0;
+        long storedBytes = 0;
+        Map<String, byte[]> candidates = new HashMap<>();
+        Set<String> known = knownHashes();
+        for (FileOperationLogPo operationLog : logs) {
+            String content = operationLog.getContent();
+            if (content == null) {
+                continue;
+            }
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            rawBytes += bytes.length;
+            if (!properties.isEnabled() || bytes.length < properties.getMinBytes()) {
+                operationLog.setContentHash(null);
+                storedBytes += bytes.length;
+                continue;
+            }
+            String hash = ContentCodec.hash(bytes);
+            operationLog.setContentHash(hash);
+            storedBytes += hash.length();
+            fileMonitorMetrics.recordContentHashed();
+            if (known.contains(hash)) {
+                fileMonitorMetrics.recordContentDedup();
+            } else if (candidates.putIfAbsent(hash, bytes) != null) {
+                fileMonitorMetrics.recordContentDedup();
+            }
+        }
+        if (!candidates.isEmpty()) {
+            storedBytes += insertMissing(candidates, properties);
+        }
+        fileMonitorMetrics.recordContent(rawBytes, storedBytes);
+    }
+
+    /**
+     * 压缩并写入库中尚不存在的内容
+     * @return 写入的字节数
+     */
+    private long insertMissing(Map<String, byte[]> candidates, FileMonitorProperties.Content properties) {
+        Set<String> known = knownHashes();
+        for (String existing : fileOperationContentMapper.selectExistingHashes(candidates.keySet())) {
+            candidates.remove(existing);
+            known.add(existing);
+            fileMonitorMetrics.recordContentDedup();
+        }
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        long written = 0;
+        List<FileOperationContentPo> contents = new ArrayList<>(candidates.size());
+        for (Map.Entry<String, byte[]> entry : candidates.entrySet()) {
+            byte[] raw = entry.getValue();
+            // 短内容deflate收益小于开销，只去重不压缩
+            byte[] compressed = raw.length < properties.getDeflateMinBytes() ? raw : ContentCodec.deflate(raw, properties.getLevel());
+            boolean deflated = compressed.length < raw.length;
+            FileOperationContentPo content = new FileOperationContentPo();
+            content.setId(IdWorker.getId());
+            content.setContentHash(entry.getKey());
+            content.setCodec(deflated ? ContentCodec.DEFLATE : ContentCodec.RAW);
+            content.setRawLength(raw.length);
+            content.setData(deflated ? compressed : raw);
+            contents.add(content);
+            written += content.getData().length;
+        }
+        fileOperationContentMapper.insertBatch(contents);
+        known.addAll(candidates.keySet());
+        return written;
+    }
+
+    @Override
+    public long sweepUnreferenced(int batchSize) {
+        long deleted = 0;
+        long afterId = 0;
+        while (true) {
+            List<FileOperationContentPo> batch = fileOperationContentMapper.selectUnreferenced(afterId, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<Long> ids = new ArrayList<>(batch.size());
+            List<String> hashes = new ArrayList<>(batch.size());
+            for (FileOperationContentPo content : batch) {
+                ids.add(content.getId());
+                hashes.add(content.getContentHash());
+            }
+            afterId = ids.get(ids.size() - 1);
+            referenceLock.writeLock().lock();
+            try {
+                // 删除时再次确认未被引用，期间写入的日志可能已引用
+                deleted += fileOperationContentMapper.deleteUnreferenced(ids);
+                // 移出缓存，之后再出现的相同内容重新写入内容表
+                knownHashes().removeAll(hashes);
+            } finally {
+                referenceLock.writeLock().unlock();
+            }
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public void resolve(List<FileOperationLogPo> logs) {
+        Set<String> hashes = new HashSet<>();
+        for (FileOperationLogPo operationLog : logs) {
+            if (operationLog.getContent() == null && operationLog.getContentHash() != null) {
+                hashes.add(operationLog.getContentHash());
+            }
+        }
+        if (hashes.isEmpty()) {
+            return;
+        }
+        Map<String, String> contents = new HashMap<>(hashes.size() * 2);
+        for (FileOperationContentPo content : fileOperationContentMapper.selectByHashes(hashes)) {
+            byte[] raw = ContentCodec.decode(content.getCodec(), content.getData(), content.getRawLength());
+            contents.put(content.getContentHash(), new String(raw, StandardCharsets.UTF_8));
+        }
+        for (FileOperationLogPo operationLog : logs) {
+            if (operationLog.getContent() == null && operationLog.getContentHash() != null) {
+                String content = contents.get(operationLog.getContentHash());
+                if (content == null) {
+                    log.warn("操作内容缺失, 摘要: {}", operationLog.getContentHash());
+                }
+                operationLog.setContent(content);
+            }
+        }
+    }
+}
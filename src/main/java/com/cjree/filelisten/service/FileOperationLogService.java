@@ -1,9 +1,50 @@
 package com.cjree.filelisten.service;
 
 import com.cjree.core.basic.base.BaseService;
+import com.cjree.filelisten.dto.FileOperationLogPage;
+import com.cjree.filelisten.dto.FileOperationLogQuery;
 import com.cjree.filelisten.entity.FileOperationLogPo;
 
+import java.util.List;
+import java.util.function.Consumer;
+
 
 public interface FileOperationLogService extends BaseService<FileOperationLogPo> {
 
+    /**
+     * 多行批量插入操作日志
+     * @param logs 操作日志
+     * @return 插入条数
+     */
+    int insertBatch(List<FileOperationLogPo> logs);
+
+    /**
+     * 多行批量插入操作日志，已存在的ID跳过，用于预写日志的重复回放
+     * @param logs 操作日志，ID已分配
+     * @return 插入条数
+     */
+    int insertBatchIdempotent(List<FileOperationLogPo> logs);
+
+    /**
+     * 还原存入内容表的操作内容，查询操作日志后调用
+     * @param logs 操作日志
+     * @return 传入的操作日志
+     */
+    List<FileOperationLogPo> resolveContent(List<FileOperationLogPo> logs);
+
+    /**
+     * 按条件键集分页查询操作日志，内容已还原
+     * @param query 查询条件，afterTime/afterId为上一页的游标
+     * @return 本页日志和下一页游标
+     */
+    FileOperationLogPage queryPage(FileOperationLogQuery query);
+
+    /**
+     * 按条件流式导出操作日志，逐批还原内容后回调，内存只占用一批
+     * 每个导出占用两个数据库连接（流式结果集和还原内容），同时进行的导出数受max-concurrent-exports限制，超出时抛出IllegalStateException
+     * @param query    查询条件，忽略limit
+     * @param consumer 每批日志的回调，回调返回后列表会被复用
+     * @return 导出条数
+     */
+    long export(FileOperationLogQuery query, Consumer<List<FileOperationLogPo>> consumer);
 }
@@ -1,13 +1,136 @@
 package com.cjree.filelisten.service;
 
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
 import com.cjree.core.basic.base.AbstractService;
+import com.cjree.filelisten.config.FileMonitorProperties;
+import com.cjree.filelisten.dto.FileOperationLogPage;
+import com.cjree.filelisten.dto.FileOperationLogQuery;
 import com.cjree.filelisten.entity.FileOperationLogPo;
 import com.cjree.filelisten.mapper.FileOperationLogMapper;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
 @Service
 @Slf4j
 public class FileOperationLogServiceImpl extends AbstractService<FileOperationLogPo, FileOperationLogMapper> implements FileOperationLogService {
+    @Resource
+    private FileOperationLogMapper fileOperationLogMapper;
+    @Resource
+    private FileOperationContentService fileOperationContentService;
+    @Resource
+    private FileMonitorProperties fileMonitorProperties;
+
+    @Override
+    public int insertBatch(List<FileOperationLogPo> logs) {
+        if (logs == null || logs.isEmpty()) {
+            return 0;
+        }
+        // 自定义SQL不会走主键生成器，需手动分配ID
+        for (FileOperationLogPo operationLog : logs) {
+            if (operationLog.getId() == null) {
+                operationLog.setId(IdWorker.getId());
+            }
+        }
+        // 大段内容先压缩去重写入内容表，日志行只保留摘要
+        return fileOperationContentService.store(logs, () -> fileOperationLogMapper.insertBatch(logs));
+    }
+
+    @Override
+    public int insertBatchIdempotent(List<FileOperationLogPo> logs) {
+        if (logs == null || logs.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>(logs.size());
+        for (FileOperationLogPo operationLog : logs) {
+            ids.add(operationLog.getId());
+        }
+        Set<Long> existing = new HashSet<>(fileOperationLogMapper.selectExistingIds(ids));
+        if (existing.isEmpty()) {
+            return insertBatch(logs);
+        }
+        List<FileOperationLogPo> missing = new ArrayList<>(logs.size() - existing.size());
+        for (FileOperationLogPo operationLog : logs) {
+            if (!existing.contains(operationLog.getId())) {
+                missing.add(operationLog);
+            }
+        }
+        return missing.isEmpty() ? 0 : insertBatch(missing);
+    }
+
+    @Override
+    public List<FileOperationLogPo> resolveContent(List<FileOperationLogPo> logs) {
+        if (logs != null && !logs.isEmpty()) {
+            fileOperationContentService.resolve(logs);
+        }
+        return logs;
+    }
+
+    @Override
+    public FileOperationLogPage queryPage(FileOperationLogQuery query) {
+        FileMonitorProperties.Query properties = fileMonitorProperties.getQuery();
+        int limit = query.getLimit() > 0 ? Math.min(query.getLimit(), properties.getMaxPageSize()) : properties.getDefaultPageSize();
+        // 多查一条判断是否还有下一页
+        List<FileOperationLogPo> records = fileOperationLogMapper.selectByQuery(query, limit + 1);
+        String nextCursor = null;
+        if (records.size() > limit) {
+            records = new ArrayList<>(records.subList(0, limit));
+            FileOperationLogPo last = records.get(limit - 1);
+            nextCursor = FileOperationLogPage.encodeCursor(last.getOperationTime(), last.getId());
+        }
+        return new FileOperationLogPage(resolveContent(records), nextCursor);
+    }
+
+    // 同时进行的导出数，每个导出占用两个连接
+    private Semaphore exportPermits;
+
+    private synchronized Semaphore exportPermits() {
+        if (exportPermits == null) {
+            exportPermits = new Semaphore(Math.max(1, fileMonitorProperties.getQuery().getMaxConcurrentExports()));
+        }
+        return exportPermits;
+    }
+
+    @Override
+    public long export(FileOperationLogQuery query, Consumer<List<FileOperationLogPo>> consumer) {
+        Semaphore permits = exportPermits();
+        if (!permits.tryAcquire()) {
+            throw new IllegalStateException("操作日志导出并发数已达上限: " + fileMonitorProperties.getQuery().getMaxConcurrentExports());
+        }
+        try {
+            return doExport(query, consumer);
+        } finally {
+            permits.release();
+        }
+    }
 
+    /**
+     * 流式结果集全程占用一个连接，每批还原内容的查询再取一个连接
+     */
+    private long doExport(FileOperationLogQuery query, Consumer<List<FileOperationLogPo>> consumer) {
+        int batchSize = fileMonitorProperties.getQuery().getExportBatchSize();
+        List<FileOperationLogPo> batch = new ArrayList<>(batchSize);
+        long[] count = new long[1];
+        // 不在事务中执行：流式结果集占用连接期间，还原内容的查询使用另一个连接
+        fileOperationLogMapper.exportByQuery(query, context -> {
+            batch.add(context.getResultObject());
+            if (batch.size() >= batchSize) {
+                consumer.accept(resolveContent(batch));
+                count[0] += batch.size();
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            consumer.accept(resolveContent(batch));
+            count[0] += batch.size();
+        }
+        return count[0];
+    }
 }
@@ -0,0 +1,18 @@
+package com.cjree.filelisten.service;
+
+import com.cjree.core.basic.base.BaseService;
+import com.cjree.filelisten.entity.FileOperationSummaryPo;
+
+import java.util.Date;
+
+
+public interface FileOperationSummaryService extends BaseService<FileOperationSummaryPo> {
+
+    /**
+     * 把一个小时内的一批修改日志汇总到小时汇总表并删除原日志，汇总与删除在同一事务中
+     * @param hour      汇总的小时（整点）
+     * @param batchSize 单批日志条数
+     * @return 本批汇总的日志条数，0表示该小时已汇总完
+     */
+    int compactModifyBatch(Date hour, int batchSize);
+}
@@ -0,0 +1,42 @@
+package com.cjree.filelisten.service;
+
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.cjree.core.basic.base.AbstractService;
+import com.cjree.filelisten.entity.FileOperationSummaryPo;
+import com.cjree.filelisten.mapper.FileOperationLogMapper;
+import com.cjree.filelisten.mapper.FileOperationSummaryMapper;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Slf4j
+public class FileOperationSummaryServiceImpl extends AbstractService<FileOperationSummaryPo, FileOperationSummaryMapper> implements FileOperationSummaryService {
+    @Resource
+    private FileOperationSummaryMapper fileOperationSummaryMapper;
+    @Resource
+    private FileOperationLogMapper fileOperationLogMapper;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int compactModifyBatch(Date hour, int batchSize) {
+        Date end = new Date(hour.getTime() + TimeUnit.HOURS.toMillis(1));
+        List<Long> ids = fileOperationLogMapper.selectModifyIds(hour, end, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<FileOperationSummaryPo> summaries = fileOperationSummaryMapper.summarizeLogs(ids, hour, end);
+        for (FileOperationSummaryPo summary : summaries) {
+            summary.setId(IdWorker.getId());
+            summary.setSummaryHour(hour);
+        }
+        // 汇总累加与删除原日志同一事务提交，中断重跑不会重复计数
+        fileOperationSummaryMapper.upsertBatch(summaries);
+        return fileOperationLogMapper.deleteByIdsInRange(ids, hour, end);
+    }
+}
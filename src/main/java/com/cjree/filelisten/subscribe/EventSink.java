@@ -0,0 +1,35 @@
+package com.cjree.filelisten.subscribe;
+
+import java.io.IOException;
+
+/**
+ * 订阅者的推送通道，由订阅线程调用，抛出IOException时结束订阅
+ */
+public interface EventSink {
+
+    /**
+     * 推送一个事件
+     */
+    void send(OperationEvent event) throws IOException;
+
+    /**
+     * 积压超限跳过了count个事件
+     */
+    void dropped(long count) throws IOException;
+
+    /**
+     * 空闲时的心跳，用于发现已断开的连接
+     */
+    void heartbeat() throws IOException;
+
+    /**
+     * 订阅结束
+     */
+    void close();
+
+    /**
+     * 积压超限断开：使阻塞中的推送失败并结束通道。推送可能正卡在网络写入上，
+     * 此方法可能随之阻塞，调用方在独立线程上执行
+     */
+    void abort();
+}
@@ -0,0 +1,213 @@
+package com.cjree.filelisten.subscribe;
+
+import com.cjree.filelisten.enums.LagPolicyEnum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 单个订阅者
+ * 由独立线程从自己的序号开始读取环形缓冲区，过滤后推送；推送阻塞只拖慢本订阅者。
+ * 积压（已发布未读取的事件数）超过上限时按策略跳过积压事件或断开订阅
+ */
+@Slf4j
+public class EventSubscription implements Runnable {
+
+    // 等待占位槽位写完时先自旋，超过次数后短暂休眠
+    private static final int PENDING_SPINS = 100;
+    private static final long PENDING_PARK_NANOS = 10_000;
+
+    private final long id;
+    private final OperationEventRing ring;
+    private final SubscriptionFilter filter;
+    private final long maxLag;
+    private final LagPolicyEnum lagPolicy;
+    private final long heartbeatNanos;
+    private final EventSink sink;
+    private final Runnable onClose;
+
+    // 下一个读取的序号
+    private volatile long next;
+
+    private volatile Thread thread;
+
+    // 已追上发布序号，等待发布方唤醒
+    private volatile boolean waiting;
+
+    private volatile boolean closed;
+
+    // 推送的事件数
+    private final LongAdder deliveredCount = new LongAdder();
+
+    // 积压超限跳过的事件数
+    private final LongAdder droppedCount = new LongAdder();
+
+    EventSubscription(long id, OperationEventRing ring, long start, SubscriptionFilter filter, long maxLag,
+                      LagPolicyEnum lagPolicy, long heartbeatMs, EventSink sink, Runnable onClose) {
+        this.id = id;
+        this.ring = ring;
+        this.next = start;
+        this.filter = filter;
+        this.maxLag = maxLag;
+        this.lagPolicy = lagPolicy;
+        this.heartbeatNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatMs);
+        this.sink = sink;
+        this.onClose = onClose;
+    }
+
+    @Override
+    public void run() {
+        thread = Thread.currentThread();
+        OperationEvent event = new OperationEvent();
+        int spins = 0;
+        try {
+            while (!closed) {
+                long claimed = ring.getClaimed();
+                if (next > claimed) {
+                    awaitPublish();
+                    continue;
+                }
+                if (claimed - next >= maxLag && !onLag(claimed)) {
+                    break;
+                }
+                int result = ring.read(next, event);
+                if (result == OperationEventRing.PENDING) {
+                    // 发布方已占位未写完，稍后重读
+                    if (++spins < PENDING_SPINS) {
+                        Thread.onSpinWait();
+                    } else {
+                        LockSupport.parkNanos(PENDING_PARK_NANOS);
+                    }
+                    continue;
+                }
+                spins = 0;
+                if (result == OperationEventRing.LAPPED) {
+                    droppedCount.increment();
+                    sink.dropped(1);
+                } else if (filter.matches(event)) {
+                    sink.send(event);
+                    deliveredCount.increment();
+                }
+                next++;
+            }
+        } catch (Exception e) {
+            log.info("事件订阅 {} 推送失败, 结束订阅: {}", id, e.getMessage());
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * 积压超限：DROP跳到最新位置继续，DISCONNECT结束订阅
+     * @return 是否继续读取
+     */
+    private boolean onLag(long claimed) throws IOException {
+        if (lagPolicy == LagPolicyEnum.DISCONNECT) {
+            log.warn("事件订阅 {} 积压 {} 超过上限 {}, 断开订阅", id, claimed - next + 1, maxLag);
+            return false;
+        }
+        long skipped = claimed + 1 - next;
+        next = claimed + 1;
+        droppedCount.add(skipped);
+        sink.dropped(skipped);
+        return true;
+    }
+
+    private void awaitPublish() throws IOException {
+        waiting = true;
+        if (ring.getClaimed() >= next || closed) {
+            waiting = false;
+            return;
+        }
+        long parkedAt = System.nanoTime();
+        LockSupport.parkNanos(this, heartbeatNanos);
+        waiting = false;
+        if (ring.getClaimed() < next && System.nanoTime() - parkedAt >= heartbeatNanos) {
+            sink.heartbeat();
+        }
+    }
+
+    /**
+     * 发布方唤醒等待中的订阅线程
+     */
+    void wakeUp() {
+        if (waiting) {
+            waiting = false;
+            Thread current = thread;
+            if (current != null) {
+                LockSupport.unpark(current);
+            }
+        }
+    }
+
+    /**
+     * 积压的事件数
+     */
+    public long getLag() {
+        return Math.max(0, ring.getClaimed() + 1 - next);
+    }
+
+    /**
+     * 阻塞在推送上的订阅者由发布方检查积压，DISCONNECT策略超限时断开
+     */
+    boolean isOverLag() {
+        return lagPolicy == LagPolicyEnum.DISCONNECT && getLag() > maxLag;
+    }
+
+    /**
+     * 结束订阅，可重复调用
+     */
+    public void close() {
+        if (markClosed()) {
+            sink.close();
+            log.info("事件订阅 {} 结束, 推送: {}, 跳过: {}", id, getDeliveredCount(), getDroppedCount());
+        }
+    }
+
+    /**
+     * 积压超限断开：标记结束后在closer线程上中止推送通道，调用方不会被卡住的写入阻塞
+     */
+    void disconnect(Executor closer) {
+        if (markClosed()) {
+            closer.execute(() -> {
+                sink.abort();
+                log.info("事件订阅 {} 已断开, 推送: {}, 跳过: {}", id, getDeliveredCount(), getDroppedCount());
+            });
+        }
+    }
+
+    private boolean markClosed() {
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+        }
+        Thread current = thread;
+        if (current != null) {
+            LockSupport.unpark(current);
+        }
+        onClose.run();
+        return true;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public long getDeliveredCount() {
+        return deliveredCount.sum();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+}
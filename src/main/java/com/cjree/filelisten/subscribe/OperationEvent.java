@@ -0,0 +1,42 @@
+package com.cjree.filelisten.subscribe;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * 推送给订阅者的文件操作事件
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(name = "OperationEvent", description = "文件操作事件")
+public class OperationEvent {
+
+    @Schema(description = "事件序号，断线重连时作为Last-Event-ID")
+    private long sequence;
+
+    @Schema(description = "文件/目录绝对路径")
+    private String filePath;
+
+    @Schema(description = "操作类型")
+    private String operationType;
+
+    @Schema(description = "移动前的绝对路径，仅MOVE/DIRECTORY_MOVE有值")
+    private String sourcePath;
+
+    @Schema(description = "操作内容，超过推送上限时截断")
+    private String content;
+
+    @Schema(description = "操作内容是否被截断，完整内容按操作日志查询")
+    private boolean contentTruncated;
+
+    @Schema(description = "操作人")
+    private String operator;
+
+    @Schema(description = "操作发生时间")
+    private Date operationTime;
+}
@@ -0,0 +1,173 @@
+package com.cjree.filelisten.subscribe;
+
+import com.cjree.filelisten.config.FileMonitorProperties;
+import com.cjree.filelisten.entity.FileOperationLogPo;
+import com.cjree.filelisten.enums.LagPolicyEnum;
+import com.cjree.filelisten.metrics.FileMonitorMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 文件操作事件的进程内发布订阅
+ * 保存操作日志时同时发布到预分配的环形缓冲区，订阅者各自的线程按序号读取、过滤后推送，
+ * 发布只占位写槽位并唤醒等待中的订阅者，不受订阅者推送速度影响；消费者无需轮询操作日志表
+ */
+@Slf4j
+@Component
+public class OperationEventBus {
+    @Resource
+    private FileMonitorProperties fileMonitorProperties;
+    @Resource
+    private FileMonitorMetrics fileMonitorMetrics;
+
+    // 未启用时为null
+    private OperationEventRing ring;
+
+    private final List<EventSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong nextSubscriptionId = new AtomicLong();
+
+    // 断开阻塞在推送上且积压超限的订阅者
+    private ScheduledExecutorService lagChecker;
+
+    // 中止被断开订阅者的推送通道，可能阻塞到卡住的写入超时，不占用积压检查线程
+    private ExecutorService sinkCloser;
+
+    @PostConstruct
+    public void start() {
+        FileMonitorProperties.Subscribe properties = fileMonitorProperties.getSubscribe();
+        if (!properties.isEnabled()) {
+            return;
+        }
+        ring = new OperationEventRing(properties.getRingSize());
+        lagChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "EventLagChecker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sinkCloser = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "EventSinkCloser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lagChecker.scheduleWithFixedDelay(this::checkLag, properties.getLagCheckMs(), properties.getLagCheckMs(),
+                TimeUnit.MILLISECONDS);
+        fileMonitorMetrics.gauge("subscribe.published", "发布到订阅环形缓冲区的事件数", ring, r -> r.getClaimed() + 1);
+        fileMonitorMetrics.gauge("subscribe.subscribers", "当前事件订阅者数", subscriptions, List::size);
+        fileMonitorMetrics.gauge("subscribe.max.lag", "订阅者最大积压事件数", this, OperationEventBus::getMaxLag);
+        log.info("事件订阅启动, 环形缓冲区容量: {}, 订阅者上限: {}", ring.getCapacity(), properties.getMaxSubscribers());
+    }
+
+    public boolean isEnabled() {
+        return ring != null;
+    }
+
+    /**
+     * 发布一条操作日志，超过上限的内容截断
+     */
+    public void publish(FileOperationLogPo operationLog) {
+        OperationEventRing current = ring;
+        if (current == null) {
+            return;
+        }
+        String content = operationLog.getContent();
+        int maxContentChars = fileMonitorProperties.getSubscribe().getMaxContentChars();
+        boolean truncated = content != null && content.length() > maxContentChars;
+        if (truncated) {
+            content = content.substring(0, maxContentChars);
+        }
+        Date operationTime = operationLog.getOperationTime();
+        current.publish(operationLog.getFilePath(), operationLog.getOperationType(), operationLog.getSourcePath(),
+                content, truncated, operationLog.getOperator(),
+                operationTime == null ? System.currentTimeMillis() : operationTime.getTime());
+        for (EventSubscription subscription : subscriptions) {
+            subscription.wakeUp();
+        }
+    }
+
+    /**
+     * 新增订阅
+     * @param filter       过滤条件
+     * @param lastSequence 断线重连时客户端收到的最后一个序号，仍在缓冲区内时从其后继续，否则从最新事件开始
+     * @param maxLag       积压上限，为null时使用配置，不超过缓冲区容量
+     * @param lagPolicy    积压超限策略，为null时使用配置
+     * @param sink         推送通道
+     */
+    public synchronized EventSubscription subscribe(SubscriptionFilter filter, Long lastSequence, Long maxLag,
+                                                    LagPolicyEnum lagPolicy, EventSink sink) {
+        if (ring == null) {
+            throw new IllegalStateException("事件订阅未启用");
+        }
+        FileMonitorProperties.Subscribe properties = fileMonitorProperties.getSubscribe();
+        if (subscriptions.size() >= properties.getMaxSubscribers()) {
+            throw new IllegalStateException("事件订阅者已达上限: " + properties.getMaxSubscribers());
+        }
+        long claimed = ring.getClaimed();
+        long start = claimed + 1;
+        if (lastSequence != null && lastSequence <= claimed && claimed - lastSequence < ring.getCapacity()) {
+            start = lastSequence + 1;
+        }
+        long lag = Math.min(maxLag != null && maxLag > 0 ? maxLag : properties.getMaxLag(), ring.getCapacity());
+        LagPolicyEnum policy = lagPolicy != null ? lagPolicy : LagPolicyEnum.of(properties.getLagPolicy());
+        long id = nextSubscriptionId.incrementAndGet();
+        EventSubscription[] created = new EventSubscription[1];
+        created[0] = new EventSubscription(id, ring, start, filter, lag, policy, properties.getHeartbeatMs(), sink,
+                () -> subscriptions.remove(created[0]));
+        subscriptions.add(created[0]);
+        Thread thread = new Thread(created[0], "EventSubscriber-" + id);
+        thread.setDaemon(true);
+        thread.start();
+        log.info("新增事件订阅 {}, 起始序号: {}, 积压上限: {}, 积压策略: {}", id, start, lag, policy);
+        return created[0];
+    }
+
+    private void checkLag() {
+        try {
+            for (EventSubscription subscription : subscriptions) {
+                if (subscription.isOverLag()) {
+                    log.warn("事件订阅 {} 积压 {} 超过上限, 断开订阅", subscription.getId(), subscription.getLag());
+                    subscription.disconnect(sinkCloser);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error checking subscriber lag", e);
+        }
+    }
+
+    private long getMaxLag() {
+        long max = 0;
+        for (EventSubscription subscription : subscriptions) {
+            max = Math.max(max, subscription.getLag());
+        }
+        return max;
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (lagChecker != null) {
+            lagChecker.shutdownNow();
+        }
+        if (sinkCloser != null) {
+            sinkCloser.shutdown();
+        }
+        for (EventSubscription subscription : subscriptions) {
+            subscription.close();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.cjree.filelisten.subscribe;
+
+import java.lang.invoke.VarHandle;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 预分配的事件环形缓冲区（disruptor方式）
+ * 发布方原子递增序号占位后原地写入槽位，不等待订阅者：订阅者各自持有读取序号，
+ * 落后超过容量的事件被覆盖。槽位以序号作版本号，读取前后各校验一次，读取期间被覆盖时返回LAPPED
+ */
+public class OperationEventRing {
+
+    /**
+     * 读取结果：读到事件
+     */
+    public static final int READ = 0;
+
+    /**
+     * 读取结果：序号已占位但尚未写完
+     */
+    public static final int PENDING = 1;
+
+    /**
+     * 读取结果：槽位已被后面的事件覆盖
+     */
+    public static final int LAPPED = 2;
+
+    // 写入中的槽位版本号
+    private static final long WRITING = -1;
+
+    private final Slot[] slots;
+    private final int mask;
+
+    // 最后一个已占位的序号
+    private final AtomicLong claimed = new AtomicLong(-1);
+
+    public OperationEventRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.slots = new Slot[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * 最后一个已占位的序号，没有事件时为-1
+     */
+    public long getClaimed() {
+        return claimed.get();
+    }
+
+    /**
+     * 发布一个事件，返回事件序号
+     */
+    public long publish(String filePath, String operationType, String sourcePath, String content, boolean contentTruncated,
+                        String operator, long operationTime) {
+        long sequence = claimed.incrementAndGet();
+        Slot slot = slots[(int) (sequence & mask)];
+        slot.version = WRITING;
+        VarHandle.storeStoreFence();
+        slot.filePath = filePath;
+        slot.operationType = operationType;
+        slot.sourcePath = sourcePath;
+        slot.content = content;
+        slot.contentTruncated = contentTruncated;
+        slot.operator = operator;
+        slot.operationTime = operationTime;
+        slot.version = sequence;
+        return sequence;
+    }
+
+    /**
+     * 读取指定序号的事件
+     * @param target 读到时写入的事件
+     * @return READ、PENDING或LAPPED
+     */
+    public int read(long sequence, OperationEvent target) {
+        Slot slot = slots[(int) (sequence & mask)];
+        long version = slot.version;
+        if (version != sequence) {
+            return version > sequence || claimed.get() - sequence >= slots.length ? LAPPED : PENDING;
+        }
+        String filePath = slot.filePath;
+        String operationType = slot.operationType;
+        String sourcePath = slot.sourcePath;
+        String content = slot.content;
+        boolean contentTruncated = slot.contentTruncated;
+        String operator = slot.operator;
+        long operationTime = slot.operationTime;
+        VarHandle.loadLoadFence();
+        if (slot.version != sequence) {
+            return LAPPED;
+        }
+        target.setSequence(sequence);
+        target.setFilePath(filePath);
+        target.setOperationType(operationType);
+        target.setSourcePath(sourcePath);
+        target.setContent(content);
+        target.setContentTruncated(contentTruncated);
+        target.setOperator(operator);
+        target.setOperationTime(new Date(operationTime));
+        return READ;
+    }
+
+    private static final class Slot {
+        private volatile long version = WRITING;
+        private String filePath;
+        private String operationType;
+        private String sourcePath;
+        private String content;
+        private boolean contentTruncated;
+        private String operator;
+        private long operationTime;
+    }
+}
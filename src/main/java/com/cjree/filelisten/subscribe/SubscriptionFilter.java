@@ -0,0 +1,51 @@
+package com.cjree.filelisten.subscribe;
+
+import com.cjree.filelisten.rule.NamePatternSet;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 订阅过滤条件：路径前缀、文件名通配符和操作类型，均为空时接收全部事件
+ */
+public class SubscriptionFilter {
+
+    private final String pathPrefix;
+    private final NamePatternSet namePatterns;
+    private final Set<String> operationTypes;
+
+    /**
+     * @param pathPrefix     路径前缀，按目录边界匹配
+     * @param namePatterns   文件名通配符，多个用逗号分隔
+     * @param operationTypes 操作类型
+     */
+    public SubscriptionFilter(String pathPrefix, String namePatterns, Collection<String> operationTypes) {
+        this.pathPrefix = pathPrefix == null || pathPrefix.isEmpty() ? null : stripSeparator(pathPrefix);
+        this.namePatterns = NamePatternSet.compile(namePatterns);
+        this.operationTypes = operationTypes == null || operationTypes.isEmpty() ? null : new HashSet<>(operationTypes);
+    }
+
+    public boolean matches(OperationEvent event) {
+        if (operationTypes != null && !operationTypes.contains(event.getOperationType())) {
+            return false;
+        }
+        String path = event.getFilePath();
+        if (pathPrefix != null && !isUnder(path) && !(event.getSourcePath() != null && isUnder(event.getSourcePath()))) {
+            return false;
+        }
+        return namePatterns.isEmpty() || namePatterns.matches(path.substring(path.lastIndexOf(File.separatorChar) + 1));
+    }
+
+    private boolean isUnder(String path) {
+        int length = pathPrefix.length();
+        return path.startsWith(pathPrefix) && (path.length() == length || path.charAt(length) == File.separatorChar
+                || pathPrefix.charAt(length - 1) == File.separatorChar);
+    }
+
+    private static String stripSeparator(String path) {
+        return path.length() > 1 && path.charAt(path.length() - 1) == File.separatorChar
+                ? path.substring(0, path.length() - 1) : path;
+    }
+}
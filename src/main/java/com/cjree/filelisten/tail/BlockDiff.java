@@ -0,0 +1,240 @@
+package com.cjree.filelisten.tail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+
+/**
+ * 按块签名比对文件的变化区间（rsync方式）
+ * 流式读取新文件，以块大小的窗口滚动计算弱校验，弱校验命中后再比对强校验，命中的块视为未变化；
+ * 未命中的字节按新文件中的偏移汇成新增区间，旧文件中没有被命中的块汇成删除区间。读取的同时构建新文件的签名
+ */
+public final class BlockDiff {
+
+    // 新增字节的缓冲区，每个线程复用一个，大小不超过调用方给出的单个片段上限（tail.max-bytes-per-event）
+    private static final ThreadLocal<byte[]> LITERAL_BUFFER = new ThreadLocal<>();
+
+    private BlockDiff() {
+    }
+
+    /**
+     * 比对文件 [0, length) 与旧签名
+     * @param previous      旧签名，为null时只构建签名，有handler时 [insertFrom, length) 作为新增区间
+     * @param insertFrom    没有旧签名时新增区间的起始偏移，之前的内容已读取过（如重启后从检查点继续）
+     * @param blockSize     新签名的块大小
+     * @param maxChunkBytes 单个新增区间片段的最大字节数，超出拆分为多次回调
+     * @param buffer        读取缓冲区
+     * @param handler       变化区间回调，为null时只构建签名；回调中的字节数组是线程复用的缓冲区，只在回调期间有效
+     * @return 新文件的签名
+     */
+    public static BlockSignature diff(Path path, long length, BlockSignature previous, long insertFrom, int blockSize,
+                                      int maxChunkBytes, ByteBuffer buffer, RangeHandler handler) throws IOException {
+        Scanner scanner = new Scanner(previous, insertFrom, blockSize, maxChunkBytes, handler);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long position = 0;
+            while (position < length) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), length - position));
+                int n = channel.read(buffer, position);
+                if (n < 0) {
+                    break;
+                }
+                for (int i = 0; i < n; i++) {
+                    scanner.update(buffer.get(i));
+                }
+                position += n;
+            }
+        }
+        return scanner.finish();
+    }
+
+    /**
+     * 当前线程复用的新增字节缓冲区，不够时按需扩大
+     */
+    private static byte[] literalBuffer(int size) {
+        byte[] buffer = LITERAL_BUFFER.get();
+        if (buffer == null || buffer.length < size) {
+            buffer = new byte[size];
+            LITERAL_BUFFER.set(buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * 变化区间回调
+     */
+    public interface RangeHandler {
+        /**
+         * 新增或改动的字节，offset为在新文件中的偏移
+         */
+        void onInsert(long offset, byte[] bytes, int length) throws IOException;
+
+        /**
+         * 旧文件中不再存在的区间，offset为在旧文件中的偏移
+         */
+        void onRemove(long offset, long length) throws IOException;
+    }
+
+    private static final class Scanner {
+        private final BlockSignature previous;
+        private final long insertFrom;
+        private final RangeHandler handler;
+        private final BlockSignature.Builder builder;
+        private final MessageDigest digest = BlockSignature.newDigest();
+
+        // 旧文件中被命中的块
+        private final boolean[] matched;
+
+        // 滚动窗口（环形），长度为旧签名的块大小
+        private final int windowSize;
+        private final byte[] window;
+        private final byte[] scratch;
+        private int head;
+        private int count;
+        private int a;
+        private int b;
+        private long windowStart;
+
+        // 待回调的新增字节
+        private final byte[] literal;
+        private final int literalCapacity;
+        private int literalLength;
+        private long literalStart;
+
+        private long position;
+
+        Scanner(BlockSignature previous, long insertFrom, int blockSize, int maxChunkBytes, RangeHandler handler) {
+            this.previous = previous;
+            this.insertFrom = insertFrom;
+            this.handler = handler;
+            this.builder = new BlockSignature.Builder(blockSize);
+            this.matched = previous == null ? null : new boolean[previous.getBlockCount()];
+            this.windowSize = previous == null ? 0 : previous.getBlockSize();
+            this.window = new byte[windowSize];
+            this.scratch = new byte[windowSize];
+            this.literal = handler == null ? null : literalBuffer(maxChunkBytes);
+            this.literalCapacity = maxChunkBytes;
+        }
+
+        void update(byte value) throws IOException {
+            builder.update(value);
+            long offset = position++;
+            if (handler == null) {
+                return;
+            }
+            if (previous == null) {
+                if (offset >= insertFrom) {
+                    appendLiteral(offset, value);
+                }
+                return;
+            }
+            int x = value & 0xFF;
+            if (count == windowSize) {
+                // 窗口滑过一个字节，移出的字节属于新增内容
+                int out = window[head] & 0xFF;
+                appendLiteral(windowStart, window[head]);
+                window[head] = value;
+                head = (head + 1) % windowSize;
+                windowStart++;
+                a = a - out + x;
+                b = b - windowSize * out + a;
+            } else {
+                window[(head + count) % windowSize] = value;
+                count++;
+                a += x;
+                b += a;
+            }
+            if (count == windowSize) {
+                int block = match(windowSize);
+                if (block >= 0) {
+                    flushLiteral();
+                    matched[block] = true;
+                    windowStart += windowSize;
+                    head = 0;
+                    count = 0;
+                    a = 0;
+                    b = 0;
+                }
+            }
+        }
+
+        /**
+         * 当前窗口对应的旧块序号，未命中返回-1
+         */
+        private int match(int length) {
+            Object candidates = previous.candidates(BlockSignature.weakOf(a, b));
+            if (candidates == null) {
+                return -1;
+            }
+            int first = Math.min(length, windowSize - head);
+            System.arraycopy(window, head, scratch, 0, first);
+            System.arraycopy(window, 0, scratch, first, length - first);
+            long strong = BlockSignature.strongOf(digest, scratch, length);
+            if (candidates instanceof Integer) {
+                int block = (Integer) candidates;
+                return isMatch(block, length, strong) ? block : -1;
+            }
+            for (int block : (int[]) candidates) {
+                if (isMatch(block, length, strong)) {
+                    return block;
+                }
+            }
+            return -1;
+        }
+
+        private boolean isMatch(int block, int length, long strong) {
+            return previous.blockLength(block) == length && previous.strongOf(block) == strong;
+        }
+
+        private void appendLiteral(long offset, byte value) throws IOException {
+            if (literalLength == 0) {
+                literalStart = offset;
+            }
+            literal[literalLength++] = value;
+            if (literalLength == literalCapacity) {
+                flushLiteral();
+            }
+        }
+
+        private void flushLiteral() throws IOException {
+            if (literalLength > 0) {
+                handler.onInsert(literalStart, literal, literalLength);
+                literalLength = 0;
+            }
+        }
+
+        BlockSignature finish() throws IOException {
+            if (handler != null && previous != null) {
+                // 文件末尾不满一块的部分与旧文件的最后一块比对
+                int block = count > 0 && count < windowSize ? match(count) : -1;
+                if (block >= 0) {
+                    matched[block] = true;
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        appendLiteral(windowStart + i, window[(head + i) % windowSize]);
+                    }
+                }
+                flushLiteral();
+                // 旧文件中未命中的连续块汇成删除区间
+                int start = -1;
+                for (int i = 0; i <= matched.length; i++) {
+                    boolean removed = i < matched.length && !matched[i];
+                    if (removed && start < 0) {
+                        start = i;
+                    } else if (!removed && start >= 0) {
+                        long offset = (long) start * windowSize;
+                        long end = Math.min((long) i * windowSize, previous.getLength());
+                        handler.onRemove(offset, end - offset);
+                        start = -1;
+                    }
+                }
+            } else if (handler != null) {
+                flushLiteral();
+            }
+            return builder.build();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.cjree.filelisten.tail;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 文件的分块签名（rsync方式）
+ * 按固定块大小切分文件，每块记录弱校验（可滚动计算）和强校验（MD5前8字节），常驻内存为每块12字节；
+ * 作为旧签名参与比对时还会建立弱校验索引（HashMap，含装箱的键值和桶数组），每块约多占80字节，
+ * 比对完成后旧签名被新签名替换，索引随之释放。文件大小上限与块大小共同决定单个签名的大小
+ */
+public final class BlockSignature {
+
+    // 弱校验索引每块的估算字节数：HashMap.Node 32 + Integer键 16 + Integer值 16 + 桶数组 8~16
+    private static final long INDEX_BYTES_PER_BLOCK = 80;
+
+    private final int blockSize;
+    private final long length;
+    private final int[] weak;
+    private final long[] strong;
+
+    // 弱校验到块序号的索引，首次比对时建立
+    private Map<Integer, Object> index;
+
+    BlockSignature(int blockSize, long length, int[] weak, long[] strong) {
+        this.blockSize = blockSize;
+        this.length = length;
+        this.weak = weak;
+        this.strong = strong;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public int getBlockCount() {
+        return weak.length;
+    }
+
+    /**
+     * 指定块的字节数，最后一块可能不满
+     */
+    int blockLength(int block) {
+        return (int) Math.min(blockSize, length - (long) block * blockSize);
+    }
+
+    long strongOf(int block) {
+        return strong[block];
+    }
+
+    /**
+     * 签名占用的字节数（估算），已建立弱校验索引时包含索引
+     */
+    public long memoryBytes() {
+        long bytes = weak.length * 12L;
+        return index == null ? bytes : bytes + weak.length * INDEX_BYTES_PER_BLOCK;
+    }
+
+    /**
+     * 弱校验相同的块序号，单个块返回Integer，多个块返回int[]，没有返回null
+     */
+    Object candidates(int weakSum) {
+        if (index == null) {
+            Map<Integer, Object> built = new HashMap<>(weak.length * 2);
+            for (int i = 0; i < weak.length; i++) {
+                Object existing = built.get(weak[i]);
+                if (existing == null) {
+                    built.put(weak[i], i);
+                } else if (existing instanceof Integer) {
+                    built.put(weak[i], new int[]{(Integer) existing, i});
+                } else {
+                    int[] blocks = (int[]) existing;
+                    int[] grown = new int[blocks.length + 1];
+                    System.arraycopy(blocks, 0, grown, 0, blocks.length);
+                    grown[blocks.length] = i;
+                    built.put(weak[i], grown);
+                }
+            }
+            index = built;
+        }
+        return index.get(weakSum);
+    }
+
+    /**
+     * 滚动弱校验：a为字节和，b为按位置加权的和，各取低16位
+     */
+    static int weakOf(int a, int b) {
+        return (a & 0xFFFF) | (b << 16);
+    }
+
+    /**
+     * 块的强校验
+     */
+    static long strongOf(MessageDigest digest, byte[] block, int length) {
+        digest.reset();
+        digest.update(block, 0, length);
+        byte[] hash = digest.digest();
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = value << 8 | (hash[i] & 0xFF);
+        }
+        return value;
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 按文件偏移顺序逐块构建签名
+     */
+    static final class Builder {
+        private final int blockSize;
+        private final MessageDigest digest = newDigest();
+        private final byte[] block;
+        private int fill;
+        private int a;
+        private int b;
+        private long length;
+        private int[] weak = new int[16];
+        private long[] strong = new long[16];
+        private int count;
+
+        Builder(int blockSize) {
+            this.blockSize = blockSize;
+            this.block = new byte[blockSize];
+        }
+
+        void update(byte value) {
+            int x = value & 0xFF;
+            block[fill++] = value;
+            a += x;
+            b += a;
+            length++;
+            if (fill == blockSize) {
+                finishBlock();
+            }
+        }
+
+        private void finishBlock() {
+            if (count == weak.length) {
+                int[] grownWeak = new int[count * 2];
+                long[] grownStrong = new long[count * 2];
+                System.arraycopy(weak, 0, grownWeak, 0, count);
+                System.arraycopy(strong, 0, grownStrong, 0, count);
+                weak = grownWeak;
+                strong = grownStrong;
+            }
+            weak[count] = weakOf(a, b);
+            strong[count] = strongOf(digest, block, fill);
+            count++;
+            fill = 0;
+            a = 0;
+            b = 0;
+        }
+
+        BlockSignature build() {
+            if (fill > 0) {
+                finishBlock();
+            }
+            int[] finalWeak = new int[count];
+            long[] finalStrong = new long[count];
+            System.arraycopy(weak, 0, finalWeak, 0, count);
+            System.arraycopy(strong, 0, finalStrong, 0, count);
+            return new BlockSignature(blockSize, length, finalWeak, finalStrong);
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.cjree.filelisten.tail;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * 读取位置检查点
+ * 热路径只更新内存并标记脏数据，后台线程定期把脏记录追加到本地日志文件并fsync，
+ * 每次刷盘的开销只与期间变化的文件数有关；日志膨胀到存活数据的数倍时整体压缩重写。
+ * 记录格式：[长度][CRC32][类型][路径][fileKey][位置][修改时间]，启动时遇到损坏的尾部记录即截断
+ */
+@Slf4j
+public class CheckpointStore {
+
+    private static final byte TYPE_PUT = 0;
+    private static final byte TYPE_REMOVE = 1;
+
+    // 压缩的最小日志大小
+    private static final long COMPACT_MIN_BYTES = 4 * 1024 * 1024;
+
+    private final boolean enabled;
+    private final Path file;
+    private final long flushIntervalMs;
+
+    private final Map<String, Checkpoint> entries = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    private FileChannel channel;
+    private ByteBuffer writeBuffer = ByteBuffer.allocate(64 * 1024);
+    private long logBytes;
+    private ScheduledExecutorService flusher;
+
+    public CheckpointStore(boolean enabled, Path file, long flushIntervalMs) {
+        this.enabled = enabled;
+        this.file = file;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        load();
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.position(logBytes);
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "CheckpointFlusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("加载读取位置检查点 {} 条: {}", entries.size(), file);
+    }
+
+    /**
+     * 记录文件的读取位置，仅更新内存
+     */
+    public void update(Path path, Object fileKey, long offset, long lastModified) {
+        if (!enabled) {
+            return;
+        }
+        String key = path.toString();
+        entries.put(key, new Checkpoint(key, fileKey == null ? null : fileKey.toString(), offset, lastModified));
+        dirty.add(key);
+    }
+
+    public void remove(Path path) {
+        if (!enabled) {
+            return;
+        }
+        String key = path.toString();
+        if (entries.remove(key) != null) {
+            dirty.add(key);
+        }
+    }
+
+    public Checkpoint get(Path path) {
+        return entries.get(path.toString());
+    }
+
+    public Collection<Checkpoint> snapshot() {
+        return new ArrayList<>(entries.values());
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Failed to flush checkpoints: {}", file, e);
+        }
+    }
+
+    /**
+     * 追加脏记录并fsync
+     */
+    public synchronized void flush() throws IOException {
+        if (channel == null || dirty.isEmpty()) {
+            return;
+        }
+        Iterator<String> iterator = dirty.iterator();
+        while (iterator.hasNext()) {
+            String key = iterator.next();
+            iterator.remove();
+            Checkpoint checkpoint = entries.get(key);
+            if (checkpoint == null) {
+                append(TYPE_REMOVE, key, null, 0, 0);
+            } else {
+                append(TYPE_PUT, key, checkpoint.fileKey, checkpoint.offset, checkpoint.lastModified);
+            }
+        }
+        drainWriteBuffer();
+        channel.force(false);
+        if (logBytes > Math.max(COMPACT_MIN_BYTES, estimateLiveBytes() * 4)) {
+            compact();
+        }
+    }
+
+    private void append(byte type, String path, String fileKey, long offset, long lastModified) throws IOException {
+        byte[] pathBytes = path.getBytes(StandardCharsets.UTF_8);
+        byte[] keyBytes = fileKey == null ? new byte[0] : fileKey.getBytes(StandardCharsets.UTF_8);
+        int payloadLength = 1 + 2 + pathBytes.length + 2 + keyBytes.length + 8 + 8;
+        int recordLength = 4 + 4 + payloadLength;
+        if (writeBuffer.remaining() < recordLength) {
+            drainWriteBuffer();
+            if (writeBuffer.capacity() < recordLength) {
+                writeBuffer = ByteBuffer.allocate(recordLength);
+            }
+        }
+        int start = writeBuffer.position();
+        writeBuffer.putInt(payloadLength);
+        writeBuffer.putInt(0);
+        writeBuffer.put(type);
+        writeBuffer.putShort((short) pathBytes.length);
+        writeBuffer.put(pathBytes);
+        writeBuffer.putShort((short) keyBytes.length);
+        writeBuffer.put(keyBytes);
+        writeBuffer.putLong(offset);
+        writeBuffer.putLong(lastModified);
+        CRC32 crc = new CRC32();
+        crc.update(writeBuffer.array(), start + 8, payloadLength);
+        writeBuffer.putInt(start + 4, (int) crc.getValue());
+    }
+
+    private void drainWriteBuffer() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            logBytes += channel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+    }
+
+    private long estimateLiveBytes() {
+        // 路径平均长度按64字节估算
+        return entries.size() * (4 + 4 + 1 + 2 + 64 + 2 + 32 + 8 + 8L);
+    }
+
+    /**
+     * 用存活记录重写日志，写入临时文件后原子替换
+     */
+    private void compact() throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        FileChannel previous = channel;
+        long previousBytes = logBytes;
+        channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        logBytes = 0;
+        try {
+            for (Checkpoint checkpoint : entries.values()) {
+                append(TYPE_PUT, checkpoint.path, checkpoint.fileKey, checkpoint.offset, checkpoint.lastModified);
+            }
+            drainWriteBuffer();
+            channel.force(true);
+            channel.close();
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            previous.close();
+            channel = FileChannel.open(file, StandardOpenOption.WRITE);
+            channel.position(logBytes);
+            log.info("检查点日志压缩: {} -> {} 字节", previousBytes, logBytes);
+        } catch (IOException e) {
+            // 压缩失败继续使用原日志
+            channel.close();
+            channel = previous;
+            logBytes = previousBytes;
+            writeBuffer.clear();
+            throw e;
+        }
+    }
+
+    private void load() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(in.size(), Integer.MAX_VALUE));
+            while (buffer.hasRemaining() && in.read(buffer) > 0) {
+                // 读满
+            }
+            buffer.flip();
+            CRC32 crc = new CRC32();
+            while (buffer.remaining() >= 8) {
+                int recordStart = buffer.position();
+                int payloadLength = buffer.getInt();
+                int expectedCrc = buffer.getInt();
+                if (payloadLength <= 0 || payloadLength > buffer.remaining()) {
+                    buffer.position(recordStart);
+                    break;
+                }
+                crc.reset();
+                crc.update(buffer.array(), buffer.position(), payloadLength);
+                if ((int) crc.getValue() != expectedCrc) {
+                    buffer.position(recordStart);
+                    break;
+                }
+                byte type = buffer.get();
+                String path = readString(buffer);
+                String fileKey = readString(buffer);
+                long offset = buffer.getLong();
+                long lastModified = buffer.getLong();
+                if (type == TYPE_REMOVE) {
+                    entries.remove(path);
+                } else {
+                    entries.put(path, new Checkpoint(path, fileKey.isEmpty() ? null : fileKey, offset, lastModified));
+                }
+            }
+            logBytes = buffer.position();
+            if (logBytes < in.size()) {
+                log.warn("检查点日志尾部损坏, 从 {} 字节处截断", logBytes);
+            }
+        }
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            out.truncate(logBytes);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    public void stop() {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+            flush();
+            channel.close();
+        } catch (Exception e) {
+            log.error("Failed to close checkpoint store: {}", file, e);
+        }
+    }
+
+    /**
+     * 单个文件的检查点
+     */
+    public static final class Checkpoint {
+        private final String path;
+        private final String fileKey;
+        private final long offset;
+        private final long lastModified;
+
+        Checkpoint(String path, String fileKey, long offset, long lastModified) {
+            this.path = path;
+            this.fileKey = fileKey;
+            this.offset = offset;
+            this.lastModified = lastModified;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getFileKey() {
+            return fileKey;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * 是否仍是记录时的同一个文件（文件系统不支持fileKey时视为相同）
+         */
+        public boolean isSameFile(Object currentFileKey) {
+            return fileKey == null || currentFileKey == null || fileKey.equals(currentFileKey.toString());
+        }
+    }
+}
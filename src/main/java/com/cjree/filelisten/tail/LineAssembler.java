@@ -0,0 +1,153 @@
+package com.cjree.filelisten.tail;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 按行拼装增量内容
+ * 以字节为单位查找换行符（UTF-8中换行符不会出现在多字节字符内部），完整的行解码后输出，
+ * 末尾不完整的行以字节形式暂存到下次追加；超过最大行长度的行会被强制切分输出
+ * 非线程安全，同一文件的事件由同一个通道串行处理
+ */
+public class LineAssembler {
+
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private final int maxLineLength;
+
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    // 未完成的行
+    private byte[] carry = new byte[256];
+    private int carryLength;
+
+    // 解码输出，按需扩容后复用
+    private CharBuffer chars = CharBuffer.allocate(256);
+
+    /**
+     * @param maxLineLength 最大行长度（字节）
+     */
+    public LineAssembler(int maxLineLength) {
+        this.maxLineLength = maxLineLength;
+    }
+
+    /**
+     * 追加一段字节，输出其中所有完整的行
+     */
+    public void feed(byte[] bytes, int offset, int length, LineHandler handler) {
+        int end = offset + length;
+        int lineStart = offset;
+        for (int i = offset; i < end; i++) {
+            if (bytes[i] != LF) {
+                continue;
+            }
+            if (carryLength > 0) {
+                append(bytes, lineStart, i - lineStart);
+                emitLine(carry, 0, carryLength, handler);
+                carryLength = 0;
+            } else {
+                emitLine(bytes, lineStart, i - lineStart, handler);
+            }
+            lineStart = i + 1;
+        }
+        if (lineStart < end) {
+            append(bytes, lineStart, end - lineStart);
+            // 超长行强制切分，避免暂存区无限增长
+            while (carryLength > maxLineLength) {
+                int cut = utf8Boundary(carry, maxLineLength);
+                emit(carry, 0, cut, handler);
+                System.arraycopy(carry, cut, carry, 0, carryLength - cut);
+                carryLength -= cut;
+            }
+        }
+    }
+
+    /**
+     * 暂存的未完成行字节数，读取位置减去该值即为最后一个完整行的结束位置
+     */
+    public int pendingBytes() {
+        return carryLength;
+    }
+
+    /**
+     * 把暂存的未完成行作为最后一行输出（文件已轮转不会再有后续内容时调用）
+     */
+    public void flush(LineHandler handler) {
+        if (carryLength > 0) {
+            emitLine(carry, 0, carryLength, handler);
+            carryLength = 0;
+        }
+    }
+
+    /**
+     * 丢弃暂存内容（文件被截断或重建时调用）
+     */
+    public void reset() {
+        carryLength = 0;
+    }
+
+    private void append(byte[] bytes, int offset, int length) {
+        if (carryLength + length > carry.length) {
+            carry = Arrays.copyOf(carry, Math.max(carry.length * 2, carryLength + length));
+        }
+        System.arraycopy(bytes, offset, carry, carryLength, length);
+        carryLength += length;
+    }
+
+    private void emitLine(byte[] bytes, int offset, int length, LineHandler handler) {
+        // 兼容CRLF
+        if (length > 0 && bytes[offset + length - 1] == CR) {
+            length--;
+        }
+        // 完整行同样受最大长度限制
+        while (length > maxLineLength) {
+            int cut = utf8Boundary(bytes, offset, maxLineLength);
+            emit(bytes, offset, cut, handler);
+            offset += cut;
+            length -= cut;
+        }
+        emit(bytes, offset, length, handler);
+    }
+
+    private void emit(byte[] bytes, int offset, int length, LineHandler handler) {
+        if (chars.capacity() < length) {
+            chars = CharBuffer.allocate(Math.max(chars.capacity() * 2, length));
+        }
+        chars.clear();
+        decoder.reset();
+        ByteBuffer in = ByteBuffer.wrap(bytes, offset, length);
+        decoder.decode(in, chars, true);
+        decoder.flush(chars);
+        chars.flip();
+        handler.onLine(chars.toString());
+    }
+
+    private static int utf8Boundary(byte[] bytes, int maxLength) {
+        return utf8Boundary(bytes, 0, maxLength);
+    }
+
+    /**
+     * 返回不超过maxLength且不截断多字节字符的长度
+     */
+    private static int utf8Boundary(byte[] bytes, int offset, int maxLength) {
+        int cut = maxLength;
+        while (cut > 0 && (bytes[offset + cut] & 0xC0) == 0x80) {
+            cut--;
+        }
+        return cut == 0 ? maxLength : cut;
+    }
+
+    /**
+     * 行回调
+     */
+    public interface LineHandler {
+        void onLine(String line);
+    }
+}
@@ -0,0 +1,138 @@
+package com.cjree.filelisten.tail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 流式增量读取
+ * 使用池化的堆外缓冲区按位置读取文件，每攒满一个分块（不超过单事件最大字节数）就交给回调，
+ * 分块边界回退到完整的UTF-8字符处，未读完的半个字符留到下次读取
+ */
+public class TailReader {
+
+    private final ByteBufferPool bufferPool;
+
+    /**
+     * @param maxBytesPerEvent 单个事件（分块）最大字节数
+     * @param maxPooledBuffers 缓冲区池容量
+     */
+    public TailReader(int maxBytesPerEvent, int maxPooledBuffers) {
+        this.bufferPool = new ByteBufferPool(maxBytesPerEvent, maxPooledBuffers);
+    }
+
+    /**
+     * 读取 [start, end) 区间，按分块解码为文本
+     * @return 实际读到的位置，末尾不完整的UTF-8字符不计入
+     */
+    public long read(Path path, long start, long end, ChunkHandler handler) throws IOException {
+        return readBytes(path, start, end,
+                (bytes, length, endPosition) -> handler.onChunk(new String(bytes, 0, length, StandardCharsets.UTF_8), endPosition));
+    }
+
+    /**
+     * 读取 [start, end) 区间，按分块交出原始字节
+     * @return 实际读到的位置，末尾不完整的UTF-8字符不计入
+     */
+    public long readBytes(Path path, long start, long end, BytesHandler handler) throws IOException {
+        ByteBuffer buffer = bufferPool.acquire();
+        // 解码用的堆内数组，按本次增量大小分配并在各分块间复用
+        byte[] scratch = new byte[(int) Math.min(buffer.capacity(), end - start)];
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel, start, end, buffer, scratch, handler);
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    private long read(FileChannel channel, long start, long end, ByteBuffer buffer, byte[] scratch,
+                      BytesHandler handler) throws IOException {
+        // committed: 已交给回调的位置；readPosition: 已读入缓冲区的位置
+        long committed = start;
+        long readPosition = start;
+        while (readPosition < end) {
+            int limit = (int) Math.min(buffer.remaining(), end - readPosition);
+            ByteBuffer window = buffer.duplicate();
+            window.limit(window.position() + limit);
+            int n = channel.read(window, readPosition);
+            if (n <= 0) {
+                // 文件在读取过程中被截断
+                break;
+            }
+            buffer.position(buffer.position() + n);
+            readPosition += n;
+            if (buffer.hasRemaining() && readPosition < end) {
+                continue;
+            }
+            buffer.flip();
+            int cut = utf8Boundary(buffer);
+            if (cut == 0) {
+                // 缓冲区内没有完整字符（异常数据），整体输出
+                cut = buffer.limit();
+            }
+            committed += emit(buffer, scratch, cut, committed, handler);
+            buffer.compact();
+        }
+        // 处理剩余的完整字符
+        buffer.flip();
+        int cut = utf8Boundary(buffer);
+        if (cut > 0) {
+            committed += emit(buffer, scratch, cut, committed, handler);
+        }
+        buffer.clear();
+        return committed;
+    }
+
+    private int emit(ByteBuffer buffer, byte[] scratch, int cut, long committed, BytesHandler handler) throws IOException {
+        buffer.get(scratch, 0, cut);
+        handler.onBytes(scratch, cut, committed + cut);
+        return cut;
+    }
+
+    /**
+     * 返回不截断多字节字符的最大长度
+     */
+    static int utf8Boundary(ByteBuffer buffer) {
+        int limit = buffer.limit();
+        // 最多回看3个字节找到最后一个字符的首字节
+        for (int i = limit - 1; i >= Math.max(buffer.position(), limit - 4); i--) {
+            int b = buffer.get(i) & 0xFF;
+            if ((b & 0xC0) == 0x80) {
+                continue;
+            }
+            int length = b < 0x80 ? 1 : b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 1;
+            return i + length <= limit ? limit : i;
+        }
+        return limit;
+    }
+
+    public ByteBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * 分块回调
+     */
+    public interface ChunkHandler {
+        /**
+         * @param content     分块内容
+         * @param endPosition 分块结束位置，即下次应从此处继续读取
+         */
+        void onChunk(String content, long endPosition) throws IOException;
+    }
+
+    /**
+     * 原始字节分块回调，数组在回调返回后会被复用
+     */
+    public interface BytesHandler {
+        /**
+         * @param bytes       分块字节
+         * @param length      有效长度
+         * @param endPosition 分块结束位置，即下次应从此处继续读取
+         */
+        void onBytes(byte[] bytes, int length, long endPosition) throws IOException;
+    }
+}
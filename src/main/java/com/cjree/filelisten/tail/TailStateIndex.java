@@ -0,0 +1,165 @@
+package com.cjree.filelisten.tail;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 文件读取状态索引
+ * 读取位置和修改时间按fileKey（设备+inode）记录，另维护路径到fileKey的索引：
+ * 日志轮转重命名后状态跟随inode迁移到新路径，同名新文件是另一个inode，从头读取。
+ * 文件系统不提供fileKey时退回按路径记录
+ */
+public class TailStateIndex {
+
+    private final Map<Object, TailState> states = new ConcurrentHashMap<>();
+
+    private final Map<Path, Object> keys = new ConcurrentHashMap<>();
+
+    /**
+     * 状态的键：优先使用fileKey，没有时使用路径
+     */
+    public static Object keyOf(Path path, Object fileKey) {
+        return fileKey != null ? fileKey : path;
+    }
+
+    /**
+     * 按inode查找状态
+     */
+    public TailState get(Object key) {
+        return states.get(key);
+    }
+
+    /**
+     * 路径当前对应的状态
+     */
+    public TailState getByPath(Path path) {
+        Object key = keys.get(path);
+        return key == null ? null : states.get(key);
+    }
+
+    /**
+     * 路径上次记录的inode
+     */
+    public Object keyOfPath(Path path) {
+        return keys.get(path);
+    }
+
+    /**
+     * 为路径上的文件建立状态，覆盖同一inode已有的状态
+     */
+    public TailState track(Path path, Object key, long position, long lastModified) {
+        TailState state = new TailState(key, path, position, lastModified);
+        states.put(key, state);
+        keys.put(path, key);
+        return state;
+    }
+
+    /**
+     * inode被重命名到新路径，状态随之迁移
+     */
+    public void move(TailState state, Path path) {
+        Path previous = state.path;
+        state.path = path;
+        keys.remove(previous, state.key);
+        keys.put(path, state.key);
+    }
+
+    /**
+     * 移除路径的索引，状态仍属于该路径时一并移除
+     * @return 路径原来对应的状态，已迁移到其他路径的不返回
+     */
+    public TailState remove(Path path) {
+        Object key = keys.remove(path);
+        if (key == null) {
+            return null;
+        }
+        TailState state = states.get(key);
+        if (state == null || !state.path.equals(path)) {
+            return null;
+        }
+        states.remove(key, state);
+        return state;
+    }
+
+    /**
+     * 移除状态及其路径索引
+     */
+    public void remove(TailState state) {
+        states.remove(state.key, state);
+        keys.remove(state.path, state.key);
+    }
+
+    /**
+     * 目录下（含子目录）的所有状态，目录移动时逐个迁移
+     */
+    public List<TailState> under(Path dir) {
+        List<TailState> result = new ArrayList<>();
+        for (Map.Entry<Path, Object> entry : keys.entrySet()) {
+            if (entry.getKey().startsWith(dir)) {
+                TailState state = states.get(entry.getValue());
+                if (state != null) {
+                    result.add(state);
+                }
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return states.size();
+    }
+
+    public void clear() {
+        states.clear();
+        keys.clear();
+    }
+
+    /**
+     * 单个inode的读取状态，读取和迁移时以状态对象加锁
+     */
+    public static final class TailState {
+        /**
+         * 未记录修改时间
+         */
+        public static final long UNKNOWN_MODIFIED = Long.MIN_VALUE;
+
+        private final Object key;
+        private volatile Path path;
+        private volatile long position;
+        private volatile long lastModified;
+
+        TailState(Object key, Path path, long position, long lastModified) {
+            this.key = key;
+            this.path = path;
+            this.position = position;
+            this.lastModified = lastModified;
+        }
+
+        public Object getKey() {
+            return key;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public long getPosition() {
+            return position;
+        }
+
+        public void setPosition(long position) {
+            this.position = position;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public void setLastModified(long lastModified) {
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.cjree.filelisten.watch;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 单个目录的直接子项快照（名称 -> 类型/大小/修改时间/fileKey）
+ */
+public class DirectorySnapshot {
+
+    private final Path dir;
+    private final Map<String, EntryState> entries;
+
+    private DirectorySnapshot(Path dir, Map<String, EntryState> entries) {
+        this.dir = dir;
+        this.entries = entries;
+    }
+
+    public static DirectorySnapshot empty(Path dir) {
+        return new DirectorySnapshot(dir, new ConcurrentHashMap<>());
+    }
+
+    /**
+     * 列出并读取目录下所有直接子项的属性
+     */
+    public static DirectorySnapshot scan(Path dir) throws IOException {
+        Map<String, EntryState> entries = new ConcurrentHashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path child : stream) {
+                EntryState state = EntryState.of(child);
+                if (state != null) {
+                    entries.put(child.getFileName().toString(), state);
+                }
+            }
+        }
+        return new DirectorySnapshot(dir, entries);
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+
+    /**
+     * 目录被移动后的快照，与原快照共享子项
+     */
+    public DirectorySnapshot relocate(Path target) {
+        return new DirectorySnapshot(target, entries);
+    }
+
+    public EntryState get(String name) {
+        return entries.get(name);
+    }
+
+    public void put(String name, EntryState state) {
+        entries.put(name, state);
+    }
+
+    public EntryState remove(String name) {
+        return entries.remove(name);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 快照中的子目录
+     */
+    public List<Path> subdirectories() {
+        List<Path> subdirectories = new ArrayList<>();
+        for (Map.Entry<String, EntryState> entry : entries.entrySet()) {
+            if (entry.getValue().isDirectory()) {
+                subdirectories.add(dir.resolve(entry.getKey()));
+            }
+        }
+        return subdirectories;
+    }
+
+    /**
+     * 对比新旧快照，类型或fileKey变化的同名子项视为先删除后创建
+     */
+    public List<Change> diff(DirectorySnapshot current) {
+        List<Change> changes = new ArrayList<>();
+        for (Map.Entry<String, EntryState> entry : current.entries.entrySet()) {
+            EntryState previous = entries.get(entry.getKey());
+            EntryState now = entry.getValue();
+            if (previous == null || previous.isDirectory() != now.isDirectory() || replaced(previous, now)) {
+                if (previous != null) {
+                    changes.add(new Change(ChangeType.DELETED, entry.getKey(), previous));
+                }
+                changes.add(new Change(ChangeType.CREATED, entry.getKey(), now));
+            } else if (!now.isDirectory() && (previous.getSize() != now.getSize() || previous.getLastModified() != now.getLastModified())) {
+                changes.add(new Change(ChangeType.MODIFIED, entry.getKey(), now));
+            }
+        }
+        for (Map.Entry<String, EntryState> entry : entries.entrySet()) {
+            if (!current.entries.containsKey(entry.getKey())) {
+                changes.add(new Change(ChangeType.DELETED, entry.getKey(), entry.getValue()));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * 同名子项的fileKey变化说明原文件已被替换（如日志轮转后重建）
+     */
+    private static boolean replaced(EntryState previous, EntryState now) {
+        return previous.getFileKey() != null && now.getFileKey() != null && !previous.getFileKey().equals(now.getFileKey());
+    }
+
+    /**
+     * 子项属性
+     */
+    public static final class EntryState {
+        private final boolean directory;
+        private final long size;
+        private final long lastModified;
+        private final Object fileKey;
+
+        public EntryState(boolean directory, long size, long lastModified, Object fileKey) {
+            this.directory = directory;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.fileKey = fileKey;
+        }
+
+        /**
+         * 读取路径属性，路径不存在时返回null
+         */
+        public static EntryState of(Path path) throws IOException {
+            try {
+                return of(Files.readAttributes(path, BasicFileAttributes.class));
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+        }
+
+        public static EntryState of(BasicFileAttributes attributes) {
+            return new EntryState(attributes.isDirectory(), attributes.size(),
+                    attributes.lastModifiedTime().toMillis(), attributes.fileKey());
+        }
+
+        public boolean isDirectory() {
+            return directory;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public Object getFileKey() {
+            return fileKey;
+        }
+    }
+
+    public enum ChangeType {
+        CREATED, DELETED, MODIFIED
+    }
+
+    /**
+     * 快照差异
+     */
+    public static final class Change {
+        private final ChangeType type;
+        private final String name;
+        private final EntryState state;
+
+        Change(ChangeType type, String name, EntryState state) {
+            this.type = type;
+            this.name = name;
+            this.state = state;
+        }
+
+        public ChangeType getType() {
+            return type;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public EntryState getState() {
+            return state;
+        }
+    }
+}
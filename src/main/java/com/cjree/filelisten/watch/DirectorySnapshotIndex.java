@@ -0,0 +1,66 @@
+package com.cjree.filelisten.watch;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 已监听目录的子项快照索引，用于溢出后的差异重扫
+ * 注册目录时建立快照，处理事件时同步更新
+ */
+public class DirectorySnapshotIndex {
+
+    private final Map<Path, DirectorySnapshot> snapshots = new ConcurrentHashMap<>();
+
+    public DirectorySnapshot get(Path dir) {
+        return snapshots.get(dir);
+    }
+
+    public void put(DirectorySnapshot snapshot) {
+        snapshots.put(snapshot.getDir(), snapshot);
+    }
+
+    public DirectorySnapshot remove(Path dir) {
+        return snapshots.remove(dir);
+    }
+
+    /**
+     * 事件处理后刷新单个子项
+     */
+    public void refresh(Path path) {
+        Path dir = path.getParent();
+        DirectorySnapshot snapshot = dir == null ? null : snapshots.get(dir);
+        if (snapshot == null) {
+            return;
+        }
+        String name = path.getFileName().toString();
+        try {
+            DirectorySnapshot.EntryState state = DirectorySnapshot.EntryState.of(path);
+            if (state == null) {
+                snapshot.remove(name);
+            } else {
+                snapshot.put(name, state);
+            }
+        } catch (IOException e) {
+            snapshot.remove(name);
+        }
+    }
+
+    /**
+     * 查询子项在快照中的状态，未知返回null
+     */
+    public DirectorySnapshot.EntryState lookup(Path path) {
+        Path dir = path.getParent();
+        DirectorySnapshot snapshot = dir == null ? null : snapshots.get(dir);
+        return snapshot == null ? null : snapshot.get(path.getFileName().toString());
+    }
+
+    public void clear() {
+        snapshots.clear();
+    }
+
+    public int size() {
+        return snapshots.size();
+    }
+}
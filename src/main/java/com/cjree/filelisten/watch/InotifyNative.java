@@ -0,0 +1,70 @@
+package com.cjree.filelisten.watch;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+
+/**
+ * inotify系统调用的JNI入口，本地库源码见 src/main/native，需用 mvn -Pinotify compile 构建，未构建时加载失败
+ * 运行所需的Java 17上外部函数与内存API（FFM）仍为孵化模块（Java 22才正式发布），因此通过JNI调用。
+ * 出错时返回 -errno
+ */
+@Slf4j
+final class InotifyNative {
+
+    static final int IN_MODIFY = 0x00000002;
+    static final int IN_CLOSE_WRITE = 0x00000008;
+    static final int IN_MOVED_FROM = 0x00000040;
+    static final int IN_MOVED_TO = 0x00000080;
+    static final int IN_CREATE = 0x00000100;
+    static final int IN_DELETE = 0x00000200;
+    static final int IN_Q_OVERFLOW = 0x00004000;
+    static final int IN_IGNORED = 0x00008000;
+    static final int IN_ONLYDIR = 0x01000000;
+    static final int IN_EXCL_UNLINK = 0x04000000;
+    static final int IN_ISDIR = 0x40000000;
+
+    private static final String LIBRARY_NAME = "filelisten-inotify";
+
+    private static volatile Boolean available;
+
+    private InotifyNative() {
+    }
+
+    /**
+     * 加载本地库，只尝试一次
+     * @param libraryPath 库文件绝对路径，为空时按java.library.path查找
+     * @return 是否可用
+     */
+    static synchronized boolean load(String libraryPath) {
+        if (available != null) {
+            return available;
+        }
+        try {
+            if (libraryPath != null && !libraryPath.isEmpty()) {
+                System.load(libraryPath);
+            } else {
+                System.loadLibrary(LIBRARY_NAME);
+            }
+            available = Boolean.TRUE;
+        } catch (UnsatisfiedLinkError | SecurityException e) {
+            log.warn("inotify本地库加载失败: {}", e.getMessage());
+            available = Boolean.FALSE;
+        }
+        return available;
+    }
+
+    static native int init();
+
+    static native int addWatch(int fd, byte[] path, int mask);
+
+    static native int removeWatch(int fd, int wd);
+
+    /**
+     * 等待最多timeoutMs后把事件批量读入直接缓冲区
+     * @return 读取的字节数，超时返回0
+     */
+    static native int read(int fd, ByteBuffer buffer, int capacity, int timeoutMs);
+
+    static native int close(int fd);
+}
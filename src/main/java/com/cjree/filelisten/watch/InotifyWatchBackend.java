@@ -0,0 +1,345 @@
+package com.cjree.filelisten.watch;
+
+import com.cjree.filelisten.enums.WatchBackendEnum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 直接调用inotify的监听后端（仅Linux，需要本地库）
+ * 与JDK实现相比：事件一次批量读入较大的直接缓冲区，wd到WatchKey用int键哈希表映射，
+ * 可选择IN_CLOSE_WRITE代替IN_MODIFY，并保留移动事件（IN_MOVED_FROM/IN_MOVED_TO）的cookie
+ */
+@Slf4j
+public class InotifyWatchBackend implements WatchBackend {
+
+    // struct inotify_event 的固定头：wd、mask、cookie、len
+    private static final int EVENT_HEADER_SIZE = 16;
+
+    // 读取线程检查关闭标记的间隔
+    private static final int POLL_TIMEOUT_MS = 500;
+
+    private static final int ENOENT = 2;
+    private static final int EACCES = 13;
+    private static final int ENOTDIR = 20;
+    private static final int ENOSPC = 28;
+
+    private final int fd;
+    private final int mask;
+    private final ByteBuffer buffer;
+    private final Charset charset;
+
+    // wd -> WatchKey，读写均在keys上同步
+    private final IntObjectHashMap<InotifyKey> keys = new IntObjectHashMap<>(1024);
+    private final LinkedBlockingQueue<WatchKey> signalled = new LinkedBlockingQueue<>();
+    private final Thread reader;
+
+    private volatile boolean closed;
+    private byte[] nameBytes = new byte[256];
+
+    // read系统调用次数
+    private final LongAdder readCount = new LongAdder();
+
+    // 读取的事件数
+    private final LongAdder eventCount = new LongAdder();
+
+    // 内核事件队列溢出次数
+    private final LongAdder overflowCount = new LongAdder();
+
+    /**
+     * 加载本地库
+     * @param libraryPath 库文件绝对路径，为空时按java.library.path查找
+     */
+    public static boolean isAvailable(String libraryPath) {
+        return InotifyNative.load(libraryPath);
+    }
+
+    /**
+     * @param bufferSize 事件读取缓冲区大小（字节）
+     * @param events     订阅的事件，逗号分隔：CREATE、DELETE、MODIFY、CLOSE_WRITE、MOVED_FROM、MOVED_TO
+     * @param name       读取线程名
+     */
+    public InotifyWatchBackend(int bufferSize, String events, String name) throws IOException {
+        int result = InotifyNative.init();
+        if (result < 0) {
+            throw new IOException("inotify_init1 failed, errno: " + -result);
+        }
+        this.fd = result;
+        this.mask = maskOf(events) | InotifyNative.IN_ONLYDIR | InotifyNative.IN_EXCL_UNLINK;
+        this.buffer = ByteBuffer.allocateDirect(Math.max(4096, bufferSize)).order(ByteOrder.nativeOrder());
+        this.charset = fileNameCharset();
+        this.reader = new Thread(this::readLoop, name);
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    @Override
+    public WatchBackendEnum getType() {
+        return WatchBackendEnum.INOTIFY;
+    }
+
+    @Override
+    public WatchKey register(Path dir) throws IOException {
+        if (closed) {
+            throw new ClosedWatchServiceException();
+        }
+        int wd = InotifyNative.addWatch(fd, dir.toString().getBytes(charset), mask);
+        if (wd < 0) {
+            throw toException(dir, -wd);
+        }
+        synchronized (keys) {
+            // 同一个目录重复注册时内核返回相同的wd
+            InotifyKey existing = keys.get(wd);
+            if (existing != null && existing.isValid()) {
+                return existing;
+            }
+            InotifyKey key = new InotifyKey(dir, wd);
+            keys.put(wd, key);
+            return key;
+        }
+    }
+
+    @Override
+    public boolean reportsMoveCookies() {
+        return true;
+    }
+
+    @Override
+    public boolean followsMoves() {
+        return true;
+    }
+
+    @Override
+    public WatchKey poll(long timeout, TimeUnit unit) throws InterruptedException {
+        if (closed) {
+            throw new ClosedWatchServiceException();
+        }
+        return signalled.poll(timeout, unit);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (keys) {
+            keys.forEachValue(QueuedWatchKey::invalidate);
+            keys.clear();
+        }
+    }
+
+    private void readLoop() {
+        try {
+            while (!closed) {
+                int n = InotifyNative.read(fd, buffer, buffer.capacity(), POLL_TIMEOUT_MS);
+                if (n < 0) {
+                    log.error("inotify read failed, errno: {}", -n);
+                    TimeUnit.MILLISECONDS.sleep(POLL_TIMEOUT_MS);
+                    continue;
+                }
+                if (n > 0) {
+                    readCount.increment();
+                    parse(n);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Error in inotify reader", e);
+        } finally {
+            InotifyNative.close(fd);
+        }
+    }
+
+    /**
+     * 解析一次读取的全部事件
+     */
+    private void parse(int length) {
+        buffer.clear();
+        buffer.limit(length);
+        while (buffer.remaining() >= EVENT_HEADER_SIZE) {
+            int wd = buffer.getInt();
+            int eventMask = buffer.getInt();
+            int cookie = buffer.getInt();
+            int nameLength = buffer.getInt();
+            if (nameLength > buffer.remaining()) {
+                break;
+            }
+            String name = null;
+            if (nameLength > 0) {
+                if (nameBytes.length < nameLength) {
+                    nameBytes = new byte[nameLength];
+                }
+                buffer.get(nameBytes, 0, nameLength);
+                // 名称以NUL结尾并按对齐填充
+                int end = 0;
+                while (end < nameLength && nameBytes[end] != 0) {
+                    end++;
+                }
+                name = new String(nameBytes, 0, end, charset);
+            }
+            dispatch(wd, eventMask, cookie, name);
+        }
+    }
+
+    private void dispatch(int wd, int eventMask, int cookie, String name) {
+        eventCount.increment();
+        if ((eventMask & InotifyNative.IN_Q_OVERFLOW) != 0) {
+            // 与JDK一致，溢出通知到所有目录，由上层重扫
+            overflowCount.increment();
+            synchronized (keys) {
+                keys.forEachValue(key -> key.signal(new PathWatchEvent(StandardWatchEventKinds.OVERFLOW, null)));
+            }
+            return;
+        }
+        InotifyKey key;
+        synchronized (keys) {
+            key = keys.get(wd);
+            if (key != null && (eventMask & InotifyNative.IN_IGNORED) != 0) {
+                keys.remove(wd);
+            }
+        }
+        if (key == null) {
+            return;
+        }
+        if ((eventMask & InotifyNative.IN_IGNORED) != 0) {
+            // 目录被删除或卸载，失效的key交给分发线程，reset返回false后移除监听
+            key.invalidate();
+            key.signal(List.of());
+            return;
+        }
+        WatchEvent.Kind<Path> kind = kindOf(eventMask);
+        if (kind == null || name == null) {
+            return;
+        }
+        key.signal(new PathWatchEvent(kind, key.getDir().getFileSystem().getPath(name), cookie));
+    }
+
+    private static WatchEvent.Kind<Path> kindOf(int eventMask) {
+        if ((eventMask & (InotifyNative.IN_CREATE | InotifyNative.IN_MOVED_TO)) != 0) {
+            return StandardWatchEventKinds.ENTRY_CREATE;
+        }
+        if ((eventMask & (InotifyNative.IN_DELETE | InotifyNative.IN_MOVED_FROM)) != 0) {
+            return StandardWatchEventKinds.ENTRY_DELETE;
+        }
+        if ((eventMask & (InotifyNative.IN_MODIFY | InotifyNative.IN_CLOSE_WRITE)) != 0) {
+            return StandardWatchEventKinds.ENTRY_MODIFY;
+        }
+        return null;
+    }
+
+    /**
+     * 解析订阅的事件列表
+     */
+    static int maskOf(String events) {
+        int result = 0;
+        for (String event : events.split(",")) {
+            switch (event.trim().toUpperCase()) {
+                case "CREATE":
+                    result |= InotifyNative.IN_CREATE;
+                    break;
+                case "DELETE":
+                    result |= InotifyNative.IN_DELETE;
+                    break;
+                case "MODIFY":
+                    result |= InotifyNative.IN_MODIFY;
+                    break;
+                case "CLOSE_WRITE":
+                    result |= InotifyNative.IN_CLOSE_WRITE;
+                    break;
+                case "MOVED_FROM":
+                    result |= InotifyNative.IN_MOVED_FROM;
+                    break;
+                case "MOVED_TO":
+                    result |= InotifyNative.IN_MOVED_TO;
+                    break;
+                case "":
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知的inotify事件: " + event);
+            }
+        }
+        return result;
+    }
+
+    private static IOException toException(Path dir, int errno) {
+        switch (errno) {
+            case ENOENT:
+                return new NoSuchFileException(dir.toString());
+            case ENOTDIR:
+                return new NotDirectoryException(dir.toString());
+            case EACCES:
+                return new AccessDeniedException(dir.toString());
+            case ENOSPC:
+                return new IOException("inotify监听数已达上限(fs.inotify.max_user_watches): " + dir);
+            default:
+                return new IOException("inotify_add_watch failed, errno: " + errno + ", path: " + dir);
+        }
+    }
+
+    /**
+     * 文件名编码，与JDK解析路径时使用的一致
+     */
+    private static Charset fileNameCharset() {
+        String encoding = System.getProperty("sun.jnu.encoding");
+        try {
+            return encoding == null ? Charset.defaultCharset() : Charset.forName(encoding);
+        } catch (Exception e) {
+            return Charset.defaultCharset();
+        }
+    }
+
+    public int getDirectoryCount() {
+        synchronized (keys) {
+            return keys.size();
+        }
+    }
+
+    public long getReadCount() {
+        return readCount.sum();
+    }
+
+    public long getEventCount() {
+        return eventCount.sum();
+    }
+
+    public long getOverflowCount() {
+        return overflowCount.sum();
+    }
+
+    private final class InotifyKey extends QueuedWatchKey {
+        private final int wd;
+
+        InotifyKey(Path dir, int wd) {
+            super(dir, signalled);
+            this.wd = wd;
+        }
+
+        @Override
+        public void cancel() {
+            if (!isValid()) {
+                return;
+            }
+            invalidate();
+            synchronized (keys) {
+                if (keys.get(wd) == this) {
+                    keys.remove(wd);
+                }
+            }
+            InotifyNative.removeWatch(fd, wd);
+        }
+    }
+}
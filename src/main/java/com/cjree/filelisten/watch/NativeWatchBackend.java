@@ -0,0 +1,68 @@
+package com.cjree.filelisten.watch;
+
+import com.cjree.filelisten.enums.WatchBackendEnum;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于JDK WatchService的监听后端（Linux下为inotify）
+ */
+public class NativeWatchBackend implements WatchBackend {
+
+    private final WatchService watchService;
+
+    private final boolean followsMoves;
+
+    /**
+     * @param followsMoves 监听是否跟随目录移动，见 {@link #resolveFollowsMoves(Boolean)}
+     */
+    public NativeWatchBackend(FileSystem fileSystem, boolean followsMoves) throws IOException {
+        this.watchService = fileSystem.newWatchService();
+        this.followsMoves = followsMoves;
+    }
+
+    /**
+     * 未配置时按操作系统判断：Linux下JDK的WatchService基于inotify，监听跟随目录inode；其他平台按路径监听
+     */
+    public static boolean resolveFollowsMoves(Boolean configured) {
+        if (configured != null) {
+            return configured;
+        }
+        return System.getProperty("os.name", "").toLowerCase().startsWith("linux");
+    }
+
+    @Override
+    public WatchBackendEnum getType() {
+        return WatchBackendEnum.NATIVE;
+    }
+
+    @Override
+    public WatchKey register(Path dir) throws IOException {
+        WatchKey key = dir.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        return key;
+    }
+
+    @Override
+    public boolean followsMoves() {
+        return followsMoves;
+    }
+
+    @Override
+    public WatchKey poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return watchService.poll(timeout, unit);
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
@@ -0,0 +1,191 @@
+package com.cjree.filelisten.watch;
+
+import com.cjree.filelisten.event.FileEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 事件队列溢出后的目录重扫
+ * 重新列出溢出的目录并与内存快照对比，补发丢失的创建/删除/修改事件，新出现的子目录通过创建事件完成注册。
+ * 同一目录同时最多只有一个待执行的重扫，两次重扫至少间隔minInterval，期间的重复请求合并为一次；
+ * 重扫在固定大小的线程池中并行执行，溢出风暴时排队而不是无限制地占用IO
+ */
+@Slf4j
+public class OverflowRescanner {
+
+    private static final int IDLE = 0;
+    private static final int SCHEDULED = 1;
+    private static final int RUNNING = 2;
+    // 执行期间又收到请求，结束后需要再扫一次
+    private static final int RUNNING_DIRTY = 3;
+
+    private final DirectorySnapshotIndex snapshots;
+    private final int parallelism;
+    private final long minIntervalNanos;
+    private final Consumer<FileEvent> sink;
+
+    private final Map<Path, RescanState> states = new ConcurrentHashMap<>();
+
+    private ScheduledThreadPoolExecutor executor;
+
+    // 收到的重扫请求数
+    private final LongAdder requestedCount = new LongAdder();
+
+    // 实际执行的重扫次数
+    private final LongAdder rescanCount = new LongAdder();
+
+    // 补发的事件数
+    private final LongAdder synthesizedCount = new LongAdder();
+
+    /**
+     * @param snapshots     目录快照索引
+     * @param parallelism   并行重扫的线程数
+     * @param minIntervalMs 同一目录两次重扫的最小间隔（毫秒）
+     * @param sink          补发事件的下游
+     */
+    public OverflowRescanner(DirectorySnapshotIndex snapshots, int parallelism, long minIntervalMs, Consumer<FileEvent> sink) {
+        this.snapshots = snapshots;
+        this.parallelism = Math.max(1, parallelism);
+        this.minIntervalNanos = TimeUnit.MILLISECONDS.toNanos(minIntervalMs);
+        this.sink = sink;
+    }
+
+    public void start() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ScheduledThreadPoolExecutor(parallelism, r -> {
+            Thread thread = new Thread(r, "overflow-rescan-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * 请求重扫目录，已有待执行的重扫时直接合并
+     */
+    public void requestRescan(Path dir) {
+        requestedCount.increment();
+        RescanState state = states.computeIfAbsent(dir, d -> new RescanState());
+        while (true) {
+            int status = state.status.get();
+            if (status == IDLE) {
+                if (state.status.compareAndSet(IDLE, SCHEDULED)) {
+                    schedule(dir, state);
+                    return;
+                }
+            } else if (status == RUNNING) {
+                if (state.status.compareAndSet(RUNNING, RUNNING_DIRTY)) {
+                    return;
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 目录不再监听时清理状态
+     */
+    public void forget(Path dir) {
+        states.remove(dir);
+    }
+
+    private void schedule(Path dir, RescanState state) {
+        long delay = Math.max(0, state.lastRunNanos + minIntervalNanos - System.nanoTime());
+        executor.schedule(() -> run(dir, state), delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void run(Path dir, RescanState state) {
+        state.status.set(RUNNING);
+        try {
+            rescan(dir);
+        } catch (Exception e) {
+            log.error("Error rescanning directory after overflow: {}", dir, e);
+        } finally {
+            state.lastRunNanos = System.nanoTime();
+            if (!state.status.compareAndSet(RUNNING, IDLE)) {
+                state.status.set(SCHEDULED);
+                schedule(dir, state);
+            }
+        }
+    }
+
+    /**
+     * 重新列出目录并补发与快照的差异
+     */
+    void rescan(Path dir) throws IOException {
+        DirectorySnapshot current;
+        try {
+            current = DirectorySnapshot.scan(dir);
+        } catch (NoSuchFileException e) {
+            // 目录已被删除，由WatchKey失效处理
+            return;
+        }
+        DirectorySnapshot previous = snapshots.get(dir);
+        if (previous == null) {
+            previous = DirectorySnapshot.empty(dir);
+        }
+        List<DirectorySnapshot.Change> changes = previous.diff(current);
+        snapshots.put(current);
+        rescanCount.increment();
+        for (DirectorySnapshot.Change change : changes) {
+            sink.accept(new FileEvent(dir, dir.resolve(change.getName()), kindOf(change.getType())));
+        }
+        synthesizedCount.add(changes.size());
+        log.info("事件队列溢出, 重扫目录: {}, 补发事件数: {}", dir, changes.size());
+    }
+
+    private static WatchEvent.Kind<?> kindOf(DirectorySnapshot.ChangeType type) {
+        switch (type) {
+            case CREATED:
+                return StandardWatchEventKinds.ENTRY_CREATE;
+            case DELETED:
+                return StandardWatchEventKinds.ENTRY_DELETE;
+            default:
+                return StandardWatchEventKinds.ENTRY_MODIFY;
+        }
+    }
+
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        states.clear();
+        log.info("溢出重扫统计 请求: {}, 执行: {}, 补发事件: {}",
+                getRequestedCount(), getRescanCount(), getSynthesizedCount());
+    }
+
+    public long getRequestedCount() {
+        return requestedCount.sum();
+    }
+
+    public long getRescanCount() {
+        return rescanCount.sum();
+    }
+
+    public long getSynthesizedCount() {
+        return synthesizedCount.sum();
+    }
+
+    public int getPendingCount() {
+        return executor == null ? 0 : executor.getQueue().size();
+    }
+
+    private static final class RescanState {
+        private final AtomicInteger status = new AtomicInteger(IDLE);
+        private volatile long lastRunNanos = System.nanoTime() - TimeUnit.DAYS.toNanos(1);
+    }
+}
@@ -0,0 +1,110 @@
+package com.cjree.filelisten.watch;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于fork/join的并行目录遍历
+ * 每个目录由访问器处理并返回需要继续下探的子目录，子目录拆分为子任务由工作线程窃取执行；
+ * 单个目录处理失败只记录日志，不影响其他分支
+ */
+@Slf4j
+public class ParallelDirectoryWalker {
+
+    private final ForkJoinPool pool;
+
+    /**
+     * @param parallelism 并行度
+     */
+    public ParallelDirectoryWalker(int parallelism) {
+        this.pool = new ForkJoinPool(Math.max(1, parallelism), p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("dir-walker-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * 从根目录开始并行遍历，阻塞直到整棵树处理完成
+     */
+    public WalkResult walk(Path root, DirectoryVisitor visitor) {
+        WalkResult result = new WalkResult();
+        pool.invoke(new WalkTask(root, visitor, result));
+        return result;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * 目录访问器
+     */
+    public interface DirectoryVisitor {
+        /**
+         * 处理单个目录
+         * @return 需要继续遍历的子目录，null表示目录被跳过（如已注册）
+         */
+        List<Path> visit(Path dir) throws Exception;
+    }
+
+    /**
+     * 遍历结果
+     */
+    public static final class WalkResult {
+        private final LongAdder visited = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+
+        public long getVisited() {
+            return visited.sum();
+        }
+
+        public long getFailed() {
+            return failed.sum();
+        }
+    }
+
+    private static final class WalkTask extends RecursiveAction {
+        private final Path dir;
+        private final DirectoryVisitor visitor;
+        private final WalkResult result;
+
+        WalkTask(Path dir, DirectoryVisitor visitor, WalkResult result) {
+            this.dir = dir;
+            this.visitor = visitor;
+            this.result = result;
+        }
+
+        @Override
+        protected void compute() {
+            List<Path> children;
+            try {
+                children = visitor.visit(dir);
+                if (children == null) {
+                    return;
+                }
+                result.visited.increment();
+            } catch (Exception e) {
+                result.failed.increment();
+                log.warn("遍历目录失败: {}", dir, e);
+                return;
+            }
+            if (children.isEmpty()) {
+                return;
+            }
+            List<WalkTask> tasks = new ArrayList<>(children.size());
+            for (Path child : children) {
+                tasks.add(new WalkTask(child, visitor, result));
+            }
+            invokeAll(tasks);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.cjree.filelisten.watch;
+
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+
+/**
+ * 自实现监听后端产生的事件
+ */
+final class PathWatchEvent implements WatchEvent<Path> {
+
+    private final Kind<?> kind;
+    private final Path context;
+    // inotify的移动事件关联值，其他为0
+    private final int cookie;
+
+    PathWatchEvent(Kind<?> kind, Path context) {
+        this(kind, context, 0);
+    }
+
+    /**
+     * @param kind    事件类型，OVERFLOW时context为null
+     * @param context 相对于监听目录的名称
+     * @param cookie  inotify移动事件的关联值
+     */
+    PathWatchEvent(Kind<?> kind, Path context, int cookie) {
+        this.kind = kind;
+        this.context = context;
+        this.cookie = cookie;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Kind<Path> kind() {
+        return (Kind<Path>) kind;
+    }
+
+    @Override
+    public int count() {
+        return 1;
+    }
+
+    @Override
+    public Path context() {
+        return context;
+    }
+
+    /**
+     * 同一次移动的MOVED_FROM/MOVED_TO事件cookie相同，移动事件配对按此关联（见WatchBackend.moveCookie）
+     */
+    int getCookie() {
+        return cookie;
+    }
+}
@@ -0,0 +1,254 @@
+package com.cjree.filelisten.watch;
+
+import com.cjree.filelisten.enums.WatchBackendEnum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 定时轮询的监听后端，用于NFS、CIFS、部分容器overlay等收不到原生通知的挂载点
+ * 每个目录保存子项快照（大小/修改时间/fileKey），到期后重新列出并对比生成事件；
+ * 轮询间隔按目录自适应：有变化时回到最小间隔，无变化时逐次翻倍直至最大间隔；
+ * 所有目录共享每秒stat次数上限，超出时轮询线程等待，避免压垮远程文件系统
+ */
+@Slf4j
+public class PollingWatchBackend implements WatchBackend {
+
+    private final long minIntervalNanos;
+    private final long maxIntervalNanos;
+    // 每次stat占用的时间配额，0表示不限速
+    private final long nanosPerStat;
+
+    private final Map<Path, PollingKey> keys = new ConcurrentHashMap<>();
+    private final DelayQueue<PollingKey> schedule = new DelayQueue<>();
+    private final LinkedBlockingQueue<WatchKey> signalled = new LinkedBlockingQueue<>();
+    private final Thread poller;
+
+    private volatile boolean closed;
+    private long nextFreeNanos;
+
+    // 完成的目录轮询次数
+    private final LongAdder pollCount = new LongAdder();
+
+    // stat调用次数
+    private final LongAdder statCount = new LongAdder();
+
+    // 生成的事件数
+    private final LongAdder eventCount = new LongAdder();
+
+    /**
+     * @param minIntervalMs     最小轮询间隔（毫秒）
+     * @param maxIntervalMs     最大轮询间隔（毫秒）
+     * @param maxStatsPerSecond 每秒stat次数上限，0表示不限
+     */
+    public PollingWatchBackend(long minIntervalMs, long maxIntervalMs, int maxStatsPerSecond) {
+        this.minIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, minIntervalMs));
+        this.maxIntervalNanos = Math.max(minIntervalNanos, TimeUnit.MILLISECONDS.toNanos(maxIntervalMs));
+        this.nanosPerStat = maxStatsPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / maxStatsPerSecond : 0;
+        this.poller = new Thread(this::pollLoop, "watch-poller");
+        this.poller.setDaemon(true);
+        this.poller.start();
+    }
+
+    @Override
+    public WatchBackendEnum getType() {
+        return WatchBackendEnum.POLLING;
+    }
+
+    @Override
+    public WatchKey register(Path dir) throws IOException {
+        if (closed) {
+            throw new ClosedWatchServiceException();
+        }
+        PollingKey existing = keys.get(dir);
+        if (existing != null && existing.isValid()) {
+            return existing;
+        }
+        DirectorySnapshot snapshot;
+        try {
+            snapshot = DirectorySnapshot.scan(dir);
+        } catch (NoSuchFileException e) {
+            throw new NotDirectoryException(dir.toString());
+        }
+        PollingKey key = new PollingKey(dir, snapshot);
+        keys.put(dir, key);
+        key.scheduleAfter(minIntervalNanos);
+        schedule.offer(key);
+        return key;
+    }
+
+    @Override
+    public WatchKey poll(long timeout, TimeUnit unit) throws InterruptedException {
+        if (closed) {
+            throw new ClosedWatchServiceException();
+        }
+        return signalled.poll(timeout, unit);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        poller.interrupt();
+        keys.values().forEach(PollingKey::cancel);
+        schedule.clear();
+    }
+
+    private void pollLoop() {
+        while (!closed) {
+            PollingKey key;
+            try {
+                key = schedule.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (!key.isValid()) {
+                continue;
+            }
+            try {
+                pollDirectory(key);
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                log.error("Error polling directory: {}", key.dir, e);
+            }
+            if (key.isValid()) {
+                schedule.offer(key);
+            }
+        }
+    }
+
+    private void pollDirectory(PollingKey key) throws InterruptedException, IOException {
+        // 按上次的子项数预估本次stat次数
+        acquireStats(key.snapshot.size() + 1);
+        DirectorySnapshot current;
+        try {
+            current = DirectorySnapshot.scan(key.dir);
+        } catch (NoSuchFileException | NotDirectoryException e) {
+            // 目录已被删除，补发子项的删除事件后让key失效，分发线程reset返回false后移除监听
+            key.invalidate();
+            key.signal(toEvents(key, key.snapshot.diff(DirectorySnapshot.empty(key.dir))));
+            return;
+        }
+        statCount.add(current.size() + 1);
+        pollCount.increment();
+        List<DirectorySnapshot.Change> changes = key.snapshot.diff(current);
+        key.snapshot = current;
+        if (changes.isEmpty()) {
+            // 无变化的目录逐步退避
+            key.interval = Math.min(maxIntervalNanos, key.interval * 2);
+        } else {
+            key.interval = minIntervalNanos;
+            key.signal(toEvents(key, changes));
+        }
+        key.scheduleAfter(key.interval);
+    }
+
+    private List<WatchEvent<?>> toEvents(PollingKey key, List<DirectorySnapshot.Change> changes) {
+        List<WatchEvent<?>> events = new ArrayList<>(changes.size());
+        for (DirectorySnapshot.Change change : changes) {
+            events.add(new PathWatchEvent(kindOf(change.getType()), key.dir.getFileSystem().getPath(change.getName())));
+        }
+        eventCount.add(events.size());
+        return events;
+    }
+
+    /**
+     * 按每秒stat上限计算等待时间，单线程调用
+     */
+    private void acquireStats(int stats) throws InterruptedException {
+        if (nanosPerStat == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        long wait = nextFreeNanos - now;
+        nextFreeNanos = Math.max(now, nextFreeNanos) + stats * nanosPerStat;
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    private static WatchEvent.Kind<Path> kindOf(DirectorySnapshot.ChangeType type) {
+        switch (type) {
+            case CREATED:
+                return StandardWatchEventKinds.ENTRY_CREATE;
+            case DELETED:
+                return StandardWatchEventKinds.ENTRY_DELETE;
+            default:
+                return StandardWatchEventKinds.ENTRY_MODIFY;
+        }
+    }
+
+    public int getDirectoryCount() {
+        return keys.size();
+    }
+
+    public long getPollCount() {
+        return pollCount.sum();
+    }
+
+    public long getStatCount() {
+        return statCount.sum();
+    }
+
+    public long getEventCount() {
+        return eventCount.sum();
+    }
+
+    /**
+     * 轮询目录的WatchKey，同时作为调度队列中的元素
+     */
+    private final class PollingKey extends QueuedWatchKey implements Delayed {
+        private final Path dir;
+        private volatile DirectorySnapshot snapshot;
+        private long interval = minIntervalNanos;
+        private volatile long dueNanos;
+
+        PollingKey(Path dir, DirectorySnapshot snapshot) {
+            super(dir, signalled);
+            this.dir = dir;
+            this.snapshot = snapshot;
+        }
+
+        void scheduleAfter(long delayNanos) {
+            dueNanos = System.nanoTime() + delayNanos;
+        }
+
+        @Override
+        void invalidate() {
+            super.invalidate();
+            keys.remove(dir, this);
+        }
+
+        @Override
+        public void cancel() {
+            invalidate();
+            schedule.remove(this);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((PollingKey) other).dueNanos);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.cjree.filelisten.watch;
+
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.Watchable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * 自实现监听后端的WatchKey
+ * 有事件时进入后端的就绪队列，分发线程取出事件并reset后，若期间又有新事件则重新入队，语义与JDK一致
+ */
+class QueuedWatchKey implements WatchKey {
+
+    private final Path dir;
+    private final Queue<WatchKey> signalled;
+    private final List<WatchEvent<?>> events = new ArrayList<>();
+    private boolean queued;
+    private volatile boolean valid = true;
+
+    QueuedWatchKey(Path dir, Queue<WatchKey> signalled) {
+        this.dir = dir;
+        this.signalled = signalled;
+    }
+
+    Path getDir() {
+        return dir;
+    }
+
+    synchronized void signal(WatchEvent<?> event) {
+        events.add(event);
+        enqueue();
+    }
+
+    synchronized void signal(List<WatchEvent<?>> newEvents) {
+        events.addAll(newEvents);
+        enqueue();
+    }
+
+    private void enqueue() {
+        if (!queued) {
+            queued = true;
+            signalled.offer(this);
+        }
+    }
+
+    /**
+     * 标记失效，不再产生事件
+     */
+    void invalidate() {
+        valid = false;
+    }
+
+    @Override
+    public boolean isValid() {
+        return valid;
+    }
+
+    @Override
+    public synchronized List<WatchEvent<?>> pollEvents() {
+        List<WatchEvent<?>> result = new ArrayList<>(events);
+        events.clear();
+        return result;
+    }
+
+    @Override
+    public synchronized boolean reset() {
+        if (!valid) {
+            return false;
+        }
+        // 分发期间又有新事件，重新入队
+        if (!events.isEmpty()) {
+            signalled.offer(this);
+        } else {
+            queued = false;
+        }
+        return true;
+    }
+
+    @Override
+    public void cancel() {
+        invalidate();
+    }
+
+    @Override
+    public Watchable watchable() {
+        return dir;
+    }
+}
@@ -0,0 +1,52 @@
+package com.cjree.filelisten.watch;
+
+/**
+ * 启动时单个监听根目录的注册耗时
+ */
+public class RegistrationTiming {
+
+    private final String root;
+    private final long directories;
+    private final long failed;
+    private final long registerMillis;
+
+    public RegistrationTiming(String root, long directories, long failed, long registerMillis) {
+        this.root = root;
+        this.directories = directories;
+        this.failed = failed;
+        this.registerMillis = registerMillis;
+    }
+
+    /**
+     * 监听根目录
+     */
+    public String getRoot() {
+        return root;
+    }
+
+    /**
+     * 注册的目录数
+     */
+    public long getDirectories() {
+        return directories;
+    }
+
+    /**
+     * 注册失败的目录数
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * 遍历并注册的耗时（毫秒）
+     */
+    public long getRegisterMillis() {
+        return registerMillis;
+    }
+
+    @Override
+    public String toString() {
+        return root + " 目录数: " + directories + ", 失败: " + failed + ", 耗时: " + registerMillis + "ms";
+    }
+}
@@ -0,0 +1,55 @@
+package com.cjree.filelisten.watch;
+
+import com.cjree.filelisten.enums.WatchBackendEnum;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 目录监听后端
+ * 与WatchService的使用方式一致：注册目录得到WatchKey，分发线程poll出有事件的WatchKey，
+ * 取出事件后reset，reset返回false表示目录已失效
+ */
+public interface WatchBackend extends Closeable {
+
+    /**
+     * 监听方式
+     */
+    WatchBackendEnum getType();
+
+    /**
+     * 注册目录，监听其直接子项的创建、删除和修改
+     */
+    WatchKey register(Path dir) throws IOException;
+
+    /**
+     * 获取下一个有事件的WatchKey，超时返回null
+     */
+    WatchKey poll(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * 目录被移动后已注册的WatchKey是否继续有效（按inode监听），
+     * 有效时移动的子树只需更新路径映射，否则需在新路径重新注册
+     */
+    default boolean followsMoves() {
+        return false;
+    }
+
+    /**
+     * 是否为移动事件提供关联值（inotify的cookie），提供时删除和创建事件只按关联值配对为移动
+     */
+    default boolean reportsMoveCookies() {
+        return false;
+    }
+
+    /**
+     * 事件的移动关联值（无符号），不是移动产生的事件为0
+     */
+    static long moveCookie(WatchEvent<?> event) {
+        return event instanceof PathWatchEvent ? ((PathWatchEvent) event).getCookie() & 0xFFFFFFFFL : 0;
+    }
+}
@@ -0,0 +1,76 @@
+package com.cjree.filelisten.watch;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 监听分片：一个监听后端实例及其分发线程的统计
+ * 分发耗时指从取出WatchKey到事件全部提交、key重置完成的时间
+ */
+public class WatchShard {
+
+    private final String name;
+    private final WatchBackend backend;
+
+    // 分发的WatchKey数
+    private final LongAdder keyCount = new LongAdder();
+
+    // 分发的事件数
+    private final LongAdder eventCount = new LongAdder();
+
+    // 累计分发耗时
+    private final LongAdder dispatchNanos = new LongAdder();
+
+    // 最大分发耗时
+    private final AtomicLong maxDispatchNanos = new AtomicLong();
+
+    public WatchShard(String name, WatchBackend backend) {
+        this.name = name;
+        this.backend = backend;
+    }
+
+    /**
+     * 记录一次WatchKey分发
+     */
+    public void record(int events, long elapsedNanos) {
+        keyCount.increment();
+        eventCount.add(events);
+        dispatchNanos.add(elapsedNanos);
+        maxDispatchNanos.accumulateAndGet(elapsedNanos, Math::max);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public WatchBackend getBackend() {
+        return backend;
+    }
+
+    public long getKeyCount() {
+        return keyCount.sum();
+    }
+
+    public long getEventCount() {
+        return eventCount.sum();
+    }
+
+    /**
+     * 平均每个WatchKey的分发耗时（微秒）
+     */
+    public double getAvgDispatchMicros() {
+        long keys = keyCount.sum();
+        return keys == 0 ? 0 : dispatchNanos.sum() / (double) keys / 1000;
+    }
+
+    public long getMaxDispatchMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxDispatchNanos.get());
+    }
+
+    @Override
+    public String toString() {
+        return name + " key数: " + getKeyCount() + ", 事件数: " + getEventCount()
+                + ", 平均分发耗时: " + String.format("%.1f", getAvgDispatchMicros()) + "us, 最大: " + getMaxDispatchMicros() + "us";
+    }
+}
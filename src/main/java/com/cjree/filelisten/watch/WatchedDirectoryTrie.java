@@ -0,0 +1,293 @@
+package com.cjree.filelisten.watch;
+
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 已监听目录的路径前缀树
+ * 按路径分段组织，节点上挂WatchKey以及是否为监听配置根目录的标记，
+ * 子树移除、最近配置根查找的开销只与路径深度和子树大小有关，与监听目录总数无关
+ */
+public class WatchedDirectoryTrie {
+
+    private final Node root = new Node(null);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private int size;
+
+    /**
+     * 记录目录的WatchKey
+     */
+    public void put(Path dir, WatchKey key) {
+        lock.writeLock().lock();
+        try {
+            Node node = getOrCreate(dir);
+            if (node.key == null) {
+                size++;
+            }
+            node.key = key;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public WatchKey get(Path dir) {
+        lock.readLock().lock();
+        try {
+            Node node = find(dir);
+            return node == null ? null : node.key;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(Path dir) {
+        return get(dir) != null;
+    }
+
+    /**
+     * 移除单个目录的WatchKey，子目录保留
+     */
+    public WatchKey remove(Path dir) {
+        lock.writeLock().lock();
+        try {
+            Node node = find(dir);
+            if (node == null || node.key == null) {
+                return null;
+            }
+            WatchKey key = node.key;
+            node.key = null;
+            node.configRoot = false;
+            size--;
+            prune(node);
+            return key;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 摘除目录及其所有子目录
+     * @return 被移除的目录与WatchKey
+     */
+    public List<Map.Entry<Path, WatchKey>> removeSubtree(Path dir) {
+        lock.writeLock().lock();
+        try {
+            Node node = find(dir);
+            if (node == null) {
+                return List.of();
+            }
+            List<Map.Entry<Path, WatchKey>> removed = new ArrayList<>();
+            Deque<Node> stack = new ArrayDeque<>();
+            stack.push(node);
+            while (!stack.isEmpty()) {
+                Node current = stack.pop();
+                if (current.key != null) {
+                    removed.add(new AbstractMap.SimpleImmutableEntry<>(current.path, current.key));
+                }
+                stack.addAll(current.children.values());
+            }
+            size -= removed.size();
+            node.children.clear();
+            node.key = null;
+            node.configRoot = false;
+            prune(node);
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 目录被移动：子树中的WatchKey和配置根标记挂到新路径下
+     * @return 被移动的目录（原路径）与WatchKey
+     */
+    public List<Map.Entry<Path, WatchKey>> moveSubtree(Path source, Path target) {
+        lock.writeLock().lock();
+        try {
+            Node node = find(source);
+            if (node == null) {
+                return List.of();
+            }
+            List<Map.Entry<Path, WatchKey>> moved = new ArrayList<>();
+            Deque<Node> stack = new ArrayDeque<>();
+            stack.push(node);
+            while (!stack.isEmpty()) {
+                Node current = stack.pop();
+                if (current.key != null || current.configRoot) {
+                    Node relocated = getOrCreate(target.resolve(source.relativize(current.path)));
+                    if (current.key != null) {
+                        if (relocated.key == null) {
+                            size++;
+                        }
+                        relocated.key = current.key;
+                        moved.add(new AbstractMap.SimpleImmutableEntry<>(current.path, current.key));
+                    }
+                    relocated.configRoot |= current.configRoot;
+                }
+                stack.addAll(current.children.values());
+            }
+            size -= moved.size();
+            node.children.clear();
+            node.key = null;
+            node.configRoot = false;
+            prune(node);
+            return moved;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 标记目录为监听配置根目录（对应一条显式添加的目录配置）
+     */
+    public void markConfigRoot(Path dir) {
+        lock.writeLock().lock();
+        try {
+            getOrCreate(dir).configRoot = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查找路径所属的监听配置根目录（自身或最近的祖先）
+     * @return 配置根目录，不在任何配置下时返回null
+     */
+    public Path findConfigRoot(Path path) {
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            Path owner = null;
+            for (String segment : segments(path)) {
+                node = node.children.get(segment);
+                if (node == null) {
+                    break;
+                }
+                if (node.configRoot) {
+                    owner = node.path;
+                }
+            }
+            return owner;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 路径所在的最近一个已监听目录（自身或祖先）
+     */
+    public Path findNearestWatched(Path path) {
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            Path nearest = null;
+            for (String segment : segments(path)) {
+                node = node.children.get(segment);
+                if (node == null) {
+                    break;
+                }
+                if (node.key != null) {
+                    nearest = node.path;
+                }
+            }
+            return nearest;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            root.children.clear();
+            size = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Node find(Path dir) {
+        Node node = root;
+        for (String segment : segments(dir)) {
+            node = node.children.get(segment);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    private Node getOrCreate(Path dir) {
+        Node node = root;
+        for (String segment : segments(dir)) {
+            Node child = node.children.get(segment);
+            if (child == null) {
+                Path childPath = node == root ? dir.getFileSystem().getPath(segment) : node.path.resolve(segment);
+                child = new Node(node, childPath);
+                node.children.put(segment, child);
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * 自下而上删除既无WatchKey、也无配置标记和子节点的空节点
+     */
+    private void prune(Node node) {
+        while (node != root && node.key == null && !node.configRoot && node.children.isEmpty()) {
+            Node parent = node.parent;
+            parent.children.remove(node.path.getFileName() == null ? node.path.toString() : node.path.getFileName().toString());
+            node = parent;
+        }
+    }
+
+    /**
+     * 路径分段：根（如"/"或"C:\"）作为第一段，其后为各级名称
+     */
+    private static List<String> segments(Path path) {
+        List<String> segments = new ArrayList<>(path.getNameCount() + 1);
+        if (path.getRoot() != null) {
+            segments.add(path.getRoot().toString());
+        }
+        for (Path name : path) {
+            segments.add(name.toString());
+        }
+        return segments;
+    }
+
+    private static final class Node {
+        private final Node parent;
+        private final Path path;
+        private final Map<String, Node> children = new HashMap<>(4);
+        private WatchKey key;
+        private boolean configRoot;
+
+        Node(Node parent) {
+            this(parent, null);
+        }
+
+        Node(Node parent, Path path) {
+            this.parent = parent;
+            this.path = path;
+        }
+    }
+}
@@ -0,0 +1,536 @@
+package com.cjree.filelisten.writer;
+
+import com.cjree.filelisten.entity.FileOperationLogPo;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 操作日志预写日志
+ * 事件线程把操作日志追加到内存映射的分段文件后即返回，回放线程按顺序读出后批量写入数据库，
+ * 数据库变慢或不可用只影响回放进度，不影响事件采集。段内容定期force刷盘，回放位置单独记录，
+ * 整段回放完成后删除该段；重启后从回放位置继续，已提交但位置未落盘的记录会重复回放，由记录ID去重。
+ * 位置用一个long表示：高32位为段序号，低32位为段内偏移。
+ * 记录格式：[长度][CRC32][ID][入队时间][操作时间][路径][类型][内容][操作人][原路径]，长度为0表示后面尚未写入，-1表示段结束
+ */
+@Slf4j
+public class OperationLogJournal {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String POSITION_FILE = "replay.pos";
+    private static final String DEAD_LETTER_FILE = "dead-letter.dlq";
+
+    private static final int HEADER_BYTES = 8;
+    private static final int END_OF_SEGMENT = -1;
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final long maxBytes;
+    private final long fsyncIntervalMs;
+
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+    // 写入状态，由this保护
+    private Segment writeSegment;
+    private ByteBuffer writeView;
+    private int writeOffset;
+    private boolean dirty;
+
+    // 已写完可供回放的位置
+    private volatile long published;
+
+    // 启动时日志中已有记录的结束位置，之前的记录回放时需去重
+    private long recovered;
+
+    // 已提交到数据库的位置
+    private volatile long replayPosition;
+    private FileChannel positionChannel;
+
+    // 逐条写库仍失败的记录，格式与段内记录相同，按需打开
+    private FileChannel deadLetterChannel;
+
+    private ScheduledExecutorService flusher;
+
+    // 追加的记录数
+    private final LongAdder appendedCount = new LongAdder();
+
+    // 日志达到上限而阻塞的次数
+    private final LongAdder blockedCount = new LongAdder();
+
+    /**
+     * @param dir             日志目录
+     * @param segmentBytes    单个段文件大小
+     * @param maxBytes        所有段文件的总大小上限，达到后追加阻塞等待回放
+     * @param fsyncIntervalMs 刷盘间隔（毫秒）
+     */
+    public OperationLogJournal(Path dir, int segmentBytes, long maxBytes, long fsyncIntervalMs) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.maxBytes = Math.max(maxBytes, segmentBytes * 2L);
+        this.fsyncIntervalMs = fsyncIntervalMs;
+    }
+
+    public synchronized void start() throws IOException {
+        Files.createDirectories(dir);
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SEGMENT_SUFFIX)) {
+                    long index = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                    segments.put(index, openSegment(index, 0));
+                }
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(0L, openSegment(0, segmentBytes));
+        }
+        long lastIndex = segments.lastKey();
+        long firstIndex = segments.firstKey();
+        writeSegment = segments.get(lastIndex);
+        writeView = writeSegment.buffer.duplicate();
+        writeOffset = scanEnd(writeSegment);
+        published = position(lastIndex, writeOffset);
+        recovered = published;
+
+        positionChannel = FileChannel.open(dir.resolve(POSITION_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long saved = loadPosition();
+        replayPosition = saved >= position(firstIndex, 0) && saved <= published ? saved : position(firstIndex, 0);
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "JournalFlusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, fsyncIntervalMs, fsyncIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("操作日志预写日志启动: {}, 段数: {}, 待回放: {} 字节", dir, segments.size(), getPendingBytes());
+    }
+
+    /**
+     * 追加一条操作日志，日志总大小达到上限时阻塞等待回放腾出空间
+     */
+    public void append(FileOperationLogPo operationLog) throws IOException, InterruptedException {
+        byte[] record = encode(operationLog);
+        synchronized (this) {
+            while (writeOffset + record.length + 4 > writeSegment.capacity) {
+                roll(record.length + 4);
+            }
+            writeView.position(writeOffset);
+            writeView.put(record);
+            writeOffset += record.length;
+            dirty = true;
+            published = position(writeSegment.index, writeOffset);
+        }
+        appendedCount.increment();
+    }
+
+    /**
+     * 写入段结束标记并切换到新段，总大小达到上限时先等待回放删除旧段
+     */
+    private void roll(int required) throws IOException, InterruptedException {
+        if (totalBytes() + Math.max(segmentBytes, required) > maxBytes) {
+            blockedCount.increment();
+            log.warn("操作日志预写日志已达上限 {} 字节, 等待回放", maxBytes);
+            while (totalBytes() + Math.max(segmentBytes, required) > maxBytes) {
+                wait(fsyncIntervalMs);
+            }
+            // 等待期间其他线程可能已切换到新段
+            if (writeOffset + required <= writeSegment.capacity) {
+                return;
+            }
+        }
+        if (writeOffset + 4 <= writeSegment.capacity) {
+            writeSegment.buffer.putInt(writeOffset, END_OF_SEGMENT);
+        }
+        writeSegment.buffer.force();
+        Segment next = openSegment(writeSegment.index + 1, Math.max(segmentBytes, required));
+        segments.put(next.index, next);
+        writeSegment = next;
+        writeView = next.buffer.duplicate();
+        writeOffset = 0;
+        published = position(next.index, 0);
+    }
+
+    private long totalBytes() {
+        long bytes = 0;
+        for (Segment segment : segments.values()) {
+            bytes += segment.capacity;
+        }
+        return bytes;
+    }
+
+    /**
+     * 从指定位置读取已写完的记录，最多max条
+     * @return 读取后的位置
+     */
+    public long read(long from, int max, List<JournalRecord> out) throws IOException {
+        long position = from;
+        long end = published;
+        while (out.size() < max && position < end) {
+            Segment segment = segments.get(segmentOf(position));
+            if (segment == null) {
+                throw new IOException("Journal segment missing: " + segmentOf(position));
+            }
+            int offset = offsetOf(position);
+            if (offset + 4 > segment.capacity || segment.buffer.getInt(offset) == END_OF_SEGMENT) {
+                position = position(segment.index + 1, 0);
+                continue;
+            }
+            ByteBuffer view = segment.buffer.duplicate();
+            view.position(offset);
+            int length = view.getInt();
+            int crc = view.getInt();
+            if (length <= 0 || length > view.remaining()) {
+                throw new IOException("Journal record length invalid at segment " + segment.index + " offset " + offset);
+            }
+            CRC32 checksum = new CRC32();
+            ByteBuffer payload = view.slice();
+            payload.limit(length);
+            checksum.update(payload.duplicate());
+            if ((int) checksum.getValue() != crc) {
+                throw new IOException("Journal record corrupted at segment " + segment.index + " offset " + offset);
+            }
+            position = position(segment.index, offset + HEADER_BYTES + length);
+            out.add(decode(payload, position));
+        }
+        return position;
+    }
+
+    /**
+     * 跳过损坏记录所在段的剩余部分，损坏发生在当前写入段时跳到已写入的末尾
+     * @return 跳过后的位置
+     */
+    public long skipCorrupted(long position) {
+        long end = published;
+        long skipped = segmentOf(position) < segmentOf(end) ? position(segmentOf(position) + 1, 0) : end;
+        log.warn("操作日志预写日志记录损坏, 跳过段 {} 偏移 {} 之后的内容", segmentOf(position), offsetOf(position));
+        return skipped;
+    }
+
+    /**
+     * 记录已提交到数据库的位置，删除已全部回放的段
+     */
+    public void commit(long position) throws IOException {
+        replayPosition = position;
+        ByteBuffer buffer = ByteBuffer.allocate(12);
+        buffer.putLong(position);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, 8);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            positionChannel.write(buffer, buffer.position());
+        }
+        long current = segmentOf(position);
+        boolean released = false;
+        for (Segment segment : new ArrayList<>(segments.values())) {
+            if (segment.index >= current) {
+                break;
+            }
+            segments.remove(segment.index);
+            // 映射在GC时才释放，Linux下文件删除后磁盘空间随之回收
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+            released = true;
+        }
+        if (released) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    private long loadPosition() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(12);
+        while (buffer.hasRemaining() && positionChannel.read(buffer, buffer.position()) > 0) {
+            // 读满
+        }
+        if (buffer.position() < 12) {
+            return 0;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, 8);
+        if ((int) crc.getValue() != buffer.getInt(8)) {
+            log.warn("回放位置文件损坏, 从最早的段开始回放");
+            return 0;
+        }
+        return buffer.getLong(0);
+    }
+
+    /**
+     * 扫描段内已写入的记录，返回第一个空白或损坏记录的偏移
+     */
+    private int scanEnd(Segment segment) {
+        ByteBuffer view = segment.buffer.duplicate();
+        int offset = 0;
+        CRC32 crc = new CRC32();
+        while (offset + HEADER_BYTES <= segment.capacity) {
+            int length = view.getInt(offset);
+            if (length == END_OF_SEGMENT) {
+                return segment.capacity;
+            }
+            if (length <= 0 || offset + HEADER_BYTES + length > segment.capacity) {
+                break;
+            }
+            view.limit(offset + HEADER_BYTES + length).position(offset + HEADER_BYTES);
+            crc.reset();
+            crc.update(view);
+            view.limit(segment.capacity);
+            if ((int) crc.getValue() != view.getInt(offset + 4)) {
+                log.warn("操作日志预写日志段 {} 尾部损坏, 从 {} 字节处继续写入", segment.index, offset);
+                break;
+            }
+            offset += HEADER_BYTES + length;
+        }
+        return offset;
+    }
+
+    private Segment openSegment(long index, int size) throws IOException {
+        Path path = dir.resolve(String.format("%020d%s", index, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int capacity = size > 0 ? size : (int) channel.size();
+        return new Segment(index, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+    }
+
+    private static byte[] encode(FileOperationLogPo operationLog) {
+        byte[] path = bytes(operationLog.getFilePath());
+        byte[] type = bytes(operationLog.getOperationType());
+        byte[] content = bytes(operationLog.getContent());
+        byte[] operator = bytes(operationLog.getOperator());
+        byte[] source = bytes(operationLog.getSourcePath());
+        int length = 8 + 8 + 8 + 20 + lengthOf(path) + lengthOf(type) + lengthOf(content) + lengthOf(operator) + lengthOf(source);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + length);
+        buffer.putInt(length);
+        buffer.putInt(0);
+        buffer.putLong(operationLog.getId());
+        buffer.putLong(System.currentTimeMillis());
+        buffer.putLong(operationLog.getOperationTime() == null ? 0 : operationLog.getOperationTime().getTime());
+        putBytes(buffer, path);
+        putBytes(buffer, type);
+        putBytes(buffer, content);
+        putBytes(buffer, operator);
+        putBytes(buffer, source);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_BYTES, length);
+        buffer.putInt(4, (int) crc.getValue());
+        return buffer.array();
+    }
+
+    private static JournalRecord decode(ByteBuffer payload, long endPosition) {
+        FileOperationLogPo operationLog = new FileOperationLogPo();
+        operationLog.setId(payload.getLong());
+        long enqueueMillis = payload.getLong();
+        long operationTime = payload.getLong();
+        operationLog.setOperationTime(operationTime == 0 ? null : new Date(operationTime));
+        operationLog.setFilePath(readString(payload));
+        operationLog.setOperationType(readString(payload));
+        operationLog.setContent(readString(payload));
+        operationLog.setOperator(readString(payload));
+        // 旧版本写入的记录没有原路径
+        operationLog.setSourcePath(payload.hasRemaining() ? readString(payload) : null);
+        return new JournalRecord(operationLog, enqueueMillis, endPosition);
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int lengthOf(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] value) {
+        buffer.putInt(value == null ? -1 : value.length);
+        if (value != null) {
+            buffer.put(value);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    static long position(long segment, int offset) {
+        return segment << 32 | offset;
+    }
+
+    static long segmentOf(long position) {
+        return position >>> 32;
+    }
+
+    static int offsetOf(long position) {
+        return (int) position;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Failed to flush journal: {}", dir, e);
+        }
+    }
+
+    /**
+     * 当前段和回放位置刷盘
+     */
+    public void flush() throws IOException {
+        Segment segment;
+        synchronized (this) {
+            if (!dirty) {
+                segment = null;
+            } else {
+                segment = writeSegment;
+                dirty = false;
+            }
+        }
+        if (segment != null) {
+            segment.buffer.force();
+        }
+        positionChannel.force(false);
+    }
+
+    /**
+     * 是否还有未回放的记录
+     */
+    public boolean hasUnread(long position) {
+        return position < published;
+    }
+
+    public long getReplayPosition() {
+        return replayPosition;
+    }
+
+    public long getRecoveredPosition() {
+        return recovered;
+    }
+
+    /**
+     * 待回放的字节数（按段大小估算跨段部分）
+     */
+    public long getPendingBytes() {
+        long end = published;
+        long start = replayPosition;
+        return (segmentOf(end) - segmentOf(start)) * (long) segmentBytes + offsetOf(end) - offsetOf(start);
+    }
+
+    public long getAppendedCount() {
+        return appendedCount.sum();
+    }
+
+    public long getBlockedCount() {
+        return blockedCount.sum();
+    }
+
+    public void stop() {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+            flush();
+            positionChannel.close();
+            synchronized (this) {
+                if (deadLetterChannel != null) {
+                    deadLetterChannel.close();
+                }
+            }
+            for (Segment segment : segments.values()) {
+                segment.channel.close();
+            }
+        } catch (Exception e) {
+            log.error("Failed to close journal: {}", dir, e);
+        }
+        log.info("操作日志预写日志已停止, 累计追加: {}, 达到上限阻塞: {}, 未回放: {} 字节",
+                getAppendedCount(), getBlockedCount(), getPendingBytes());
+    }
+
+    /**
+     * 把无法写入数据库的记录追加到死信文件并刷盘，之后回放可以越过这些记录
+     */
+    public synchronized void deadLetter(List<FileOperationLogPo> operationLogs) throws IOException {
+        if (deadLetterChannel == null) {
+            deadLetterChannel = FileChannel.open(dir.resolve(DEAD_LETTER_FILE), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        for (FileOperationLogPo operationLog : operationLogs) {
+            ByteBuffer record = ByteBuffer.wrap(encode(operationLog));
+            while (record.hasRemaining()) {
+                deadLetterChannel.write(record);
+            }
+        }
+        deadLetterChannel.force(false);
+    }
+
+    /**
+     * 单个段文件
+     */
+    private static final class Segment {
+        private final long index;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+
+        Segment(long index, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.index = index;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.capacity = buffer.capacity();
+        }
+    }
+
+    /**
+     * 读出的一条记录
+     */
+    public static final class JournalRecord {
+        private final FileOperationLogPo operationLog;
+        private final long enqueueMillis;
+        private final long endPosition;
+
+        JournalRecord(FileOperationLogPo operationLog, long enqueueMillis, long endPosition) {
+            this.operationLog = operationLog;
+            this.enqueueMillis = enqueueMillis;
+            this.endPosition = endPosition;
+        }
+
+        public FileOperationLogPo getOperationLog() {
+            return operationLog;
+        }
+
+        public long getEnqueueMillis() {
+            return enqueueMillis;
+        }
+
+        /**
+         * 该记录之后的位置，提交到此表示该记录已入库
+         */
+        public long getEndPosition() {
+            return endPosition;
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package com.cjree.filelisten.writer;
+
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.cjree.filelisten.config.FileMonitorProperties;
+import com.cjree.filelisten.entity.FileOperationLogPo;
+import com.cjree.filelisten.metrics.FileMonitorMetrics;
+import com.cjree.filelisten.service.FileOperationLogService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 操作日志批量写入器
+ * 事件线程只负责入队，由独立的写入线程按批次大小或等待时间合并后批量插入数据库。
+ * 启用预写日志时入队即追加到本地日志，写入线程从日志回放，写库失败的批次保留在日志中退避重试
+ */
+@Slf4j
+@Component
+public class OperationLogWriter {
+    @Resource
+    private FileOperationLogService fileOperationLogService;
+    @Resource
+    private FileMonitorProperties fileMonitorProperties;
+    @Resource(name = "dbWriterExecutor")
+    private Executor dbWriterExecutor;
+    @Resource
+    private FileMonitorMetrics fileMonitorMetrics;
+
+    // 写库失败后的重试退避区间（毫秒）
+    private static final long RETRY_MIN_BACKOFF_MS = 100;
+    private static final long RETRY_MAX_BACKOFF_MS = 5000;
+
+    private BlockingQueue<PendingLog> queue;
+
+    // 预写日志，未启用时为null，走内存队列
+    private OperationLogJournal journal;
+
+    private volatile boolean running;
+
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    // 入队总数
+    private final LongAdder enqueuedCount = new LongAdder();
+
+    // 写入成功总数
+    private final LongAdder committedCount = new LongAdder();
+
+    // 写入失败总数
+    private final LongAdder failedCount = new LongAdder();
+
+    // 批次总数
+    private final LongAdder batchCount = new LongAdder();
+
+    // 入队到提交的累计延迟（纳秒）
+    private final LongAdder totalLatencyNanos = new LongAdder();
+
+    // 入队到提交的最大延迟（纳秒）
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    // 写库失败后重试的次数
+    private final LongAdder retryCount = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(fileMonitorProperties.getWriter().getQueueCapacity());
+        running = true;
+        FileMonitorProperties.Journal journalProperties = fileMonitorProperties.getJournal();
+        if (journalProperties.isEnabled()) {
+            journal = new OperationLogJournal(Paths.get(journalProperties.getDir()), journalProperties.getSegmentBytes(),
+                    journalProperties.getMaxBytes(), journalProperties.getFsyncIntervalMs());
+            try {
+                journal.start();
+            } catch (IOException e) {
+                throw new IllegalStateException("启动操作日志预写日志失败: " + journalProperties.getDir(), e);
+            }
+            fileMonitorMetrics.gauge("writer.journal.pending.bytes", "预写日志待回放字节数", journal, OperationLogJournal::getPendingBytes);
+            dbWriterExecutor.execute(this::replayLoop);
+        } else {
+            fileMonitorMetrics.gauge("writer.queue.size", "操作日志待写入条数", queue, BlockingQueue::size);
+            dbWriterExecutor.execute(this::drainLoop);
+        }
+        log.info("操作日志写入器启动, 批次大小: {}, 等待时间: {}ms, 预写日志: {}", fileMonitorProperties.getWriter().getBatchSize(),
+                fileMonitorProperties.getWriter().getLingerMs(), journalProperties.isEnabled());
+    }
+
+    /**
+     * 提交一条操作日志，启用预写日志时追加到日志，否则放入内存队列，队列满时阻塞等待写入线程消费
+     */
+    public void enqueue(FileOperationLogPo operationLog) {
+        try {
+            if (journal != null) {
+                // 回放可能重复，入队时即分配ID用于去重
+                if (operationLog.getId() == null) {
+                    operationLog.setId(IdWorker.getId());
+                }
+                journal.append(operationLog);
+            } else {
+                queue.put(new PendingLog(operationLog, System.nanoTime()));
+            }
+            enqueuedCount.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failedCount.increment();
+            log.warn("操作日志入队被中断, 丢弃: {}", operationLog.getFilePath());
+        } catch (IOException e) {
+            failedCount.increment();
+            log.error("操作日志写入预写日志失败, 丢弃: {}", operationLog.getFilePath(), e);
+        }
+    }
+
+    /**
+     * 预写日志回放循环：按批次大小或首条记录的等待时间读取一批写入数据库，成功后提交回放位置；
+     * 失败时退避后重试同一批，重试和启动时遗留的记录按ID去重写入；连续失败maxBatchAttempts次后逐条写入，
+     * 数据有误的记录转入死信文件，提交位置越过它们
+     */
+    private void replayLoop() {
+        int batchSize = fileMonitorProperties.getWriter().getBatchSize();
+        long lingerMs = fileMonitorProperties.getWriter().getLingerMs();
+        long lingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(lingerMs, 1));
+        int maxBatchAttempts = Math.max(fileMonitorProperties.getJournal().getMaxBatchAttempts(), 1);
+        long recovered = journal.getRecoveredPosition();
+        long position = journal.getReplayPosition();
+        long backoffMs = RETRY_MIN_BACKOFF_MS;
+        List<OperationLogJournal.JournalRecord> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || journal.hasUnread(position)) {
+                long next;
+                try {
+                    next = journal.read(position, batchSize, batch);
+                } catch (IOException e) {
+                    log.error("读取操作日志预写日志失败", e);
+                    batch.clear();
+                    position = journal.skipCorrupted(position);
+                    continue;
+                }
+                if (batch.isEmpty()) {
+                    LockSupport.parkNanos(lingerNanos);
+                    continue;
+                }
+                // 未攒满时等到首条记录入队满lingerMs，停止时不再等待
+                long waitMs = batch.get(0).getEnqueueMillis() + lingerMs - System.currentTimeMillis();
+                if (batch.size() < batchSize && waitMs > 0 && running) {
+                    batch.clear();
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(waitMs));
+                    continue;
+                }
+                boolean idempotent = position < recovered;
+                int attempts = 0;
+                while (!replay(batch, idempotent)) {
+                    if (!running) {
+                        // 停止时数据库仍不可用，剩余记录留待下次启动回放
+                        return;
+                    }
+                    retryCount.increment();
+                    idempotent = true;
+                    // 整批反复失败时逐条写入，找出数据本身有误的记录转入死信，避免一条记录卡住回放
+                    if (++attempts >= maxBatchAttempts && replayEach(batch)) {
+                        break;
+                    }
+                    TimeUnit.MILLISECONDS.sleep(backoffMs);
+                    backoffMs = Math.min(backoffMs * 2, RETRY_MAX_BACKOFF_MS);
+                }
+                backoffMs = RETRY_MIN_BACKOFF_MS;
+                while (!commit(next)) {
+                    if (!running) {
+                        // 位置未落盘的记录下次启动按ID去重回放
+                        return;
+                    }
+                    TimeUnit.MILLISECONDS.sleep(backoffMs);
+                    backoffMs = Math.min(backoffMs * 2, RETRY_MAX_BACKOFF_MS);
+                }
+                backoffMs = RETRY_MIN_BACKOFF_MS;
+                position = next;
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stopped.countDown();
+        }
+    }
+
+    /**
+     * 提交回放位置
+     * @return false表示写位置文件失败，稍后重试
+     */
+    private boolean commit(long position) {
+        try {
+            journal.commit(position);
+            return true;
+        } catch (IOException e) {
+            log.error("提交操作日志回放位置失败, 稍后重试", e);
+            return false;
+        }
+    }
+
+    /**
+     * 逐条按ID去重写入一批记录，数据有误的记录写入死信文件后跳过
+     * @return false表示遇到数据库不可用等暂时性错误，整批稍后重试
+     */
+    private boolean replayEach(List<OperationLogJournal.JournalRecord> batch) {
+        List<FileOperationLogPo> deadLetters = new ArrayList<>();
+        int committed = 0;
+        for (OperationLogJournal.JournalRecord record : batch) {
+            FileOperationLogPo operationLog = record.getOperationLog();
+            try {
+                fileOperationLogService.insertBatchIdempotent(Collections.singletonList(operationLog));
+                committed++;
+            } catch (Exception e) {
+                if (!isDataError(e)) {
+                    log.error("逐条回放操作日志失败, 稍后重试: {}", operationLog.getFilePath(), e);
+                    return false;
+                }
+                log.error("操作日志无法写入数据库, 转入死信: id={}, path={}", operationLog.getId(), operationLog.getFilePath(), e);
+                deadLetters.add(operationLog);
+            }
+        }
+        if (!deadLetters.isEmpty()) {
+            try {
+                journal.deadLetter(deadLetters);
+            } catch (IOException e) {
+                log.error("写入死信文件失败, 丢弃 {} 条操作日志", deadLetters.size(), e);
+            }
+            failedCount.add(deadLetters.size());
+            fileMonitorMetrics.recordWriterDeadLetter(deadLetters.size());
+        }
+        committedCount.add(committed);
+        batchCount.increment();
+        return true;
+    }
+
+    /**
+     * 是否为数据本身导致的错误（SQLState 22数据异常、23约束冲突），重试不会成功
+     */
+    private static boolean isDataError(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                String state = ((SQLException) cause).getSQLState();
+                if (state != null && (state.startsWith("22") || state.startsWith("23"))) {
+                    return true;
+                }
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 回放一批记录
+     * @return false表示写库失败，记录仍在日志中
+     */
+    private boolean replay(List<OperationLogJournal.JournalRecord> batch, boolean idempotent) {
+        List<FileOperationLogPo> logs = new ArrayList<>(batch.size());
+        for (OperationLogJournal.JournalRecord record : batch) {
+            logs.add(record.getOperationLog());
+        }
+        long start = System.nanoTime();
+        try {
+            if (idempotent) {
+                fileOperationLogService.insertBatchIdempotent(logs);
+            } else {
+                fileOperationLogService.insertBatch(logs);
+            }
+        } catch (Exception e) {
+            fileMonitorMetrics.recordWriterFailed(batch.size());
+            log.error("回放操作日志失败, 条数: {}, 稍后重试", batch.size(), e);
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        long batchMaxLatency = 0;
+        for (OperationLogJournal.JournalRecord record : batch) {
+            long latency = TimeUnit.MILLISECONDS.toNanos(Math.max(now - record.getEnqueueMillis(), 0));
+            totalLatencyNanos.add(latency);
+            fileMonitorMetrics.recordWriterLatency(latency);
+            batchMaxLatency = Math.max(batchMaxLatency, latency);
+        }
+        maxLatencyNanos.accumulateAndGet(batchMaxLatency, Math::max);
+        committedCount.add(batch.size());
+        batchCount.increment();
+        fileMonitorMetrics.recordWriterBatch(batch.size());
+        if (log.isDebugEnabled()) {
+            log.debug("回放操作日志 {} 条, 写库耗时: {}ms, 最大入队延迟: {}ms", batch.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), TimeUnit.NANOSECONDS.toMillis(batchMaxLatency));
+        }
+        return true;
+    }
+
+    /**
+     * 写入循环：首条日志到达后最多等待lingerMs，或攒满batchSize条即写入
+     */
+    private void drainLoop() {
+        int batchSize = fileMonitorProperties.getWriter().getBatchSize();
+        long lingerNanos = TimeUnit.MILLISECONDS.toNanos(fileMonitorProperties.getWriter().getLingerMs());
+        List<PendingLog> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                PendingLog first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingLog next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // 退出前把剩余日志写完
+            queue.drainTo(batch);
+            if (!batch.isEmpty()) {
+                flush(batch);
+            }
+            stopped.countDown();
+        }
+    }
+
+    private void flush(List<PendingLog> batch) {
+        List<FileOperationLogPo> logs = new ArrayList<>(batch.size());
+        for (PendingLog pending : batch) {
+            logs.add(pending.operationLog);
+        }
+        long start = System.nanoTime();
+        try {
+            fileOperationLogService.insertBatch(logs);
+        } catch (Exception e) {
+            failedCount.add(batch.size());
+            fileMonitorMetrics.recordWriterFailed(batch.size());
+            log.error("批量写入操作日志失败, 条数: {}", batch.size(), e);
+            return;
+        }
+        long now = System.nanoTime();
+        long batchMaxLatency = 0;
+        for (PendingLog pending : batch) {
+            long latency = now - pending.enqueueNanos;
+            totalLatencyNanos.add(latency);
+            fileMonitorMetrics.recordWriterLatency(latency);
+            batchMaxLatency = Math.max(batchMaxLatency, latency);
+        }
+        maxLatencyNanos.accumulateAndGet(batchMaxLatency, Math::max);
+        committedCount.add(batch.size());
+        batchCount.increment();
+        fileMonitorMetrics.recordWriterBatch(batch.size());
+        if (log.isDebugEnabled()) {
+            log.debug("批量写入操作日志 {} 条, 写库耗时: {}ms, 最大入队延迟: {}ms", batch.size(),
+                    TimeUnit.NANOSECONDS.toMillis(now - start), TimeUnit.NANOSECONDS.toMillis(batchMaxLatency));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        try {
+            if (!stopped.await(10, TimeUnit.SECONDS)) {
+                log.warn("操作日志写入器停止超时, 剩余未写入: {}", getQueueSize());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (journal != null) {
+            journal.stop();
+        }
+        log.info("操作日志写入器已停止, 累计写入: {}, 失败: {}, 重试: {}, 平均入队到提交延迟: {}ms",
+                committedCount.sum(), failedCount.sum(), retryCount.sum(), getAvgLatencyMillis());
+    }
+
+    /**
+     * 待写入条数，启用预写日志时为本次启动以来追加但未回放的条数
+     */
+    public int getQueueSize() {
+        if (journal != null) {
+            return (int) Math.max(enqueuedCount.sum() - committedCount.sum(), 0);
+        }
+        return queue.size();
+    }
+
+    public long getRetryCount() {
+        return retryCount.sum();
+    }
+
+    public long getEnqueuedCount() {
+        return enqueuedCount.sum();
+    }
+
+    public long getCommittedCount() {
+        return committedCount.sum();
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    /**
+     * 平均入队到提交延迟（毫秒）
+     */
+    public double getAvgLatencyMillis() {
+        long committed = committedCount.sum();
+        return committed == 0 ? 0 : totalLatencyNanos.sum() / (double) committed / 1_000_000;
+    }
+
+    /**
+     * 最大入队到提交延迟（毫秒）
+     */
+    public double getMaxLatencyMillis() {
+        return maxLatencyNanos.get() / 1_000_000.0;
+    }
+
+    private static class PendingLog {
+        private final FileOperationLogPo operationLog;
+        private final long enqueueNanos;
+
+        PendingLog(FileOperationLogPo operationLog, long enqueueNanos) {
+            this.operationLog = operationLog;
+            this.enqueueNanos = enqueueNanos;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * inotify的JNI封装，对应 com.cjree.filelisten.watch.InotifyNative
+ * 只做系统调用转发，事件解析在Java侧完成；出错时返回 -errno
+ */
+#include <jni.h>
+#include <errno.h>
+#include <limits.h>
+#include <poll.h>
+#include <unistd.h>
+#include <sys/inotify.h>
+
+JNIEXPORT jint JNICALL
+Java_com_cjree_filelisten_watch_InotifyNative_init(JNIEnv *env, jclass cls)
+{
+    int fd = inotify_init1(IN_NONBLOCK | IN_CLOEXEC);
+    return fd < 0 ? -errno : fd;
+}
+
+JNIEXPORT jint JNICALL
+Java_com_cjree_filelisten_watch_InotifyNative_addWatch(JNIEnv *env, jclass cls, jint fd, jbyteArray path, jint mask)
+{
+    char buf[PATH_MAX + 1];
+    jsize len = (*env)->GetArrayLength(env, path);
+    if (len > PATH_MAX) {
+        return -ENAMETOOLONG;
+    }
+    (*env)->GetByteArrayRegion(env, path, 0, len, (jbyte *) buf);
+    buf[len] = '\0';
+    int wd = inotify_add_watch(fd, buf, (uint32_t) mask);
+    return wd < 0 ? -errno : wd;
+}
+
+JNIEXPORT jint JNICALL
+Java_com_cjree_filelisten_watch_InotifyNative_removeWatch(JNIEnv *env, jclass cls, jint fd, jint wd)
+{
+    return inotify_rm_watch(fd, wd) < 0 ? -errno : 0;
+}
+
+/*
+ * 等待最多timeoutMs后把尽可能多的事件读入直接缓冲区
+ * 返回读取的字节数，超时或被信号打断返回0
+ */
+JNIEXPORT jint JNICALL
+Java_com_cjree_filelisten_watch_InotifyNative_read(JNIEnv *env, jclass cls, jint fd, jobject buffer, jint capacity, jint timeoutMs)
+{
+    void *address = (*env)->GetDirectBufferAddress(env, buffer);
+    if (address == NULL) {
+        return -EINVAL;
+    }
+    struct pollfd pfd = { .fd = fd, .events = POLLIN, .revents = 0 };
+    int ready = poll(&pfd, 1, timeoutMs);
+    if (ready < 0) {
+        return errno == EINTR ? 0 : -errno;
+    }
+    if (ready == 0) {
+        return 0;
+    }
+    ssize_t n = read(fd, address, (size_t) capacity);
+    if (n < 0) {
+        return (errno == EAGAIN || errno == EINTR) ? 0 : -errno;
+    }
+    return (jint) n;
+}
+
+JNIEXPORT jint JNICALL
+Java_com_cjree_filelisten_watch_InotifyNative_close(JNIEnv *env, jclass cls, jint fd)
+{
+    return close(fd) < 0 ? -errno : 0;
+}
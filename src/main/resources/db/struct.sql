@@ -0,0 +1,82 @@
+-- 文件监听配置表增加读取模式
+ALTER TABLE `file_monitor_config`
+    ADD COLUMN `tail_mode` varchar(20) DEFAULT NULL COMMENT '读取模式：RAW(原始增量)、LINE(按行)，为空时继承上级目录配置' AFTER `exclude_patterns`;
+
+-- 文件监听配置表增加监听方式
+ALTER TABLE `file_monitor_config`
+    ADD COLUMN `watch_backend` varchar(20) DEFAULT NULL COMMENT '监听方式：NATIVE(系统原生通知)、POLLING(定时轮询)，为空时继承上级目录配置' AFTER `tail_mode`;
+
+-- 监听方式增加INOTIFY
+ALTER TABLE `file_monitor_config`
+    MODIFY COLUMN `watch_backend` varchar(20) DEFAULT NULL COMMENT '监听方式：NATIVE(系统原生通知)、POLLING(定时轮询)、INOTIFY(直接调用inotify)，为空时继承上级目录配置';
+
+-- 文件监听配置表增加过载策略
+ALTER TABLE `file_monitor_config`
+    ADD COLUMN `overload_policy` varchar(20) DEFAULT NULL COMMENT '过载策略：BLOCK(阻塞等待)、COALESCE(退回合并)、DROP_MODIFY(丢弃修改事件)、SPILL(溢出到磁盘)，为空时继承上级目录配置' AFTER `watch_backend`;
+
+-- 操作日志增加内容摘要，大段内容压缩去重后存入内容表
+ALTER TABLE `file_operation_log`
+    MODIFY COLUMN `content` text COMMENT '操作内容（文件新增的行或修改内容），内容存入内容表时为空',
+    ADD COLUMN `content_hash` char(64) DEFAULT NULL COMMENT '内容SHA-256摘要，对应file_operation_content' AFTER `content`;
+
+CREATE TABLE `file_operation_content` (
+    `id` bigint NOT NULL COMMENT '主键ID',
+    `content_hash` char(64) NOT NULL COMMENT '内容SHA-256摘要',
+    `codec` varchar(10) NOT NULL COMMENT '编码方式：RAW(原样)、DEFLATE(deflate压缩)',
+    `raw_length` int NOT NULL COMMENT '原始内容字节数',
+    `data` mediumblob NOT NULL COMMENT '编码后的内容',
+    `creator` bigint DEFAULT NULL COMMENT '创建者',
+    `updater` bigint DEFAULT NULL COMMENT '更新者',
+    `remark` varchar(128) DEFAULT NULL COMMENT '备注',
+    `available` varchar(3) default 'YES' NOT NULL COMMENT '是否可用',
+    `create_date` datetime default current_timestamp COMMENT '创建时间',
+    `update_date` datetime default current_timestamp on update current_timestamp COMMENT '更新时间',
+    `version_date` datetime default current_timestamp on update current_timestamp COMMENT '版本时间戳',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_content_hash` (`content_hash`) COMMENT '内容摘要唯一'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci COMMENT='文件操作内容表，按摘要去重存储压缩后的操作内容';
+
+-- 读取模式增加DIFF
+ALTER TABLE `file_monitor_config`
+    MODIFY COLUMN `tail_mode` varchar(20) DEFAULT NULL COMMENT '读取模式：RAW(原始增量)、LINE(按行)、DIFF(块差异)，为空时继承上级目录配置';
+
+-- 操作日志增加移动前路径，重命名/移动记录为一条MOVE/DIRECTORY_MOVE
+ALTER TABLE `file_operation_log`
+    MODIFY COLUMN `operation_type` varchar(20) NOT NULL COMMENT '操作类型：CREATE(文件创建)、DELETE(文件删除)、MODIFY(文件修改)、DIRECTORY_CREATE(目录创建)、DIRECTORY_DELETE(目录删除)、MOVE(文件移动)、DIRECTORY_MOVE(目录移动)',
+    ADD COLUMN `source_path` varchar(255) DEFAULT NULL COMMENT '移动前的绝对路径，仅MOVE/DIRECTORY_MOVE有值' AFTER `operation_type`;
+
+-- 操作日志按天分区：分区键须包含在主键中；已有数据重建分区时全部落入p_max，
+-- 服务首次维护时从p_max拆出当天起的分区，历史数据随第一个按天分区在保留期后删除
+ALTER TABLE `file_operation_log`
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (`id`, `operation_time`),
+    DROP INDEX `idx_operation_type`,
+    ADD INDEX `idx_operation_type` (`operation_type`, `operation_time`) COMMENT '按操作类型和时间查询索引';
+ALTER TABLE `file_operation_log`
+    PARTITION BY RANGE (TO_DAYS(`operation_time`)) (
+        PARTITION p_max VALUES LESS THAN MAXVALUE
+    );
+
+CREATE TABLE `file_operation_summary` (
+    `id` bigint NOT NULL COMMENT '主键ID',
+    `file_path` varchar(255) NOT NULL COMMENT '文件绝对路径',
+    `summary_hour` datetime NOT NULL COMMENT '汇总的小时（整点）',
+    `modify_count` bigint NOT NULL COMMENT '该小时内的修改次数',
+    `content_bytes` bigint NOT NULL COMMENT '该小时内修改内容的总字节数',
+    `first_time` datetime NOT NULL COMMENT '该小时内第一次修改的时间',
+    `last_time` datetime NOT NULL COMMENT '该小时内最后一次修改的时间',
+    `creator` bigint DEFAULT NULL COMMENT '创建者',
+    `updater` bigint DEFAULT NULL COMMENT '更新者',
+    `remark` varchar(128) DEFAULT NULL COMMENT '备注',
+    `available` varchar(3) default 'YES' NOT NULL COMMENT '是否可用',
+    `create_date` datetime default current_timestamp COMMENT '创建时间',
+    `update_date` datetime default current_timestamp on update current_timestamp COMMENT '更新时间',
+    `version_date` datetime default current_timestamp on update current_timestamp COMMENT '版本时间戳',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_file_hour` (`file_path`, `summary_hour`) COMMENT '每个文件每小时一条',
+    KEY `idx_summary_hour` (`summary_hour`) COMMENT '按小时查询索引'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci COMMENT='文件修改小时汇总表，较早的MODIFY日志汇总后删除明细';
+
+-- 内容表回收：删除不再被任何操作日志引用的内容
+ALTER TABLE `file_operation_log`
+    ADD INDEX `idx_content_hash` (`content_hash`) COMMENT '内容回收时查询摘要是否仍被引用';
@@ -0,0 +1,67 @@
+package com.cjree.filelisten.soak;
+
+import com.cjree.filelisten.enums.OperationTypeEnum;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按固定速率向多个文件轮流追加整行内容
+ */
+final class AppendScenario extends SoakScenario {
+
+    private final String name;
+    private final int files;
+    private final long bytesPerSecond;
+    private final int lineBytes;
+    private final long durationNanos;
+
+    AppendScenario(String name, int files, long bytesPerSecond, int lineBytes, int durationSeconds) {
+        this.name = name;
+        this.files = files;
+        this.bytesPerSecond = bytesPerSecond;
+        this.lineBytes = lineBytes;
+        this.durationNanos = TimeUnit.SECONDS.toNanos(durationSeconds);
+    }
+
+    @Override
+    String getName() {
+        return name;
+    }
+
+    @Override
+    void run(Path dir, SoakRecorder recorder) throws Exception {
+        FileChannel[] channels = new FileChannel[files];
+        try {
+            for (int i = 0; i < files; i++) {
+                Path file = dir.resolve("append-" + i + ".log");
+                channels[i] = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                recorder.expect(OperationTypeEnum.CREATE.getCode() + ":" + file.toAbsolutePath(), System.nanoTime());
+            }
+            long start = System.nanoTime();
+            long written = 0;
+            int next = 0;
+            while (System.nanoTime() - start < durationNanos) {
+                MarkedLine line = nextLine(lineBytes);
+                ByteBuffer buffer = ByteBuffer.wrap(line.bytes);
+                while (buffer.hasRemaining()) {
+                    channels[next].write(buffer);
+                }
+                recorder.expect(line.key, System.nanoTime());
+                written += line.bytes.length;
+                next = (next + 1) % files;
+                pace(start, written, bytesPerSecond);
+            }
+            recorder.addBytes(written);
+        } finally {
+            for (FileChannel channel : channels) {
+                if (channel != null) {
+                    channel.close();
+                }
+            }
+        }
+    }
+}
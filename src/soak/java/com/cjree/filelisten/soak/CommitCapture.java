@@ -0,0 +1,46 @@
+package com.cjree.filelisten.soak;
+
+import com.cjree.filelisten.entity.FileOperationLogPo;
+import com.cjree.filelisten.service.FileOperationLogService;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+/**
+ * 包装操作日志服务，批量插入返回（事务已提交、行已可见）时把本批日志交给当前场景的记录器
+ */
+final class CommitCapture implements BeanPostProcessor {
+
+    private volatile SoakRecorder recorder;
+
+    void setRecorder(SoakRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof FileOperationLogService)) {
+            return bean;
+        }
+        return Proxy.newProxyInstance(FileOperationLogService.class.getClassLoader(),
+                new Class<?>[]{FileOperationLogService.class}, (proxy, method, args) -> invoke(bean, method, args));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        Object result;
+        try {
+            result = method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+        SoakRecorder current = recorder;
+        if (current != null && method.getName().startsWith("insertBatch")) {
+            current.onCommit((List<FileOperationLogPo>) args[0], System.nanoTime());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,50 @@
+package com.cjree.filelisten.soak;
+
+import com.cjree.filelisten.enums.OperationTypeEnum;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 深层目录：一次性创建多级目录并立即在最深处写入文件，检验新目录注册期间的事件是否丢失
+ */
+final class DeepDirectoryScenario extends SoakScenario {
+
+    private final int branches;
+    private final int depth;
+    private final int lineBytes;
+
+    DeepDirectoryScenario(int branches, int depth, int lineBytes) {
+        this.branches = branches;
+        this.depth = depth;
+        this.lineBytes = lineBytes;
+    }
+
+    @Override
+    String getName() {
+        return "DEEP";
+    }
+
+    @Override
+    void run(Path dir, SoakRecorder recorder) throws Exception {
+        for (int b = 0; b < branches; b++) {
+            Path leaf = dir.resolve("branch-" + b);
+            for (int d = 1; d < depth; d++) {
+                leaf = leaf.resolve("level-" + d);
+            }
+            Files.createDirectories(leaf);
+            long created = System.nanoTime();
+            for (Path level = leaf; !level.equals(dir); level = level.getParent()) {
+                recorder.expect(OperationTypeEnum.DIRECTORY_CREATE.getCode() + ":" + level.toAbsolutePath(), created);
+            }
+            Path file = leaf.resolve("leaf.log");
+            MarkedLine line = nextLine(lineBytes);
+            Files.write(file, line.bytes, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            long written = System.nanoTime();
+            recorder.expect(OperationTypeEnum.CREATE.getCode() + ":" + file.toAbsolutePath(), written);
+            recorder.expect(line.key, written);
+            recorder.addBytes(line.bytes.length);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.cjree.filelisten.soak;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 日志轮转：持续追加，每写满指定字节数把当前文件重命名为带序号的归档并新建同名文件继续写
+ * 只登记内容行，轮转产生的删除/创建事件计入非预期
+ */
+final class RotationScenario extends SoakScenario {
+
+    private final long bytesPerSecond;
+    private final int lineBytes;
+    private final long rotateBytes;
+    private final long durationNanos;
+
+    RotationScenario(long bytesPerSecond, int lineBytes, long rotateBytes, int durationSeconds) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.lineBytes = lineBytes;
+        this.rotateBytes = rotateBytes;
+        this.durationNanos = TimeUnit.SECONDS.toNanos(durationSeconds);
+    }
+
+    @Override
+    String getName() {
+        return "ROTATE";
+    }
+
+    @Override
+    void run(Path dir, SoakRecorder recorder) throws Exception {
+        Path active = dir.resolve("app.log");
+        FileChannel channel = FileChannel.open(active, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        try {
+            long start = System.nanoTime();
+            long written = 0;
+            long sinceRotate = 0;
+            int generation = 0;
+            while (System.nanoTime() - start < durationNanos) {
+                MarkedLine line = nextLine(lineBytes);
+                ByteBuffer buffer = ByteBuffer.wrap(line.bytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                recorder.expect(line.key, System.nanoTime());
+                written += line.bytes.length;
+                sinceRotate += line.bytes.length;
+                if (sinceRotate >= rotateBytes) {
+                    channel.close();
+                    Files.move(active, dir.resolve("app.log." + (++generation)));
+                    channel = FileChannel.open(active, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                    sinceRotate = 0;
+                }
+                pace(start, written, bytesPerSecond);
+            }
+            recorder.addBytes(written);
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.cjree.filelisten.soak;
+
+import com.cjree.Application;
+import com.cjree.filelisten.entity.FileMonitorConfigPo;
+import com.cjree.filelisten.entity.FileOperationLogPo;
+import com.cjree.filelisten.enums.PathTypeEnum;
+import com.cjree.filelisten.enums.TailModeEnum;
+import com.cjree.filelisten.rule.FileRuleRegistry;
+import com.cjree.filelisten.service.FileMonitorConfigService;
+import com.cjree.filelisten.service.FileMonitorService;
+import com.cjree.filelisten.service.FileOperationLogService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 端到端压测：以内嵌H2启动服务，在临时目录中制造文件变化，
+ * 统计从文件系统写入到file_operation_log入库的延迟分布以及丢失、重复的事件
+ * 运行：mvn -Psoak compile exec:exec -Dsoak.args="-Dsoak.durationSeconds=60 -Dsoak.appendMbPerSecond=5"
+ */
+@Slf4j
+public class SoakHarness {
+
+    // 风暴场景创建与删除阶段之间的等待，需大于事件合并的最长暂存时间
+    private static final long STORM_SETTLE_MILLIS = 3000;
+
+    private final SoakOptions options;
+    private final CommitCapture commitCapture = new CommitCapture();
+    private final List<SoakReport> reports = new ArrayList<>();
+
+    private ConfigurableApplicationContext context;
+    private Path watchRoot;
+    private int runs;
+
+    SoakHarness(SoakOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        SoakOptions options = SoakOptions.fromSystemProperties();
+        SoakHarness harness = new SoakHarness(options);
+        int exitCode;
+        try {
+            exitCode = harness.run(args);
+        } finally {
+            harness.close();
+        }
+        System.exit(exitCode);
+    }
+
+    int run(String[] args) throws Exception {
+        log.info("压测参数: {}", options);
+        Path root = options.rootDir != null ? Files.createDirectories(options.rootDir) : Files.createTempDirectory("filelisten-soak");
+        watchRoot = Files.createDirectories(root.resolve("watch"));
+        start(root, args);
+
+        for (String scenario : options.scenarios) {
+            switch (scenario) {
+                case "APPEND":
+                    runScenario(new AppendScenario("APPEND", options.appendFiles, options.appendBytesPerSecond(),
+                            options.lineBytes, options.durationSeconds));
+                    break;
+                case "STORM":
+                    runScenario(new StormScenario(options.stormFiles, options.stormRate, STORM_SETTLE_MILLIS));
+                    break;
+                case "DEEP":
+                    runScenario(new DeepDirectoryScenario(options.deepBranches, options.deepDepth, options.lineBytes));
+                    break;
+                case "ROTATE":
+                    runScenario(new RotationScenario(options.appendBytesPerSecond(), options.lineBytes,
+                            options.rotateBytes, options.durationSeconds));
+                    break;
+                default:
+                    log.warn("未知的压测场景: {}", scenario);
+            }
+        }
+        if (options.rampSteps > 0) {
+            ramp();
+        }
+
+        System.out.println("\n######## 压测结果 ########");
+        reports.forEach(System.out::print);
+        long lost = reports.stream().mapToLong(SoakReport::getLost).sum();
+        return lost == 0 ? 0 : 1;
+    }
+
+    /**
+     * 以soak配置启动服务，并把压测目录按行模式加入监听
+     */
+    private void start(Path root, String[] args) {
+        SpringApplication application = new SpringApplication(Application.class);
+        application.setAdditionalProfiles("soak");
+        application.addInitializers(applicationContext -> applicationContext.getBeanFactory().addBeanPostProcessor(commitCapture));
+        List<String> arguments = new ArrayList<>(List.of(args));
+        arguments.add("--file-monitor.checkpoint.file=" + root.resolve("checkpoint").resolve("tail.ckpt"));
+        arguments.add("--file-monitor.journal.dir=" + root.resolve("journal"));
+        arguments.add("--file-monitor.executor.spill-file=" + root.resolve("spill").resolve("events.spill"));
+        context = application.run(arguments.toArray(new String[0]));
+        if (!context.getBean(FileMonitorService.class).isReady()) {
+            throw new IllegalStateException("监听服务未就绪");
+        }
+
+        FileMonitorConfigPo config = new FileMonitorConfigPo();
+        config.setMonitorPath(watchRoot.toAbsolutePath().toString());
+        config.setPathType(PathTypeEnum.DIRECTORY.getCode());
+        config.setRecursives(Boolean.TRUE);
+        config.setEnabled(Boolean.TRUE);
+        config.setTailMode(TailModeEnum.LINE.getCode());
+        context.getBean(FileMonitorConfigService.class).insert(config);
+        context.getBean(FileRuleRegistry.class).apply(config);
+        context.getBean(FileMonitorService.class).addMonitorDirectory(watchRoot.toAbsolutePath().toString());
+        log.info("压测目录: {}", watchRoot);
+    }
+
+    /**
+     * 追加速率逐级翻倍，直到出现丢失或p99超过上限，得到最大可持续速率
+     */
+    private void ramp() throws Exception {
+        double sustainable = 0;
+        double mbPerSecond = options.appendMbPerSecond;
+        for (int step = 0; step < options.rampSteps; step++, mbPerSecond *= 2) {
+            SoakReport report = runScenario(new AppendScenario(String.format("RAMP %.2fMB/s", mbPerSecond),
+                    options.appendFiles, (long) (mbPerSecond * 1024 * 1024), options.lineBytes, options.durationSeconds));
+            if (report.getLost() > 0 || report.percentileMillis(0.99) > options.rampSloMillis) {
+                break;
+            }
+            sustainable = mbPerSecond;
+        }
+        System.out.printf("%n最大可持续追加速率(p99<=%dms且无丢失): %.2f MB/s%n", options.rampSloMillis, sustainable);
+    }
+
+    private SoakReport runScenario(SoakScenario scenario) throws Exception {
+        Path dir = Files.createDirectory(watchRoot.resolve(scenario.getName().replaceAll("[^A-Za-z0-9.]", "_") + "-" + (++runs)));
+        // 等待场景目录完成注册，避免目录本身的注册延迟计入场景
+        Thread.sleep(1000);
+        SoakRecorder recorder = new SoakRecorder(dir);
+        commitCapture.setRecorder(recorder);
+        log.info("开始压测场景: {}", scenario.getName());
+        long start = System.nanoTime();
+        scenario.run(dir, recorder);
+        long elapsed = System.nanoTime() - start;
+        drain(recorder);
+        commitCapture.setRecorder(null);
+
+        SoakReport report = recorder.report(scenario.getName(), elapsed);
+        long rows = context.getBean(FileOperationLogService.class).lambdaQuery()
+                .likeRight(FileOperationLogPo::getFilePath, dir.toAbsolutePath() + File.separator)
+                .count();
+        log.info("场景 {} 数据库中的操作日志行数: {}", scenario.getName(), rows);
+        System.out.print(report);
+        reports.add(report);
+        return report;
+    }
+
+    /**
+     * 等待入库：静默时间内无新提交（留出重复事件到达的时间），或超过最长等待时间
+     */
+    private void drain(SoakRecorder recorder) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.drainSeconds);
+        long quietNanos = TimeUnit.SECONDS.toNanos(options.quietSeconds);
+        while (System.nanoTime() < deadline) {
+            if (System.nanoTime() - recorder.getLastCommitNanos() > quietNanos) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    private void close() {
+        if (context != null) {
+            SpringApplication.exit(context);
+        }
+    }
+}
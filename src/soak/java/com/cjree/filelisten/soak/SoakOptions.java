@@ -0,0 +1,86 @@
+package com.cjree.filelisten.soak;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 压测参数，通过 -Dsoak.xxx 系统属性指定
+ */
+final class SoakOptions {
+
+    // 依次执行的场景：APPEND(追加写入)、STORM(创建/删除风暴)、DEEP(深层目录)、ROTATE(日志轮转)
+    final List<String> scenarios;
+    // 压测根目录，为空时使用临时目录
+    final Path rootDir;
+    // 持续写入类场景的时长（秒）
+    final int durationSeconds;
+    // 追加写入速率（MB/s）
+    final double appendMbPerSecond;
+    // 追加写入的文件数
+    final int appendFiles;
+    // 每行字节数（含换行）
+    final int lineBytes;
+    // 风暴场景创建/删除的文件数
+    final int stormFiles;
+    // 风暴场景每秒创建/删除的文件数
+    final int stormRate;
+    // 深层目录场景的目录分支数与深度
+    final int deepBranches;
+    final int deepDepth;
+    // 轮转场景每写入多少字节轮转一次
+    final long rotateBytes;
+    // 场景结束后等待入库的最长时间与静默时间（秒）
+    final int drainSeconds;
+    final int quietSeconds;
+    // 追加速率逐级翻倍的次数，0表示不探测最大可持续速率
+    final int rampSteps;
+    // 探测最大速率时的p99延迟上限（毫秒）
+    final long rampSloMillis;
+
+    private SoakOptions() {
+        scenarios = split(System.getProperty("soak.scenarios", "APPEND,STORM,DEEP,ROTATE"));
+        String dir = System.getProperty("soak.dir", "");
+        rootDir = dir.isEmpty() ? null : Paths.get(dir);
+        durationSeconds = Integer.getInteger("soak.durationSeconds", 30);
+        appendMbPerSecond = Double.parseDouble(System.getProperty("soak.appendMbPerSecond", "1"));
+        appendFiles = Integer.getInteger("soak.appendFiles", 16);
+        lineBytes = Math.max(32, Integer.getInteger("soak.lineBytes", 128));
+        stormFiles = Integer.getInteger("soak.stormFiles", 10000);
+        stormRate = Integer.getInteger("soak.stormRate", 2000);
+        deepBranches = Integer.getInteger("soak.deepBranches", 50);
+        deepDepth = Integer.getInteger("soak.deepDepth", 10);
+        rotateBytes = Long.getLong("soak.rotateBytes", 4L * 1024 * 1024);
+        drainSeconds = Integer.getInteger("soak.drainSeconds", 30);
+        quietSeconds = Integer.getInteger("soak.quietSeconds", 3);
+        rampSteps = Integer.getInteger("soak.rampSteps", 0);
+        rampSloMillis = Long.getLong("soak.rampSloMillis", 1000L);
+    }
+
+    static SoakOptions fromSystemProperties() {
+        return new SoakOptions();
+    }
+
+    long appendBytesPerSecond() {
+        return (long) (appendMbPerSecond * 1024 * 1024);
+    }
+
+    private static List<String> split(String value) {
+        List<String> result = new ArrayList<>();
+        for (String item : value.split(",")) {
+            if (!item.trim().isEmpty()) {
+                result.add(item.trim().toUpperCase());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "scenarios=" + scenarios + ", durationSeconds=" + durationSeconds + ", appendMbPerSecond=" + appendMbPerSecond
+                + ", appendFiles=" + appendFiles + ", lineBytes=" + lineBytes + ", stormFiles=" + stormFiles
+                + ", stormRate=" + stormRate + ", deepBranches=" + deepBranches + ", deepDepth=" + deepDepth
+                + ", rotateBytes=" + rotateBytes + ", rampSteps=" + rampSteps + ", rampSloMillis=" + rampSloMillis;
+    }
+}
@@ -0,0 +1,125 @@
+package com.cjree.filelisten.soak;
+
+import com.cjree.filelisten.entity.FileOperationLogPo;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 记录单个场景的期望事件与实际入库的操作日志
+ * 写入侧按键记录文件系统写入完成的时间，入库侧按键记录首次提交的时间和次数；
+ * 内容行以标记 soak#键 识别，文件/目录事件以 操作类型:路径 识别
+ */
+final class SoakRecorder {
+
+    static final String MARKER = "soak#";
+
+    private final String scope;
+
+    // 键 -> 写入完成时间（纳秒）
+    private final Map<String, Long> expected = new ConcurrentHashMap<>();
+
+    // 键 -> 入库情况
+    private final Map<String, Observation> observed = new ConcurrentHashMap<>();
+
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    private final AtomicLong rowsCommitted = new AtomicLong();
+
+    private volatile long lastCommitNanos = System.nanoTime();
+
+    SoakRecorder(Path dir) {
+        this.scope = dir.toAbsolutePath() + File.separator;
+    }
+
+    /**
+     * 写入完成后登记期望入库的键
+     */
+    void expect(String key, long writtenNanos) {
+        expected.put(key, writtenNanos);
+    }
+
+    void addBytes(long bytes) {
+        bytesWritten.addAndGet(bytes);
+    }
+
+    /**
+     * 操作日志批次提交后回调
+     */
+    void onCommit(List<FileOperationLogPo> logs, long committedNanos) {
+        boolean matched = false;
+        for (FileOperationLogPo operationLog : logs) {
+            String path = operationLog.getFilePath();
+            if (path == null || !path.startsWith(scope)) {
+                continue;
+            }
+            matched = true;
+            rowsCommitted.incrementAndGet();
+            String content = operationLog.getContent();
+            if (content == null || content.indexOf(MARKER) < 0) {
+                observe(operationLog.getOperationType() + ":" + path, committedNanos);
+                continue;
+            }
+            int index = content.indexOf(MARKER);
+            while (index >= 0) {
+                int start = index + MARKER.length();
+                int end = start;
+                while (end < content.length() && content.charAt(end) > ' ') {
+                    end++;
+                }
+                observe(content.substring(start, end), committedNanos);
+                index = content.indexOf(MARKER, end);
+            }
+        }
+        if (matched) {
+            lastCommitNanos = committedNanos;
+        }
+    }
+
+    private void observe(String key, long committedNanos) {
+        observed.computeIfAbsent(key, k -> new Observation(committedNanos)).count.incrementAndGet();
+    }
+
+    long getLastCommitNanos() {
+        return lastCommitNanos;
+    }
+
+    SoakReport report(String name, long elapsedNanos) {
+        long[] latencies = new long[expected.size()];
+        int delivered = 0;
+        long duplicated = 0;
+        for (Map.Entry<String, Long> entry : expected.entrySet()) {
+            Observation observation = observed.get(entry.getKey());
+            if (observation == null) {
+                continue;
+            }
+            latencies[delivered++] = Math.max(0, observation.firstCommitNanos - entry.getValue());
+            duplicated += observation.count.get() - 1;
+        }
+        long unexpected = 0;
+        for (Map.Entry<String, Observation> entry : observed.entrySet()) {
+            if (!expected.containsKey(entry.getKey())) {
+                unexpected += entry.getValue().count.get();
+            }
+        }
+        long[] sorted = Arrays.copyOf(latencies, delivered);
+        Arrays.sort(sorted);
+        return new SoakReport(name, elapsedNanos, expected.size(), delivered, duplicated, unexpected,
+                rowsCommitted.get(), bytesWritten.get(), sorted);
+    }
+
+    private static final class Observation {
+        private final long firstCommitNanos;
+        private final AtomicInteger count = new AtomicInteger();
+
+        Observation(long firstCommitNanos) {
+            this.firstCommitNanos = firstCommitNanos;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.cjree.filelisten.soak;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个场景的结果：期望与实际入库数、丢失与重复数、写入到入库的延迟分布
+ */
+final class SoakReport {
+
+    private final String name;
+    private final long elapsedNanos;
+    private final long expected;
+    private final long delivered;
+    private final long duplicated;
+    private final long unexpected;
+    private final long rows;
+    private final long bytesWritten;
+    // 已入库事件的延迟（纳秒），升序
+    private final long[] latencies;
+
+    SoakReport(String name, long elapsedNanos, long expected, long delivered, long duplicated, long unexpected,
+               long rows, long bytesWritten, long[] latencies) {
+        this.name = name;
+        this.elapsedNanos = elapsedNanos;
+        this.expected = expected;
+        this.delivered = delivered;
+        this.duplicated = duplicated;
+        this.unexpected = unexpected;
+        this.rows = rows;
+        this.bytesWritten = bytesWritten;
+        this.latencies = latencies;
+    }
+
+    long getLost() {
+        return expected - delivered;
+    }
+
+    /**
+     * 延迟分位数（毫秒），无数据时返回-1
+     */
+    double percentileMillis(double percentile) {
+        if (latencies.length == 0) {
+            return -1;
+        }
+        int index = (int) Math.ceil(percentile * latencies.length) - 1;
+        return latencies[Math.max(0, Math.min(index, latencies.length - 1))] / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        double seconds = Math.max(1, elapsedNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        return String.format("%n==== %s ====%n"
+                        + "耗时: %.1fs, 写入: %.2f MB (%.2f MB/s), 期望事件: %d (%.0f/s), 入库行数: %d%n"
+                        + "已入库: %d, 丢失: %d, 重复: %d, 非预期: %d%n"
+                        + "写入到入库延迟(ms) p50: %.1f, p99: %.1f, p999: %.1f, max: %.1f%n",
+                name, seconds, bytesWritten / 1048576.0, bytesWritten / 1048576.0 / seconds, expected, expected / seconds, rows,
+                delivered, getLost(), duplicated, unexpected,
+                percentileMillis(0.5), percentileMillis(0.99), percentileMillis(0.999), percentileMillis(1.0));
+    }
+}
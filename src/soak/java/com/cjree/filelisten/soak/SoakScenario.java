@@ -0,0 +1,61 @@
+package com.cjree.filelisten.soak;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 压测场景：在给定目录内制造文件变化，并把期望入库的事件登记到记录器
+ */
+abstract class SoakScenario {
+
+    // 全局递增的行标记序号
+    private static final AtomicLong LINE_SEQUENCE = new AtomicLong();
+
+    // 超前于目标速率超过该值才挂起，避免逐行挂起
+    private static final long PACE_SLACK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    abstract String getName();
+
+    abstract void run(Path dir, SoakRecorder recorder) throws Exception;
+
+    /**
+     * 生成一行带标记的内容，补齐到指定字节数（含换行）
+     * @return 标记键与内容
+     */
+    static MarkedLine nextLine(int lineBytes) {
+        String key = "L" + LINE_SEQUENCE.incrementAndGet();
+        byte[] head = (SoakRecorder.MARKER + key + " ").getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = Arrays.copyOf(head, Math.max(lineBytes, head.length + 1));
+        Arrays.fill(bytes, head.length, bytes.length - 1, (byte) 'x');
+        bytes[bytes.length - 1] = '\n';
+        return new MarkedLine(key, bytes);
+    }
+
+    /**
+     * 按目标速率节流：已完成的量超前于计划时挂起
+     * @param startNanos 开始时间
+     * @param done       已完成的量
+     * @param perSecond  每秒目标量
+     */
+    static void pace(long startNanos, long done, double perSecond) {
+        long due = startNanos + (long) (done * 1_000_000_000.0 / perSecond);
+        long ahead = due - System.nanoTime();
+        if (ahead > PACE_SLACK_NANOS) {
+            LockSupport.parkNanos(ahead);
+        }
+    }
+
+    static final class MarkedLine {
+        final String key;
+        final byte[] bytes;
+
+        MarkedLine(String key, byte[] bytes) {
+            this.key = key;
+            this.bytes = bytes;
+        }
+    }
+}
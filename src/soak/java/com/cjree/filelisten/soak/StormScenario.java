@@ -0,0 +1,46 @@
+package com.cjree.filelisten.soak;
+
+import com.cjree.filelisten.enums.OperationTypeEnum;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 创建/删除风暴：按速率批量创建空文件，等待入库后再按速率全部删除
+ * 两个阶段分开进行，避免同一文件的创建与删除在合并窗口内相互抵消
+ */
+final class StormScenario extends SoakScenario {
+
+    private final int files;
+    private final int filesPerSecond;
+    private final long settleMillis;
+
+    StormScenario(int files, int filesPerSecond, long settleMillis) {
+        this.files = files;
+        this.filesPerSecond = filesPerSecond;
+        this.settleMillis = settleMillis;
+    }
+
+    @Override
+    String getName() {
+        return "STORM";
+    }
+
+    @Override
+    void run(Path dir, SoakRecorder recorder) throws Exception {
+        Path[] paths = new Path[files];
+        long start = System.nanoTime();
+        for (int i = 0; i < files; i++) {
+            paths[i] = Files.createFile(dir.resolve("storm-" + i + ".log"));
+            recorder.expect(OperationTypeEnum.CREATE.getCode() + ":" + paths[i].toAbsolutePath(), System.nanoTime());
+            pace(start, i + 1, filesPerSecond);
+        }
+        Thread.sleep(settleMillis);
+        start = System.nanoTime();
+        for (int i = 0; i < files; i++) {
+            Files.delete(paths[i]);
+            recorder.expect(OperationTypeEnum.DELETE.getCode() + ":" + paths[i].toAbsolutePath(), System.nanoTime());
+            pace(start, i + 1, filesPerSecond);
+        }
+    }
+}
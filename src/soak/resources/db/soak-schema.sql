@@ -0,0 +1,81 @@
+-- 压测用H2表结构（MySQL兼容模式），与 table.sql 字段一致，每个连接初始化时执行
+CREATE TABLE IF NOT EXISTS `file_monitor_config` (
+    `id` bigint NOT NULL,
+    `monitor_path` varchar(255) NOT NULL,
+    `path_type` varchar(20) NOT NULL,
+    `recursives` tinyint NOT NULL DEFAULT '1',
+    `enabled` tinyint NOT NULL DEFAULT '1',
+    `include_patterns` varchar(500) DEFAULT NULL,
+    `exclude_patterns` varchar(500) DEFAULT NULL,
+    `tail_mode` varchar(20) DEFAULT NULL,
+    `watch_backend` varchar(20) DEFAULT NULL,
+    `overload_policy` varchar(20) DEFAULT NULL,
+    `creator` bigint DEFAULT NULL,
+    `updater` bigint DEFAULT NULL,
+    `remark` varchar(128) DEFAULT NULL,
+    `available` varchar(3) default 'YES' NOT NULL,
+    `create_date` datetime default current_timestamp,
+    `update_date` datetime default current_timestamp,
+    `version_date` datetime default current_timestamp,
+    PRIMARY KEY (`id`),
+    CONSTRAINT `uk_monitor_path` UNIQUE (`monitor_path`)
+);
+
+CREATE TABLE IF NOT EXISTS `file_operation_log` (
+    `id` bigint NOT NULL,
+    `file_path` varchar(255) NOT NULL,
+    `operation_type` varchar(20) NOT NULL,
+    `source_path` varchar(255) DEFAULT NULL,
+    `content` text,
+    `content_hash` char(64) DEFAULT NULL,
+    `operator` varchar(50) DEFAULT NULL,
+    `operation_time` datetime NOT NULL,
+    `creator` bigint DEFAULT NULL,
+    `updater` bigint DEFAULT NULL,
+    `remark` varchar(128) DEFAULT NULL,
+    `available` varchar(3) default 'YES' NOT NULL,
+    `create_date` datetime default current_timestamp,
+    `update_date` datetime default current_timestamp,
+    `version_date` datetime default current_timestamp,
+    PRIMARY KEY (`id`)
+);
+
+CREATE INDEX IF NOT EXISTS `idx_file_path` ON `file_operation_log` (`file_path`);
+CREATE INDEX IF NOT EXISTS `idx_operation_time` ON `file_operation_log` (`operation_time`);
+CREATE INDEX IF NOT EXISTS `idx_content_hash` ON `file_operation_log` (`content_hash`);
+
+CREATE TABLE IF NOT EXISTS `file_operation_content` (
+    `id` bigint NOT NULL,
+    `content_hash` char(64) NOT NULL,
+    `codec` varchar(10) NOT NULL,
+    `raw_length` int NOT NULL,
+    `data` mediumblob NOT NULL,
+    `creator` bigint DEFAULT NULL,
+    `updater` bigint DEFAULT NULL,
+    `remark` varchar(128) DEFAULT NULL,
+    `available` varchar(3) default 'YES' NOT NULL,
+    `create_date` datetime default current_timestamp,
+    `update_date` datetime default current_timestamp,
+    `version_date` datetime default current_timestamp,
+    PRIMARY KEY (`id`),
+    CONSTRAINT `uk_content_hash` UNIQUE (`content_hash`)
+);
+
+CREATE TABLE IF NOT EXISTS `file_operation_summary` (
+    `id` bigint NOT NULL,
+    `file_path` varchar(255) NOT NULL,
+    `summary_hour` datetime NOT NULL,
+    `modify_count` bigint NOT NULL,
+    `content_bytes` bigint NOT NULL,
+    `first_time` datetime NOT NULL,
+    `last_time` datetime NOT NULL,
+    `creator` bigint DEFAULT NULL,
+    `updater` bigint DEFAULT NULL,
+    `remark` varchar(128) DEFAULT NULL,
+    `available` varchar(3) default 'YES' NOT NULL,
+    `create_date` datetime default current_timestamp,
+    `update_date` datetime default current_timestamp,
+    `version_date` datetime default current_timestamp,
+    PRIMARY KEY (`id`),
+    CONSTRAINT `uk_file_hour` UNIQUE (`file_path`, `summary_hour`)
+);